@@ -3,9 +3,11 @@ package com.zzw.zzwgx;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.zzw.zzwgx.mapper")
+@EnableScheduling
 public class ZzwGxApplication {
 
     public static void main(String[] args) {
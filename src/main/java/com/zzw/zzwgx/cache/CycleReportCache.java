@@ -0,0 +1,70 @@
+package com.zzw.zzwgx.cache;
+
+import cn.hutool.cache.Cache;
+import cn.hutool.cache.CacheUtil;
+import com.zzw.zzwgx.dto.response.CycleReportDataResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已完成循环的报表快照缓存
+ * 已完成循环的报表数据几乎不再变化，构建完成后按循环ID缓存，重复查看不再访问数据库。
+ * 报表依赖上一循环的响炮时间及循环号顺序，因此循环、工序变更时整体失效；构建前记录版本号，
+ * 构建期间发生失效的结果不缓存。返回的对象为共享实例，调用方只读不改。
+ */
+@Component
+public class CycleReportCache {
+
+    private final Cache<Long, CycleReportDataResponse> cache;
+    private final AtomicLong version = new AtomicLong();
+
+    public CycleReportCache(@Value("${report.snapshot-cache.capacity:1000}") int capacity,
+                            @Value("${report.snapshot-cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.cache = CacheUtil.newLRUCache(capacity, ttlSeconds * 1000);
+    }
+
+    /**
+     * 获取缓存的报表快照，未缓存返回null
+     */
+    public CycleReportDataResponse get(Long cycleId) {
+        return cache.get(cycleId, false);
+    }
+
+    /**
+     * 当前版本号，构建报表前获取，缓存时传回
+     */
+    public long currentVersion() {
+        return version.get();
+    }
+
+    /**
+     * 缓存报表快照，构建期间发生过失效（版本号已变化）则不缓存
+     */
+    public void put(Long cycleId, long buildVersion, CycleReportDataResponse response) {
+        if (buildVersion == version.get()) {
+            cache.put(cycleId, response);
+        }
+    }
+
+    /**
+     * 使所有报表快照失效
+     * 在事务中调用时，事务结束后会再次失效，避免事务提交前被并发请求缓存旧数据
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        cache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                    cache.clear();
+                }
+            });
+        }
+    }
+}
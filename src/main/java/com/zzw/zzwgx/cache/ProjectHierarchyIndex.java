@@ -0,0 +1,185 @@
+package com.zzw.zzwgx.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zzw.zzwgx.entity.Project;
+import com.zzw.zzwgx.mapper.ProjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 项目层级内存索引
+ * 首次使用时一次性加载整张 project 表，之后"节点下的所有工点"、"节点是否属于某些节点"等判断都在内存中完成。
+ * 项目节点增删改后调用 {@link #invalidate()}，下次访问时重新加载；另有过期时间兜底直接改库的情况。
+ * 返回的 Project 对象为共享实例，调用方只读不改。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProjectHierarchyIndex {
+
+    private static final String NODE_TYPE_SITE = "SITE";
+
+    private final ProjectMapper projectMapper;
+
+    @Value("${project.hierarchy.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 获取项目节点，不存在（或已删除）返回null
+     */
+    public Project getProject(Long projectId) {
+        if (projectId == null) {
+            return null;
+        }
+        return current().nodes.get(projectId);
+    }
+
+    /**
+     * 获取直接子节点，按ID升序
+     */
+    public List<Project> getChildren(Long parentId) {
+        Snapshot s = current();
+        List<Long> childIds = s.children.getOrDefault(parentId, Collections.emptyList());
+        List<Project> result = new ArrayList<>(childIds.size());
+        for (Long childId : childIds) {
+            result.add(s.nodes.get(childId));
+        }
+        return result;
+    }
+
+    /**
+     * 将任意层级的节点展开为其下所有工点（node_type=SITE）ID，节点本身是工点时直接返回自身
+     */
+    public List<Long> getSiteDescendantIds(Collection<Long> rootIds) {
+        List<Long> result = new ArrayList<>();
+        if (rootIds == null || rootIds.isEmpty()) {
+            return result;
+        }
+        Snapshot s = current();
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> queue = new ArrayDeque<>(rootIds);
+        while (!queue.isEmpty()) {
+            Long currentId = queue.poll();
+            if (currentId == null || !visited.add(currentId)) {
+                continue;
+            }
+            Project project = s.nodes.get(currentId);
+            if (project == null) {
+                continue;
+            }
+            if (NODE_TYPE_SITE.equalsIgnoreCase(project.getNodeType())) {
+                result.add(currentId);
+            } else {
+                queue.addAll(s.children.getOrDefault(currentId, Collections.emptyList()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断节点本身或其任一祖先节点是否在给定节点集合中
+     */
+    public boolean isUnderAny(Long projectId, Collection<Long> ancestorIds) {
+        if (projectId == null || ancestorIds == null || ancestorIds.isEmpty()) {
+            return false;
+        }
+        Snapshot s = current();
+        Set<Long> targets = new HashSet<>(ancestorIds);
+        Set<Long> visited = new HashSet<>();
+        Long currentId = projectId;
+        while (currentId != null && visited.add(currentId)) {
+            if (targets.contains(currentId)) {
+                return true;
+            }
+            Project project = s.nodes.get(currentId);
+            if (project == null) {
+                return false;
+            }
+            currentId = project.getParentId();
+        }
+        return false;
+    }
+
+    /**
+     * 使索引失效，下次访问时重新加载
+     * 在事务中调用时，事务结束后会再次失效，避免事务提交前被并发请求加载到旧数据
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                    snapshot = null;
+                }
+            });
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null && !s.isExpired(ttlSeconds)) {
+            return s;
+        }
+        synchronized (this) {
+            s = snapshot;
+            if (s != null && !s.isExpired(ttlSeconds)) {
+                return s;
+            }
+            long loadVersion = version.get();
+            s = load();
+            // 加载期间发生了失效，本次结果只给当前调用使用，不缓存
+            if (loadVersion == version.get()) {
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    private Snapshot load() {
+        List<Project> projects = projectMapper.selectList(new LambdaQueryWrapper<Project>()
+                .orderByAsc(Project::getId));
+        Map<Long, Project> nodes = new HashMap<>(projects.size() * 2);
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (Project project : projects) {
+            nodes.put(project.getId(), project);
+        }
+        for (Project project : projects) {
+            if (project.getParentId() != null) {
+                children.computeIfAbsent(project.getParentId(), k -> new ArrayList<>()).add(project.getId());
+            }
+        }
+        log.info("项目层级索引加载完成，节点数: {}", nodes.size());
+        return new Snapshot(Collections.unmodifiableMap(nodes), Collections.unmodifiableMap(children), System.currentTimeMillis());
+    }
+
+    private static final class Snapshot {
+
+        private final Map<Long, Project> nodes;
+        private final Map<Long, List<Long>> children;
+        private final long loadedAt;
+
+        private Snapshot(Map<Long, Project> nodes, Map<Long, List<Long>> children, long loadedAt) {
+            this.nodes = nodes;
+            this.children = children;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return ttlSeconds > 0 && System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.zzw.zzwgx.cache;
+
+import com.zzw.zzwgx.common.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 循环报表模板缓存
+ * 启动时把 static/工序时间统计表.xlsx 读入内存，导出时直接从字节数组打开，不再每次复制临时文件。
+ * 同时限制同时进行的导出数量，每个导出会在内存中构建一份工作簿，数量有上限才能控制堆内存占用。
+ */
+@Slf4j
+@Component
+public class ReportTemplateCache {
+
+    private static final String CYCLE_REPORT_TEMPLATE = "classpath:static/工序时间统计表.xlsx";
+
+    private final ResourceLoader resourceLoader;
+    private final Semaphore exportPermits;
+    private final long acquireTimeoutSeconds;
+
+    private volatile byte[] cycleReportTemplate;
+
+    public ReportTemplateCache(ResourceLoader resourceLoader,
+                               @Value("${report.export.max-concurrent:4}") int maxConcurrentExports,
+                               @Value("${report.export.acquire-timeout-seconds:30}") long acquireTimeoutSeconds) {
+        this.resourceLoader = resourceLoader;
+        this.exportPermits = new Semaphore(maxConcurrentExports, true);
+        this.acquireTimeoutSeconds = acquireTimeoutSeconds;
+    }
+
+    @PostConstruct
+    public void load() {
+        cycleReportTemplate = readTemplate();
+    }
+
+    /**
+     * 打开循环报表模板（每次返回新的输入流，共享同一份字节）
+     */
+    public InputStream openCycleReportTemplate() {
+        byte[] bytes = cycleReportTemplate;
+        if (bytes == null) {
+            // 启动时未找到模板，可能是之后才放入，重试一次
+            bytes = readTemplate();
+            cycleReportTemplate = bytes;
+        }
+        if (bytes == null) {
+            throw new BusinessException("未找到报表模板文件（static目录下的工序时间统计表.xlsx）");
+        }
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * 获取导出许可，超时未获取到抛出业务异常；获取成功后必须调用 {@link #releaseExportPermit()}
+     */
+    public void acquireExportPermit() {
+        try {
+            if (!exportPermits.tryAcquire(acquireTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new BusinessException("当前导出任务较多，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("导出被中断，请稍后重试");
+        }
+    }
+
+    public void releaseExportPermit() {
+        exportPermits.release();
+    }
+
+    private byte[] readTemplate() {
+        Resource resource = resourceLoader.getResource(CYCLE_REPORT_TEMPLATE);
+        if (!resource.exists()) {
+            log.warn("未找到报表模板文件（static目录下的工序时间统计表.xlsx）");
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            byte[] bytes = in.readAllBytes();
+            log.info("循环报表模板已加载，大小: {} 字节", bytes.length);
+            return bytes;
+        } catch (IOException e) {
+            log.error("读取报表模板文件失败", e);
+            return null;
+        }
+    }
+}
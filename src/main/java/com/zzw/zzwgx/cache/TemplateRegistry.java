@@ -0,0 +1,356 @@
+package com.zzw.zzwgx.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zzw.zzwgx.dto.TemplateStepRow;
+import com.zzw.zzwgx.dto.response.TemplateRegistryStats;
+import com.zzw.zzwgx.entity.ProcessTemplate;
+import com.zzw.zzwgx.entity.ProjectTemplate;
+import com.zzw.zzwgx.mapper.ProjectTemplateMapper;
+import com.zzw.zzwgx.mapper.TemplateProcessMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模板注册表
+ * 一次性加载所有模板、模板工序（含工序字典名称）和工点-模板关联，按模板编译为不可变快照（有序工序、控制时长总和），
+ * 创建循环、模板选择等只读场景直接从内存读取，不再查询模板相关表。
+ * 模板或关联变更后调用 {@link #invalidate()}，下次访问时重新加载；另有过期时间兜底直接改库的情况。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TemplateRegistry {
+
+    private final TemplateProcessMapper templateProcessMapper;
+    private final ProjectTemplateMapper projectTemplateMapper;
+
+    @Value("${template.registry.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${template.registry.warm-up:true}")
+    private boolean warmUp;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 应用启动后在后台线程预加载，加载失败不影响启动，首次访问时会再次加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                current();
+            } catch (Exception e) {
+                log.warn("模板注册表预加载失败，将在首次访问时加载，error: {}", e.getMessage());
+            }
+        }, "template-registry-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 根据模板ID（template 表主键）获取模板快照，不存在返回null
+     */
+    public TemplateSnapshot getTemplate(Long templateId) {
+        if (templateId == null) {
+            return null;
+        }
+        return current().templates.get(templateId);
+    }
+
+    /**
+     * 根据模板名称获取模板快照，同名模板取ID最小的一个，不存在返回null
+     */
+    public TemplateSnapshot getTemplateByName(String templateName) {
+        if (templateName == null) {
+            return null;
+        }
+        return current().templatesByName.get(templateName);
+    }
+
+    /**
+     * 根据模板工序ID（template_process 表主键）获取其所属模板快照，不存在返回null
+     */
+    public TemplateSnapshot getTemplateByStepId(Long stepId) {
+        if (stepId == null) {
+            return null;
+        }
+        return current().templatesByStepId.get(stepId);
+    }
+
+    /**
+     * 获取所有模板快照，按模板ID升序
+     */
+    public List<TemplateSnapshot> getTemplates() {
+        return current().templateList;
+    }
+
+    /**
+     * 获取工点关联的模板快照，按模板ID升序
+     */
+    public List<TemplateSnapshot> getSiteTemplates(Long siteId) {
+        Snapshot s = current();
+        List<Long> templateIds = s.siteTemplateIds.getOrDefault(siteId, Collections.emptyList());
+        List<TemplateSnapshot> result = new ArrayList<>(templateIds.size());
+        for (Long templateId : templateIds) {
+            TemplateSnapshot template = s.templates.get(templateId);
+            if (template != null) {
+                result.add(template);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断工点是否关联了模板
+     */
+    public boolean isBoundToSite(Long siteId, Long templateId) {
+        if (siteId == null || templateId == null) {
+            return false;
+        }
+        return current().siteTemplateIds.getOrDefault(siteId, Collections.emptyList()).contains(templateId);
+    }
+
+    /**
+     * 使注册表失效，下次访问时重新加载
+     * 在事务中调用时，事务结束后会再次失效，避免事务提交前被并发请求加载到旧数据
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                    snapshot = null;
+                }
+            });
+        }
+    }
+
+    /**
+     * 命中、未命中及当前快照统计
+     */
+    public TemplateRegistryStats getStats() {
+        Snapshot s = snapshot;
+        TemplateRegistryStats stats = new TemplateRegistryStats();
+        stats.setHitCount(hitCount.get());
+        stats.setMissCount(missCount.get());
+        stats.setLoadCount(loadCount.get());
+        stats.setTemplateCount(s == null ? 0 : s.templates.size());
+        stats.setStepCount(s == null ? 0 : s.templatesByStepId.size());
+        stats.setLoadedTime(s == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(s.loadedAt), ZoneId.systemDefault()));
+        return stats;
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null && !s.isExpired(ttlSeconds)) {
+            hitCount.incrementAndGet();
+            return s;
+        }
+        synchronized (this) {
+            s = snapshot;
+            if (s != null && !s.isExpired(ttlSeconds)) {
+                hitCount.incrementAndGet();
+                return s;
+            }
+            missCount.incrementAndGet();
+            long loadVersion = version.get();
+            s = load();
+            // 加载期间发生了失效，本次结果只给当前调用使用，不缓存
+            if (loadVersion == version.get()) {
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    private Snapshot load() {
+        loadCount.incrementAndGet();
+        List<TemplateStepRow> rows = templateProcessMapper.selectAllTemplateSteps();
+        List<ProjectTemplate> relations = projectTemplateMapper.selectList(new LambdaQueryWrapper<ProjectTemplate>()
+                .eq(ProjectTemplate::getDeleted, 0));
+
+        // 行已按模板ID、默认顺序排序，相邻行属于同一模板
+        Map<Long, TemplateSnapshot> templates = new LinkedHashMap<>();
+        Map<String, TemplateSnapshot> templatesByName = new HashMap<>();
+        Map<Long, TemplateSnapshot> templatesByStepId = new HashMap<>(rows.size() * 2);
+        int index = 0;
+        while (index < rows.size()) {
+            TemplateStepRow first = rows.get(index);
+            List<TemplateStep> steps = new ArrayList<>();
+            while (index < rows.size() && Objects.equals(rows.get(index).getTemplateId(), first.getTemplateId())) {
+                TemplateStepRow row = rows.get(index++);
+                if (row.getStepId() != null) {
+                    steps.add(new TemplateStep(row));
+                }
+            }
+            TemplateSnapshot template = new TemplateSnapshot(first.getTemplateId(), first.getTemplateName(), steps);
+            templates.put(template.getTemplateId(), template);
+            if (template.getTemplateName() != null) {
+                templatesByName.putIfAbsent(template.getTemplateName(), template);
+            }
+            for (TemplateStep step : steps) {
+                templatesByStepId.put(step.getId(), template);
+            }
+        }
+
+        Map<Long, List<Long>> siteTemplateIds = new HashMap<>();
+        for (ProjectTemplate relation : relations) {
+            if (relation.getProjectId() == null || !templates.containsKey(relation.getTemplateId())) {
+                continue;
+            }
+            List<Long> ids = siteTemplateIds.computeIfAbsent(relation.getProjectId(), k -> new ArrayList<>());
+            if (!ids.contains(relation.getTemplateId())) {
+                ids.add(relation.getTemplateId());
+            }
+        }
+        siteTemplateIds.replaceAll((siteId, ids) -> {
+            ids.sort(Comparator.naturalOrder());
+            return Collections.unmodifiableList(ids);
+        });
+
+        log.info("模板注册表加载完成，模板数: {}, 模板工序数: {}, 关联工点数: {}",
+                templates.size(), templatesByStepId.size(), siteTemplateIds.size());
+        return new Snapshot(Collections.unmodifiableMap(templates), Collections.unmodifiableMap(templatesByName),
+                Collections.unmodifiableMap(templatesByStepId), Collections.unmodifiableMap(siteTemplateIds),
+                List.copyOf(templates.values()), System.currentTimeMillis());
+    }
+
+    /**
+     * 模板快照（不可变）
+     */
+    @Getter
+    public static final class TemplateSnapshot {
+
+        /** template 表主键 */
+        private final Long templateId;
+        private final String templateName;
+        /** 按默认顺序排列的工序 */
+        private final List<TemplateStep> steps;
+        /** 控制时长：所有工序控制时间（大于0的部分）之和，单位分钟 */
+        private final int controlDuration;
+
+        private TemplateSnapshot(Long templateId, String templateName, List<TemplateStep> steps) {
+            this.templateId = templateId;
+            this.templateName = templateName;
+            this.steps = Collections.unmodifiableList(steps);
+            this.controlDuration = steps.stream()
+                    .map(TemplateStep::getControlTime)
+                    .filter(controlTime -> controlTime != null && controlTime > 0)
+                    .mapToInt(Integer::intValue)
+                    .sum();
+        }
+
+        /**
+         * 首个工序（按默认顺序），没有工序时返回null
+         */
+        public TemplateStep getFirstStep() {
+            return steps.isEmpty() ? null : steps.get(0);
+        }
+
+        /**
+         * 转换为工序模板列表，每次返回新对象，调用方可以修改
+         *
+         * @param siteId 工点ID，可为空
+         */
+        public List<ProcessTemplate> toProcessTemplates(Long siteId) {
+            List<ProcessTemplate> result = new ArrayList<>(steps.size());
+            for (TemplateStep step : steps) {
+                ProcessTemplate pt = new ProcessTemplate();
+                pt.setId(step.getId());
+                pt.setTemplateId(templateId);
+                pt.setTemplateName(templateName);
+                pt.setSiteId(siteId);
+                pt.setProcessCatalogId(step.getProcessCatalogId());
+                pt.setProcessName(step.getProcessName());
+                pt.setControlTime(step.getControlTime());
+                pt.setDefaultOrder(step.getDefaultOrder());
+                pt.setDescription(step.getDescription());
+                pt.setDeleted(0);
+                pt.setCreateTime(step.getCreateTime());
+                pt.setUpdateTime(step.getUpdateTime());
+                result.add(pt);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 模板工序快照（不可变）
+     */
+    @Getter
+    public static final class TemplateStep {
+
+        /** template_process 表主键 */
+        private final Long id;
+        private final Long processCatalogId;
+        /** 工序字典名称 */
+        private final String processName;
+        private final Integer controlTime;
+        private final Integer defaultOrder;
+        private final String description;
+        private final LocalDateTime createTime;
+        private final LocalDateTime updateTime;
+
+        private TemplateStep(TemplateStepRow row) {
+            this.id = row.getStepId();
+            this.processCatalogId = row.getProcessCatalogId();
+            this.processName = row.getProcessName();
+            this.controlTime = row.getControlTime();
+            this.defaultOrder = row.getDefaultOrder();
+            this.description = row.getDescription();
+            this.createTime = row.getCreateTime();
+            this.updateTime = row.getUpdateTime();
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Map<Long, TemplateSnapshot> templates;
+        private final Map<String, TemplateSnapshot> templatesByName;
+        private final Map<Long, TemplateSnapshot> templatesByStepId;
+        private final Map<Long, List<Long>> siteTemplateIds;
+        private final List<TemplateSnapshot> templateList;
+        private final long loadedAt;
+
+        private Snapshot(Map<Long, TemplateSnapshot> templates, Map<String, TemplateSnapshot> templatesByName,
+                         Map<Long, TemplateSnapshot> templatesByStepId, Map<Long, List<Long>> siteTemplateIds,
+                         List<TemplateSnapshot> templateList, long loadedAt) {
+            this.templates = templates;
+            this.templatesByName = templatesByName;
+            this.templatesByStepId = templatesByStepId;
+            this.siteTemplateIds = siteTemplateIds;
+            this.templateList = templateList;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return ttlSeconds > 0 && System.currentTimeMillis() - loadedAt > ttlSeconds * 1000;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.zzw.zzwgx.common.enums;
+
+import lombok.Getter;
+
+/**
+ * 施工变更事件类型枚举（SSE推送）
+ */
+@Getter
+public enum ConstructionEventType {
+    PROCESS_CREATED("PROCESS_CREATED", "工序新增"),
+    PROCESS_UPDATED("PROCESS_UPDATED", "工序修改"),
+    PROCESS_STARTED("PROCESS_STARTED", "工序开始"),
+    PROCESS_COMPLETED("PROCESS_COMPLETED", "工序完成"),
+    PROCESS_TIME_FILLED("PROCESS_TIME_FILLED", "工序时间补填"),
+    PROCESS_REORDERED("PROCESS_REORDERED", "工序顺序调整"),
+    CYCLE_CREATED("CYCLE_CREATED", "循环新增"),
+    CYCLE_UPDATED("CYCLE_UPDATED", "循环修改"),
+    CYCLE_COMPLETED("CYCLE_COMPLETED", "循环完成"),
+    CYCLE_DELETED("CYCLE_DELETED", "循环删除");
+
+    private final String code;
+    private final String desc;
+
+    ConstructionEventType(String code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+}
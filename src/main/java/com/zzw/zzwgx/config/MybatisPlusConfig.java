@@ -4,9 +4,13 @@ import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.zzw.zzwgx.monitor.SqlStatementCounterInterceptor;
 import org.apache.ibatis.reflection.MetaObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 
 import java.time.LocalDateTime;
 
@@ -26,6 +30,17 @@ public class MybatisPlusConfig {
         return interceptor;
     }
     
+    /**
+     * SQL语句计数插件，按请求、按Mapper方法统计语句数和耗时
+     * 必须最先注册（位于最内层）：分页插件的COUNT查询直接交给内层执行器，计数插件在外层时统计不到
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnProperty(prefix = "sql-monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SqlStatementCounterInterceptor sqlStatementCounterInterceptor() {
+        return new SqlStatementCounterInterceptor();
+    }
+    
     /**
      * 自动填充处理器
      */
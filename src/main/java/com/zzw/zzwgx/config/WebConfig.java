@@ -1,5 +1,6 @@
 package com.zzw.zzwgx.config;
 
+import com.zzw.zzwgx.monitor.SqlStatementStatsHeaderAdvice;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -16,6 +17,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOriginPatterns("*")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders(SqlStatementStatsHeaderAdvice.HEADER_SQL_COUNT, SqlStatementStatsHeaderAdvice.HEADER_SQL_TIME)
                 .allowCredentials(true)
                 .maxAge(3600);
     }
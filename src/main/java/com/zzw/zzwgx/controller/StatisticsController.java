@@ -4,14 +4,18 @@ import com.zzw.zzwgx.common.Result;
 import com.zzw.zzwgx.dto.response.MonthlyStatisticsResponse;
 import com.zzw.zzwgx.dto.response.StatisticsResponse;
 import com.zzw.zzwgx.dto.response.WeeklyOvertimeSummaryResponse;
+import com.zzw.zzwgx.service.SiteDailyProcessStatService;
 import com.zzw.zzwgx.service.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -25,6 +29,7 @@ import java.util.List;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final SiteDailyProcessStatService siteDailyProcessStatService;
     
     @Operation(summary = "获取工点工序总时间统计", description = "根据年月查询当前管理员可管理工点的工序总时间统计列表，返回各工点在指定月份的平均工序时间和节省的总时间（单位：小时）。")
     @GetMapping("/process-time")
@@ -53,6 +58,16 @@ public class StatisticsController {
         List<StatisticsResponse.OvertimeStat> stats = statisticsService.getOvertimeStatisticsForCurrentUser();
         return Result.success(stats);
     }
+    
+    @Operation(summary = "重建工点每日统计", description = "按日期范围从工序数据重新计算工点每日统计（仅系统管理员）。用于历史数据初始化或统计数据纠偏，返回写入的统计行数。")
+    @PostMapping("/daily-stat/rebuild")
+    @PreAuthorize("hasRole('SYSTEM_ADMIN')")
+    public Result<Integer> rebuildDailyStat(
+            @Parameter(description = "开始日期", required = true, example = "2025-06-01") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "结束日期", required = true, example = "2025-06-30") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        log.info("重建工点每日统计，开始日期: {}, 结束日期: {}", startDate, endDate);
+        int rows = siteDailyProcessStatService.rebuild(startDate, endDate);
+        return Result.success(rows);
+    }
 
 }
-
@@ -18,8 +18,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -59,6 +61,20 @@ public class WorkerController {
         return Result.success(page);
     }
 
+    @Operation(summary = "滚动加载我的工序列表", description = "施工人员按创建时间倒序滚动加载自己的工序任务列表（游标分页），首次请求不传游标，之后把上一次返回的 nextCursorTime 和 nextCursorId 原样传回；hasMore 为 false 表示已加载完。筛选条件与“获取我的工序列表”一致。")
+    @GetMapping("/processes/scroll")
+    public Result<WorkerProcessScrollResponse> scrollMyProcesses(
+            @Parameter(description = "游标：上一次返回的 nextCursorTime", example = "2025-11-05 07:30:00") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime cursorTime,
+            @Parameter(description = "游标：上一次返回的 nextCursorId", example = "1001") @RequestParam(required = false) Long cursorId,
+            @Parameter(description = "每次返回数量，最大100", example = "20") @RequestParam(defaultValue = "20") Integer size,
+            @Parameter(description = "工点名称关键词，支持模糊搜索", example = "工点1") @RequestParam(required = false) String projectName,
+            @Parameter(description = "工序状态：NOT_STARTED/IN_PROGRESS/COMPLETED", example = "IN_PROGRESS") @RequestParam(required = false) String status) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        log.info("施工人员滚动加载工序列表，用户ID: {}, 游标: {}/{}, 大小: {}", userId, cursorTime, cursorId, size);
+        WorkerProcessScrollResponse response = processService.scrollWorkerProcessList(userId, cursorTime, cursorId, size, projectName, status);
+        return Result.success(response);
+    }
+
     @Operation(summary = "获取我的工序详情", description = "施工人员查看指定工序的详细信息，包括工序名称、状态、耗时、循环号、上一工序状态、开始结束时间、超时原因等。")
     @GetMapping("/processes/{processId}")
     public Result<ProcessDetailResponse> getMyProcessDetail(
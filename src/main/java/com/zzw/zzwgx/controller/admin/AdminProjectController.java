@@ -13,7 +13,11 @@ import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
 
 /**
  * 工点管理控制器（管理员）
@@ -75,5 +79,20 @@ public class AdminProjectController {
         SiteConstructionStatusResponse response = projectService.getSiteConstructionStatus(projectId);
         return Result.success(response);
     }
+    
+    @Operation(summary = "施工看板", description = "管理员一次查看所有可访问工点的当前施工状态，每个工点的数据与“查看工点施工状态”一致。系统管理员返回全部工点，普通管理员返回其分配的工点。", tags = {"管理员管理-工点管理"})
+    @GetMapping("/projects/construction-board")
+    public Result<List<SiteConstructionStatusResponse>> getConstructionBoard() {
+        log.info("管理员查看施工看板");
+        List<SiteConstructionStatusResponse> response = projectService.getConstructionBoard();
+        return Result.success(response);
+    }
+    
+    @Operation(summary = "订阅施工变更事件", description = "以SSE方式推送工序开始、完成、补填、调整顺序以及循环新增、修改、完成等变更事件，客户端收到事件后再刷新对应工点数据，无需轮询。指定工点ID时只推送该工点，否则推送可访问的所有工点；连接空闲时定期发送心跳。", tags = {"管理员管理-工点管理"})
+    @GetMapping(value = "/projects/construction-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeConstructionEvents(
+            @Parameter(description = "工点项目ID，不指定则订阅所有可访问工点", example = "1") @RequestParam(required = false) Long projectId) {
+        log.info("管理员订阅施工变更事件，项目ID: {}", projectId);
+        return projectService.subscribeConstructionEvents(projectId);
+    }
 }
-
@@ -3,10 +3,13 @@ package com.zzw.zzwgx.controller.admin;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zzw.zzwgx.common.Result;
 import com.zzw.zzwgx.dto.request.CreateCycleRequest;
+import com.zzw.zzwgx.dto.request.CycleReportExportJobRequest;
 import com.zzw.zzwgx.dto.request.UpdateCycleRequest;
+import com.zzw.zzwgx.dto.response.BlastIntervalResponse;
 import com.zzw.zzwgx.dto.response.CycleReportDataResponse;
 import com.zzw.zzwgx.dto.response.CycleResponse;
 import com.zzw.zzwgx.dto.response.InProgressProcessOrderResponse;
+import com.zzw.zzwgx.dto.response.ReportExportJobResponse;
 import com.zzw.zzwgx.dto.response.TemplateControlDurationResponse;
 import com.zzw.zzwgx.service.CycleService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,9 +18,13 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * 循环管理控制器
  */
@@ -75,6 +82,33 @@ public class CycleController {
         cycleService.exportCycleReport(cycleId, response);
     }
     
+    @Operation(summary = "提交循环报表批量导出任务", description = "按工点和循环开始日期范围提交批量导出任务，后台为每个循环生成一个Excel报表并打包为ZIP。返回任务ID，可轮询任务状态，完成后下载。", tags = {"管理员管理-循环管理"})
+    @PostMapping("/cycles/report-export-jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SYSTEM_ADMIN')")
+    public Result<ReportExportJobResponse> submitCycleReportExportJob(@Valid @RequestBody CycleReportExportJobRequest request) {
+        log.info("提交循环报表批量导出任务，工点ID: {}, 开始日期: {}, 结束日期: {}",
+                request.getProjectId(), request.getStartDate(), request.getEndDate());
+        return Result.success(cycleService.submitCycleReportExportJob(request));
+    }
+    
+    @Operation(summary = "查询循环报表批量导出任务", description = "查询批量导出任务的状态和进度（仅任务提交人）。状态为COMPLETED时可下载。", tags = {"管理员管理-循环管理"})
+    @GetMapping("/cycles/report-export-jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SYSTEM_ADMIN')")
+    public Result<ReportExportJobResponse> getCycleReportExportJob(
+            @Parameter(description = "任务ID", required = true) @PathVariable String jobId) {
+        return Result.success(cycleService.getCycleReportExportJob(jobId));
+    }
+    
+    @Operation(summary = "下载循环报表批量导出文件", description = "下载已完成的批量导出任务生成的ZIP文件（仅任务提交人）。", tags = {"管理员管理-循环管理"})
+    @GetMapping("/cycles/report-export-jobs/{jobId}/download")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SYSTEM_ADMIN')")
+    public void downloadCycleReportExportJob(
+            @Parameter(description = "任务ID", required = true) @PathVariable String jobId,
+            HttpServletResponse response) {
+        log.info("下载循环报表批量导出文件，任务ID: {}", jobId);
+        cycleService.downloadCycleReportExportJob(jobId, response);
+    }
+    
     @Operation(summary = "获取循环报表数据", description = "获取循环报表中需要填写的单元格值，返回JSON格式数据，用于前端展示或手动填写Excel。", tags = {"管理员管理-循环管理"})
     @GetMapping("/cycles/{cycleId}/report-data")
     public Result<CycleReportDataResponse> getCycleReportData(
@@ -84,6 +118,16 @@ public class CycleController {
         return Result.success(response);
     }
     
+    @Operation(summary = "获取工点响炮间隔序列", description = "按日期范围查询工点每次响炮（装药爆破结束）的时间及与上一次响炮的间隔（分钟），按响炮时间升序返回，用于循环节奏图表。区间内第一次响炮的间隔以区间前最近一次响炮为起点。", tags = {"管理员管理-循环管理"})
+    @GetMapping("/projects/{projectId}/blast-intervals")
+    public Result<List<BlastIntervalResponse>> getBlastIntervals(
+            @Parameter(description = "工点项目ID", required = true, example = "1") @PathVariable Long projectId,
+            @Parameter(description = "开始日期", required = true, example = "2025-06-01") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "结束日期", required = true, example = "2025-06-30") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        List<BlastIntervalResponse> response = cycleService.getBlastIntervals(projectId, startDate, endDate);
+        return Result.success(response);
+    }
+    
     @Operation(summary = "更新循环信息", description = "修改循环的控制时长、开始结束时间、状态、进尺、围岩等级等信息。如果更新为进行中状态，会检查该工点是否已有其他进行中的循环。", tags = {"管理员管理-循环管理"})
     @PutMapping("/cycles/{cycleId}")
     public Result<CycleResponse> updateCycle(
@@ -9,12 +9,14 @@ import com.zzw.zzwgx.dto.response.CycleProcessTimeResponse;
 import com.zzw.zzwgx.dto.response.OvertimeProcessResponse;
 import com.zzw.zzwgx.dto.response.ProcessDetailResponse;
 import com.zzw.zzwgx.dto.response.ProcessResponse;
+import com.zzw.zzwgx.dto.response.OperationLogWriterStats;
 import com.zzw.zzwgx.service.ProcessService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -28,6 +30,13 @@ public class ProcessController {
     
     private final ProcessService processService;
     
+    @Operation(summary = "获取操作日志写入统计", description = "查询工序操作日志异步写入器的队列深度、累计写入数、丢弃数和失败数（仅系统管理员），用于监控日志积压。", tags = {"管理员管理-工序管理"})
+    @GetMapping("/processes/operation-log/stats")
+    @PreAuthorize("hasRole('SYSTEM_ADMIN')")
+    public Result<OperationLogWriterStats> getOperationLogWriterStats() {
+        return Result.success(processService.getOperationLogWriterStats());
+    }
+    
     @Operation(summary = "新建并开工工序", description = "为指定循环创建工序。如果新建工序位置与进行中工序位置一致（startOrder相等），则先清除原工序的时间字段，新工序继承原工序的预计开始时间和实际开始时间，并根据新工序的控制时间计算预计结束时间；如果新建工序替换了进行中的工序（startOrder < 进行中工序的startOrder），则使用原工序的时间，原工序被移到后面并清空时间字段；如果插入到进行中工序之后（startOrder > 进行中工序的startOrder），则不设置时间字段。", tags = {"管理员管理-工序管理"})
     @PostMapping("/processes/start-now")
     public Result<ProcessResponse> createProcessAndStart(@Valid @RequestBody CreateProcessRequest request) {
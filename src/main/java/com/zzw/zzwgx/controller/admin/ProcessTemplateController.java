@@ -1,5 +1,6 @@
 package com.zzw.zzwgx.controller.admin;
 
+import com.zzw.zzwgx.cache.TemplateRegistry;
 import com.zzw.zzwgx.common.Result;
 import com.zzw.zzwgx.common.enums.ResultCode;
 import com.zzw.zzwgx.dto.request.BindProjectTemplatesRequest;
@@ -9,6 +10,7 @@ import com.zzw.zzwgx.dto.request.UpdateProcessTemplateRequest;
 import com.zzw.zzwgx.dto.response.ProcessTemplateOptionResponse;
 import com.zzw.zzwgx.dto.response.ProcessTemplateResponse;
 import com.zzw.zzwgx.dto.response.TemplateListResponse;
+import com.zzw.zzwgx.dto.response.TemplateRegistryStats;
 import com.zzw.zzwgx.dto.response.TemplateWithProcessesResponse;
 import com.zzw.zzwgx.entity.ProcessTemplate;
 import com.zzw.zzwgx.entity.Template;
@@ -21,6 +23,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -38,6 +41,14 @@ public class ProcessTemplateController {
     private final ProcessTemplateService processTemplateService;
     private final TemplateMapper templateMapper;
     private final TemplateProcessMapper templateProcessMapper;
+    private final TemplateRegistry templateRegistry;
+    
+    @Operation(summary = "获取模板注册表统计", description = "查询模板注册表（内存缓存）的命中数、未命中数、加载次数及当前快照规模（仅系统管理员），用于监控缓存效果。", tags = {"管理员管理-工序模板管理"})
+    @GetMapping("/templates/registry/stats")
+    @PreAuthorize("hasRole('SYSTEM_ADMIN')")
+    public Result<TemplateRegistryStats> getTemplateRegistryStats() {
+        return Result.success(templateRegistry.getStats());
+    }
     
     @Operation(summary = "获取所有模板名称列表", description = "获取系统中所有工序模板的名称列表（去重）。如果传入工点ID，则只返回该工点下的模板名称。", tags = {"管理员管理-工序模板管理"})
     @GetMapping("/process-templates/names")
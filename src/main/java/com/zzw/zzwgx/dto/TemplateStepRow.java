@@ -0,0 +1,33 @@
+package com.zzw.zzwgx.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 模板工序（加载模板注册表的一行结果，模板下没有工序时工序字段为空）
+ */
+@Data
+public class TemplateStepRow {
+
+    private Long templateId;
+
+    private String templateName;
+
+    /** template_process 表主键 */
+    private Long stepId;
+
+    private Long processCatalogId;
+
+    private String processName;
+
+    private Integer controlTime;
+
+    private Integer defaultOrder;
+
+    private String description;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
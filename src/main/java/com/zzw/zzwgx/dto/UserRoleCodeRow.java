@@ -0,0 +1,14 @@
+package com.zzw.zzwgx.dto;
+
+import lombok.Data;
+
+/**
+ * 用户角色编码（批量查询用户角色的一行结果）
+ */
+@Data
+public class UserRoleCodeRow {
+
+    private Long userId;
+
+    private String roleCode;
+}
@@ -0,0 +1,27 @@
+package com.zzw.zzwgx.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 批量导出循环报表请求DTO
+ */
+@Data
+@Schema(description = "批量导出循环报表请求参数")
+public class CycleReportExportJobRequest {
+    
+    @Schema(description = "工点项目ID", requiredMode = Schema.RequiredMode.REQUIRED, example = "126")
+    @NotNull(message = "工点ID不能为空")
+    private Long projectId;
+    
+    @Schema(description = "开始日期（按循环开始时间筛选，包含当天）", requiredMode = Schema.RequiredMode.REQUIRED, example = "2025-12-01")
+    @NotNull(message = "开始日期不能为空")
+    private LocalDate startDate;
+    
+    @Schema(description = "结束日期（按循环开始时间筛选，包含当天）", requiredMode = Schema.RequiredMode.REQUIRED, example = "2025-12-31")
+    @NotNull(message = "结束日期不能为空")
+    private LocalDate endDate;
+}
@@ -0,0 +1,35 @@
+package com.zzw.zzwgx.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 响炮间隔响应DTO
+ */
+@Data
+@Schema(description = "响炮间隔（本循环响炮时间与上一次响炮时间的间隔）")
+public class BlastIntervalResponse {
+    
+    @Schema(description = "循环ID", example = "1")
+    private Long cycleId;
+    
+    @Schema(description = "循环号", example = "12")
+    private Integer cycleNumber;
+    
+    @Schema(description = "响炮时间", example = "2025-06-01 08:30:00")
+    private LocalDateTime blastTime;
+    
+    @Schema(description = "上一次响炮的循环号，区间之前没有响炮记录时为空", example = "11")
+    private Integer previousCycleNumber;
+    
+    @Schema(description = "上一次响炮时间", example = "2025-05-31 20:10:00")
+    private LocalDateTime previousBlastTime;
+    
+    @Schema(description = "响炮间隔（分钟），没有上一次响炮时为空", example = "740")
+    private Long intervalMinutes;
+    
+    @Schema(description = "本循环控制时长标准（分钟）", example = "720")
+    private Integer controlDuration;
+}
@@ -0,0 +1,32 @@
+package com.zzw.zzwgx.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 施工变更事件DTO（SSE推送内容）
+ */
+@Data
+@Schema(description = "施工变更事件，客户端收到后按需刷新对应工点的数据")
+public class ConstructionChangeEvent {
+
+    @Schema(description = "事件类型", example = "PROCESS_COMPLETED")
+    private String type;
+
+    @Schema(description = "工点ID", example = "1")
+    private Long projectId;
+
+    @Schema(description = "循环ID", example = "10")
+    private Long cycleId;
+
+    @Schema(description = "工序ID，循环级事件为空", example = "100")
+    private Long processId;
+
+    @Schema(description = "变更后的工序或循环状态", example = "COMPLETED")
+    private String status;
+
+    @Schema(description = "事件时间", example = "2025-12-24 08:00:00")
+    private LocalDateTime eventTime;
+}
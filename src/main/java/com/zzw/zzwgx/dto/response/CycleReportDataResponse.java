@@ -214,6 +214,11 @@ public class CycleReportDataResponse {
          * 工序所属大类（来自工序字典的 category，如 开挖 等）
          */
         private String category;
+
+        /**
+         * 操作人员（H列，优先真实姓名，其次用户名）
+         */
+        private String operatorName;
     }
     
     @Data
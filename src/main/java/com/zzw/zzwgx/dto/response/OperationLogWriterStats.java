@@ -0,0 +1,30 @@
+package com.zzw.zzwgx.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 工序操作日志写入器统计DTO
+ */
+@Data
+@Schema(description = "工序操作日志异步写入统计")
+public class OperationLogWriterStats {
+    
+    @Schema(description = "当前队列中待写入的日志数", example = "12")
+    private Integer queueDepth;
+    
+    @Schema(description = "队列剩余容量", example = "9988")
+    private Integer remainingCapacity;
+    
+    @Schema(description = "累计入队数", example = "35210")
+    private Long enqueuedCount;
+    
+    @Schema(description = "累计写入数", example = "35198")
+    private Long writtenCount;
+    
+    @Schema(description = "累计因队列满被丢弃的日志数", example = "0")
+    private Long droppedCount;
+    
+    @Schema(description = "累计写入失败的日志数", example = "0")
+    private Long failedCount;
+}
@@ -0,0 +1,38 @@
+package com.zzw.zzwgx.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 报表导出任务响应DTO
+ */
+@Data
+@Schema(description = "报表导出任务状态")
+public class ReportExportJobResponse {
+    
+    @Schema(description = "任务ID", example = "6f1c2a0e9b8d4c7f")
+    private String jobId;
+    
+    @Schema(description = "任务状态：PENDING-排队中，RUNNING-导出中，COMPLETED-已完成，FAILED-失败", example = "RUNNING")
+    private String status;
+    
+    @Schema(description = "导出文件名", example = "一号隧道-进口工点-循环报表-20251201-20251231.zip")
+    private String fileName;
+    
+    @Schema(description = "需要导出的循环数量", example = "31")
+    private Integer totalCount;
+    
+    @Schema(description = "已导出的循环数量", example = "12")
+    private Integer finishedCount;
+    
+    @Schema(description = "失败原因", example = "导出循环报表失败")
+    private String errorMessage;
+    
+    @Schema(description = "提交时间", example = "2025-12-31T18:00:00")
+    private LocalDateTime createTime;
+    
+    @Schema(description = "完成时间", example = "2025-12-31T18:00:30")
+    private LocalDateTime finishTime;
+}
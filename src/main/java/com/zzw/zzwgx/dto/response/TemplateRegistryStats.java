@@ -0,0 +1,32 @@
+package com.zzw.zzwgx.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 模板注册表统计DTO
+ */
+@Data
+@Schema(description = "模板注册表缓存统计")
+public class TemplateRegistryStats {
+
+    @Schema(description = "累计命中次数（直接使用内存快照）", example = "5210")
+    private Long hitCount;
+
+    @Schema(description = "累计未命中次数（需要从数据库加载快照）", example = "6")
+    private Long missCount;
+
+    @Schema(description = "累计加载次数", example = "6")
+    private Long loadCount;
+
+    @Schema(description = "当前快照中的模板数，未加载时为0", example = "8")
+    private Integer templateCount;
+
+    @Schema(description = "当前快照中的模板工序数，未加载时为0", example = "96")
+    private Integer stepCount;
+
+    @Schema(description = "当前快照加载时间，未加载时为空", example = "2025-12-24 08:00:00")
+    private LocalDateTime loadedTime;
+}
@@ -38,6 +38,9 @@ public class WorkerProcessListResponse {
 
     @Schema(description = "工序实际结束时间", example = "2025-11-05T10:00:00")
     private LocalDateTime actualEndTime;
+
+    @Schema(description = "工序创建时间（游标分页的排序字段）", example = "2025-11-05T07:30:00")
+    private LocalDateTime createTime;
 }
 
 
@@ -0,0 +1,27 @@
+package com.zzw.zzwgx.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 施工人员工序列表游标分页响应DTO
+ */
+@Data
+@Schema(description = "施工人员工序列表（游标分页）")
+public class WorkerProcessScrollResponse {
+
+    @Schema(description = "本次返回的工序列表，按创建时间倒序")
+    private List<WorkerProcessListResponse> records;
+
+    @Schema(description = "是否还有更多数据", example = "true")
+    private Boolean hasMore;
+
+    @Schema(description = "下一页游标：最后一条的创建时间，请求下一页时原样传回", example = "2025-11-05 07:30:00")
+    private LocalDateTime nextCursorTime;
+
+    @Schema(description = "下一页游标：最后一条的工序ID，请求下一页时原样传回", example = "1001")
+    private Long nextCursorId;
+}
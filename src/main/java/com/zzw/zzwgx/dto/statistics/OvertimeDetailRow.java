@@ -0,0 +1,38 @@
+package com.zzw.zzwgx.dto.statistics;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 超耗工序明细（工序关联循环、操作员的一次性查询结果）
+ */
+@Data
+public class OvertimeDetailRow {
+    
+    private Long projectId;
+    
+    private Long processId;
+    
+    private String processName;
+    
+    private Integer cycleNumber;
+    
+    private Integer controlTime;
+    
+    /**
+     * 实际用时（分钟）
+     */
+    private Integer actualTime;
+    
+    private String overtimeReason;
+    
+    private LocalDateTime actualStartTime;
+    
+    private LocalDateTime actualEndTime;
+    
+    /**
+     * 操作员姓名
+     */
+    private String operatorName;
+}
@@ -0,0 +1,27 @@
+package com.zzw.zzwgx.dto.statistics;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 工点进尺聚合统计（按工点分组的SQL聚合结果）
+ */
+@Data
+public class SiteAdvanceStat {
+    
+    /**
+     * 工点ID
+     */
+    private Long projectId;
+    
+    /**
+     * 循环数量
+     */
+    private Integer cycleCount;
+    
+    /**
+     * 进尺长度总和（米）
+     */
+    private BigDecimal advanceLength;
+}
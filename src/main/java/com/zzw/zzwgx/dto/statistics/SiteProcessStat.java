@@ -0,0 +1,46 @@
+package com.zzw.zzwgx.dto.statistics;
+
+import lombok.Data;
+
+/**
+ * 工点工序聚合统计（按工点分组的SQL聚合结果）
+ * 只统计已完成工序，时长单位均为分钟
+ */
+@Data
+public class SiteProcessStat {
+    
+    /**
+     * 工点ID
+     */
+    private Long projectId;
+    
+    /**
+     * 已完成工序数量（不区分是否填写了实际时间）
+     */
+    private Integer completedCount;
+    
+    /**
+     * 已完成工序的控制时间总和
+     */
+    private Long controlMinutes;
+    
+    /**
+     * 实际开始、结束时间齐全的工序实际用时总和
+     */
+    private Long actualMinutes;
+    
+    /**
+     * 实际时间齐全且有控制时间的工序数量
+     */
+    private Integer timedCount;
+    
+    /**
+     * 超耗时间总和（实际用时大于控制时间的部分）
+     */
+    private Long overtimeMinutes;
+    
+    /**
+     * 节约时间总和（控制时间减实际用时，不超时的工序）
+     */
+    private Long savedMinutes;
+}
@@ -64,6 +64,13 @@ public class Cycle {
     /** 围岩等级 */
     private String rockLevel;
     
+    /**
+     * 响炮时间（装药爆破工序的结束时间，优先实际结束时间，其次预计结束时间）
+     * 由工序变更时的 CycleMapper.refreshBlastTime 维护，实体更新时不写入，避免旧值覆盖
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private LocalDateTime blastTime;
+    
     /**
      * 是否为时间补填的循环：0-否（正常循环），1-是（补填循环）
      */
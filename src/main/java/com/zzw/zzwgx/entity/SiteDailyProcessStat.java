@@ -0,0 +1,49 @@
+package com.zzw.zzwgx.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 工点每日工序统计汇总（按循环开始日期归集已完成工序）
+ * 由工序完成、补填时间等操作增量维护，统计接口直接汇总此表
+ */
+@Data
+@TableName("site_daily_process_stat")
+public class SiteDailyProcessStat {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 工点ID */
+    private Long projectId;
+
+    /** 统计日期（循环开始日期） */
+    private LocalDate statDate;
+
+    /** 已完成工序数量 */
+    private Integer completedCount;
+
+    /** 控制时间总和（分钟） */
+    private Long controlMinutes;
+
+    /** 实际用时总和（分钟） */
+    private Long actualMinutes;
+
+    /** 实际时间齐全且有控制时间的工序数量 */
+    private Integer timedCount;
+
+    /** 超耗时间总和（分钟） */
+    private Long overtimeMinutes;
+
+    /** 节约时间总和（分钟） */
+    private Long savedMinutes;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
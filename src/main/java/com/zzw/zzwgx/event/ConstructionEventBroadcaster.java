@@ -0,0 +1,416 @@
+package com.zzw.zzwgx.event;
+
+import cn.hutool.cache.Cache;
+import cn.hutool.cache.CacheUtil;
+import com.zzw.zzwgx.common.enums.ConstructionEventType;
+import com.zzw.zzwgx.common.exception.BusinessException;
+import com.zzw.zzwgx.dto.response.ConstructionChangeEvent;
+import com.zzw.zzwgx.entity.Cycle;
+import com.zzw.zzwgx.entity.Process;
+import com.zzw.zzwgx.mapper.CycleMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 施工变更事件推送（SSE）
+ * 工序、循环变更在事务提交后发布，按订阅者关注的工点分发到各自的有界缓冲区；
+ * 缓冲区满时丢弃最旧的事件，由发送线程异步写出，慢客户端不会阻塞业务线程。
+ * 单次发送超过 send-timeout-ms 的订阅者视为停滞并移除，同时临时补充一个发送线程，
+ * 不再读取但不断开连接的客户端不会占满共享的发送线程。
+ * 定时发送心跳，保持连接并及时清理已断开的订阅者。
+ */
+@Slf4j
+@Component
+public class ConstructionEventBroadcaster {
+
+    private final CycleMapper cycleMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMillis;
+    private final long sendTimeoutMillis;
+    private final int senderThreads;
+    private final ThreadPoolExecutor sender;
+    /** 被停滞发送占住的线程数，这些线程在容器写超时后才会释放 */
+    private final AtomicInteger stalledSenders = new AtomicInteger();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventSequence = new AtomicLong();
+    /** 循环所属工点不会变化，缓存起来避免每个工序事件都查循环 */
+    private final Cache<Long, Long> cycleProjectCache = CacheUtil.newLRUCache(10000);
+
+    public ConstructionEventBroadcaster(CycleMapper cycleMapper,
+                                        @Value("${construction.events.buffer-size:100}") int bufferSize,
+                                        @Value("${construction.events.max-subscribers:200}") int maxSubscribers,
+                                        @Value("${construction.events.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                                        @Value("${construction.events.sender-threads:2}") int senderThreads,
+                                        @Value("${construction.events.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.cycleMapper = cycleMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.senderThreads = senderThreads;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 每个订阅者同一时间最多只有一个待执行的发送任务，队列长度不会超过订阅者数量
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "construction-event-sender-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 订阅施工变更事件
+     *
+     * @param userId 订阅用户ID
+     * @param siteIds 关注的工点ID，null表示全部工点
+     */
+    public SseEmitter subscribe(Long userId, Collection<Long> siteIds) {
+        if (subscribers.size() >= maxSubscribers) {
+            log.warn("施工事件订阅数已达上限，拒绝订阅，用户ID: {}, 当前订阅数: {}", userId, subscribers.size());
+            throw new BusinessException("当前订阅连接较多，请稍后再试");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter, siteIds == null ? null : new HashSet<>(siteIds));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // 立即发送一次心跳，客户端据此确认连接已建立
+        subscriber.requestHeartbeat();
+        log.info("新增施工事件订阅，用户ID: {}, 工点数: {}, 当前订阅数: {}",
+                userId, siteIds == null ? "全部" : siteIds.size(), subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * 发布工序变更事件
+     */
+    public void publishProcessChange(ConstructionEventType type, Process process) {
+        if (process == null) {
+            return;
+        }
+        ConstructionChangeEvent event = newEvent(type);
+        event.setProjectId(resolveProjectId(process.getCycleId()));
+        event.setCycleId(process.getCycleId());
+        event.setProcessId(process.getId());
+        event.setStatus(process.getProcessStatus());
+        publish(event);
+    }
+
+    /**
+     * 发布循环级工序变更事件（如工序顺序调整），不针对单个工序
+     */
+    public void publishCycleProcessesChange(ConstructionEventType type, Long cycleId) {
+        ConstructionChangeEvent event = newEvent(type);
+        event.setProjectId(resolveProjectId(cycleId));
+        event.setCycleId(cycleId);
+        publish(event);
+    }
+
+    /**
+     * 发布循环变更事件
+     */
+    public void publishCycleChange(ConstructionEventType type, Cycle cycle) {
+        if (cycle == null) {
+            return;
+        }
+        if (cycle.getId() != null && cycle.getProjectId() != null) {
+            cycleProjectCache.put(cycle.getId(), cycle.getProjectId());
+        }
+        ConstructionChangeEvent event = newEvent(type);
+        event.setProjectId(cycle.getProjectId());
+        event.setCycleId(cycle.getId());
+        event.setStatus(cycle.getStatus());
+        publish(event);
+    }
+
+    /**
+     * 在事务中调用时，事务提交后才分发（回滚则丢弃），否则立即分发
+     */
+    private void publish(ConstructionChangeEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+            return;
+        }
+        dispatch(event);
+    }
+
+    private void dispatch(ConstructionChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(event.getProjectId())) {
+                    subscriber.offer(event);
+                }
+            }
+        } catch (Exception e) {
+            // 推送失败不能影响已提交的业务
+            log.warn("分发施工变更事件失败，事件类型: {}, 循环ID: {}, error: {}", event.getType(), event.getCycleId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 事件创建时（事务提交前）解析循环所属工点，提交后的分发不再访问数据库；没有订阅者时不查询
+     */
+    private Long resolveProjectId(Long cycleId) {
+        if (cycleId == null || subscribers.isEmpty()) {
+            return null;
+        }
+        Long projectId = cycleProjectCache.get(cycleId, false);
+        if (projectId == null) {
+            try {
+                Cycle cycle = cycleMapper.selectById(cycleId);
+                if (cycle != null && cycle.getProjectId() != null) {
+                    projectId = cycle.getProjectId();
+                    cycleProjectCache.put(cycleId, projectId);
+                }
+            } catch (Exception e) {
+                // 推送失败不能影响业务，事件仍推送给关注全部工点的订阅者
+                log.warn("解析施工事件所属工点失败，循环ID: {}, error: {}", cycleId, e.getMessage());
+            }
+        }
+        return projectId;
+    }
+
+    private ConstructionChangeEvent newEvent(ConstructionEventType type) {
+        ConstructionChangeEvent event = new ConstructionChangeEvent();
+        event.setType(type.getCode());
+        event.setEventTime(LocalDateTime.now());
+        return event;
+    }
+
+    /**
+     * 定时向所有订阅者发送心跳
+     */
+    @Scheduled(fixedDelayString = "${construction.events.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        subscribers.forEach(Subscriber::requestHeartbeat);
+    }
+
+    /**
+     * 定时检查发送超时的订阅者
+     * 不在此处关闭连接：SseEmitter 的发送与关闭互斥，关闭会和发送一样阻塞；连接由发送线程返回后关闭
+     */
+    @Scheduled(fixedDelayString = "${construction.events.send-check-ms:1000}")
+    public void removeStalledSubscribers() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.markStalledIfSendExceeds(now)) {
+                subscribers.remove(subscriber);
+                resizeSender(stalledSenders.incrementAndGet());
+                log.warn("施工事件订阅者发送超时，移除订阅者，用户ID: {}, 超时阈值: {}ms, 停滞发送线程数: {}",
+                        subscriber.userId, sendTimeoutMillis, stalledSenders.get());
+            }
+        }
+    }
+
+    /**
+     * 按停滞线程数调整发送线程池，保证可用线程数不少于 sender-threads
+     */
+    private synchronized void resizeSender(int stalled) {
+        int size = senderThreads + Math.min(Math.max(stalled, 0), maxSubscribers);
+        if (size > sender.getMaximumPoolSize()) {
+            sender.setMaximumPoolSize(size);
+            sender.setCorePoolSize(size);
+        } else {
+            sender.setCorePoolSize(size);
+            sender.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * 当前订阅数
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.complete();
+            } catch (Exception ignored) {
+                // 连接可能已断开
+            }
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * 订阅者：有界缓冲区 + 单飞发送任务
+     */
+    private class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Set<Long> siteIds;
+        private final Deque<ConstructionChangeEvent> buffer = new ArrayDeque<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private volatile boolean heartbeatPending;
+        private long droppedCount;
+        /** 进行中的发送开始时间，0表示当前没有发送 */
+        private volatile long sendStartedAt;
+        private boolean stalled;
+        private boolean stalledSenderReleased;
+
+        Subscriber(Long userId, SseEmitter emitter, Set<Long> siteIds) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.siteIds = siteIds;
+        }
+
+        boolean accepts(Long projectId) {
+            return siteIds == null || (projectId != null && siteIds.contains(projectId));
+        }
+
+        void offer(ConstructionChangeEvent event) {
+            synchronized (buffer) {
+                if (buffer.size() >= bufferSize) {
+                    // 缓冲区满，丢弃最旧的事件；客户端收到后续事件时会重新拉取最新数据
+                    buffer.pollFirst();
+                    droppedCount++;
+                    if (droppedCount == 1 || droppedCount % 100 == 0) {
+                        log.warn("施工事件订阅者消费过慢，丢弃最旧事件，用户ID: {}, 累计丢弃: {}", userId, droppedCount);
+                    }
+                }
+                buffer.addLast(event);
+            }
+            scheduleFlush();
+        }
+
+        void requestHeartbeat() {
+            heartbeatPending = true;
+            scheduleFlush();
+        }
+
+        private void scheduleFlush() {
+            if (!flushScheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中
+                flushScheduled.set(false);
+            }
+        }
+
+        private void flush() {
+            try {
+                List<ConstructionChangeEvent> events = new ArrayList<>();
+                synchronized (buffer) {
+                    events.addAll(buffer);
+                    buffer.clear();
+                }
+                for (ConstructionChangeEvent event : events) {
+                    send(SseEmitter.event()
+                            .id(String.valueOf(eventSequence.incrementAndGet()))
+                            .name(event.getType())
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                if (heartbeatPending) {
+                    heartbeatPending = false;
+                    send(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (Exception e) {
+                // 客户端已断开或发送超时
+                log.debug("施工事件推送失败，移除订阅者，用户ID: {}, error: {}", userId, e.getMessage());
+                subscribers.remove(this);
+                try {
+                    emitter.complete();
+                } catch (Exception ignored) {
+                    // 连接已不可用
+                }
+                return;
+            } finally {
+                flushScheduled.set(false);
+                releaseStalledSender();
+            }
+            boolean hasMore;
+            synchronized (buffer) {
+                hasMore = !buffer.isEmpty();
+            }
+            if (hasMore || heartbeatPending) {
+                scheduleFlush();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                if (stalled) {
+                    throw new IOException("发送超时，订阅者已移除");
+                }
+            }
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                emitter.send(event);
+            } finally {
+                synchronized (this) {
+                    sendStartedAt = 0;
+                }
+            }
+        }
+
+        /**
+         * 进行中的发送超过阈值时标记为停滞，返回是否为本次新标记
+         * 与发送结束时清零开始时间互斥：标记成功说明发送线程尚未结束本次发送，之后一定会执行 {@link #releaseStalledSender()}
+         */
+        synchronized boolean markStalledIfSendExceeds(long now) {
+            long startedAt = sendStartedAt;
+            if (stalled || startedAt == 0 || now - startedAt < sendTimeoutMillis) {
+                return false;
+            }
+            stalled = true;
+            return true;
+        }
+
+        /**
+         * 停滞的发送返回后，撤回为它补充的发送线程
+         */
+        private void releaseStalledSender() {
+            synchronized (this) {
+                if (!stalled || stalledSenderReleased) {
+                    return;
+                }
+                stalledSenderReleased = true;
+            }
+            resizeSender(stalledSenders.decrementAndGet());
+        }
+    }
+}
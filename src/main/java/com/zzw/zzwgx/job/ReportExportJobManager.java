@@ -0,0 +1,208 @@
+package com.zzw.zzwgx.job;
+
+import cn.hutool.core.util.IdUtil;
+import com.zzw.zzwgx.common.enums.ResultCode;
+import com.zzw.zzwgx.common.exception.BusinessException;
+import com.zzw.zzwgx.dto.response.ReportExportJobResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 报表导出后台任务管理
+ * 导出任务在有界线程池中执行，结果写入临时文件，供轮询状态后下载；任务结果保留一段时间后自动清理。
+ */
+@Slf4j
+@Component
+public class ReportExportJobManager {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ReportExportJobManager(@Value("${report.export-job.pool-size:2}") int poolSize,
+                                  @Value("${report.export-job.queue-capacity:20}") int queueCapacity,
+                                  @Value("${report.export-job.retention-minutes:60}") long retentionMinutes) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-export-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    /**
+     * 导出任务内容，写入ZIP输出流
+     */
+    @FunctionalInterface
+    public interface ExportTask {
+        void write(ExportJob job, OutputStream out) throws IOException;
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param ownerId 提交人ID，仅提交人可查询和下载
+     * @param fileName 下载文件名
+     * @param totalCount 需要导出的条目数
+     * @param task 导出内容
+     */
+    public ReportExportJobResponse submit(Long ownerId, String fileName, int totalCount, ExportTask task) {
+        ExportJob job = new ExportJob(IdUtil.fastSimpleUUID(), ownerId, fileName, totalCount);
+        jobs.put(job.jobId, job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            log.warn("报表导出任务队列已满，拒绝任务，提交人ID: {}, 文件名: {}", ownerId, fileName);
+            throw new BusinessException("导出任务较多，请稍后再试");
+        }
+        log.info("提交报表导出任务，任务ID: {}, 提交人ID: {}, 文件名: {}, 条目数: {}", job.jobId, ownerId, fileName, totalCount);
+        return job.toResponse();
+    }
+
+    /**
+     * 获取任务，不存在、已过期或非提交人时抛出业务异常
+     */
+    public ExportJob getJob(String jobId, Long ownerId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new BusinessException("导出任务不存在或已过期");
+        }
+        if (!Objects.equals(job.ownerId, ownerId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN);
+        }
+        return job;
+    }
+
+    private void run(ExportJob job, ExportTask task) {
+        job.status = STATUS_RUNNING;
+        File file = null;
+        try {
+            file = File.createTempFile("report_export_", ".zip");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+                task.write(job, out);
+            }
+            job.file = file;
+            job.status = STATUS_COMPLETED;
+            log.info("报表导出任务完成，任务ID: {}, 条目数: {}, 文件大小: {} 字节", job.jobId, job.finishedCount.get(), file.length());
+        } catch (Exception e) {
+            log.error("报表导出任务失败，任务ID: {}", job.jobId, e);
+            job.errorMessage = e instanceof BusinessException ? e.getMessage() : "导出报表失败";
+            job.status = STATUS_FAILED;
+            deleteQuietly(file);
+        } finally {
+            job.finishTime = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * 定时清理过期任务及其文件
+     */
+    @Scheduled(fixedDelayString = "${report.export-job.cleanup-interval-ms:600000}")
+    public void cleanupExpiredJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            if (job.finishTime != null && job.finishTime.isBefore(expireBefore)) {
+                deleteQuietly(job.file);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(job -> deleteQuietly(job.file));
+        jobs.clear();
+    }
+
+    private void deleteQuietly(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            log.warn("删除导出临时文件失败: {}", file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 导出任务状态
+     */
+    public static class ExportJob {
+
+        private final String jobId;
+        private final Long ownerId;
+        private final String fileName;
+        private final int totalCount;
+        private final AtomicInteger finishedCount = new AtomicInteger();
+        private final LocalDateTime createTime = LocalDateTime.now();
+        private volatile String status = STATUS_PENDING;
+        private volatile String errorMessage;
+        private volatile LocalDateTime finishTime;
+        private volatile File file;
+
+        ExportJob(String jobId, Long ownerId, String fileName, int totalCount) {
+            this.jobId = jobId;
+            this.ownerId = ownerId;
+            this.fileName = fileName;
+            this.totalCount = totalCount;
+        }
+
+        /**
+         * 记录一个条目导出完成
+         */
+        public void markFinished() {
+            finishedCount.incrementAndGet();
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * 已完成任务的结果文件，未完成返回null
+         */
+        public File getFile() {
+            return STATUS_COMPLETED.equals(status) ? file : null;
+        }
+
+        public ReportExportJobResponse toResponse() {
+            ReportExportJobResponse response = new ReportExportJobResponse();
+            response.setJobId(jobId);
+            response.setStatus(status);
+            response.setFileName(fileName);
+            response.setTotalCount(totalCount);
+            response.setFinishedCount(finishedCount.get());
+            response.setErrorMessage(errorMessage);
+            response.setCreateTime(createTime);
+            response.setFinishTime(finishTime);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.zzw.zzwgx.job;
+
+import com.zzw.zzwgx.service.SiteDailyProcessStatService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 工点每日工序统计重建任务
+ * 每天凌晨按最近若干天重建统计行，修正循环日期调整、工序删除等未触发增量刷新的变更
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SiteDailyProcessStatRebuildJob {
+
+    private final SiteDailyProcessStatService siteDailyProcessStatService;
+
+    @Value("${statistics.daily-stat.rebuild-days:7}")
+    private int rebuildDays;
+
+    @Scheduled(cron = "${statistics.daily-stat.rebuild-cron:0 30 2 * * ?}")
+    public void rebuildRecentDays() {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(Math.max(rebuildDays, 1) - 1L);
+        try {
+            siteDailyProcessStatService.rebuild(startDate, endDate);
+        } catch (Exception e) {
+            log.error("定时重建工点每日统计失败，开始日期: {}, 结束日期: {}", startDate, endDate, e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.zzw.zzwgx.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zzw.zzwgx.dto.statistics.SiteAdvanceStat;
 import com.zzw.zzwgx.entity.Cycle;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
@@ -8,6 +9,10 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 循环Mapper接口
  */
@@ -51,11 +56,176 @@ public interface CycleMapper extends BaseMapper<Cycle> {
     @Update("UPDATE cycle SET cycle_number = #{newCycleNumber}, update_time = NOW() WHERE id = #{id}")
     int updateDeletedCycleNumber(@Param("id") Long id, @Param("newCycleNumber") Integer newCycleNumber);
     
+    /**
+     * 批量平移循环号第一步：将 [fromNumber, toNumber] 内的循环号加上 delta 后取负，movedId 指定的循环直接取 -movedTo
+     * 负数不会与任何正常循环号冲突，再由 {@link #restoreNegatedCycleNumbers(Long)} 翻转为正数，
+     * 两条语句完成任意数量循环的重排，且全程满足 uk_project_cycle_number 唯一约束
+     * 逻辑删除的记录也一起平移（停放在 999000 及以上的除外），避免与平移后的循环号冲突
+     *
+     * @param toNumber 区间上界，为空表示不限
+     * @param movedId 同时移动到 movedTo 的循环ID，可为空
+     */
+    @Update("""
+        <script>
+        UPDATE cycle
+        SET cycle_number =
+            <choose>
+                <when test="movedId != null">CASE WHEN id = #{movedId} THEN -#{movedTo} ELSE -(cycle_number + #{delta}) END</when>
+                <otherwise>-(cycle_number + #{delta})</otherwise>
+            </choose>,
+            update_time = NOW()
+        WHERE project_id = #{projectId}
+          AND cycle_number &gt; 0
+          AND cycle_number &lt; 999000
+          AND (
+              (cycle_number &gt;= #{fromNumber}
+              <if test="toNumber != null">AND cycle_number &lt;= #{toNumber}</if>)
+              <if test="movedId != null">OR id = #{movedId}</if>
+          )
+        </script>
+        """)
+    int negateShiftedCycleNumbers(@Param("projectId") Long projectId,
+                                  @Param("fromNumber") Integer fromNumber,
+                                  @Param("toNumber") Integer toNumber,
+                                  @Param("delta") int delta,
+                                  @Param("movedId") Long movedId,
+                                  @Param("movedTo") Integer movedTo);
+
+    /**
+     * 批量平移循环号第二步：将第一步取负的循环号翻转为正数
+     */
+    @Update("UPDATE cycle SET cycle_number = -cycle_number, update_time = NOW() WHERE project_id = #{projectId} AND cycle_number < 0")
+    int restoreNegatedCycleNumbers(@Param("projectId") Long projectId);
+
     /**
      * 查询项目下所有循环（包括 deleted=1）的最大 cycleNumber
      * 用于为 deleted=1 的记录分配唯一的 cycleNumber
      */
     @Select("SELECT MAX(cycle_number) FROM cycle WHERE project_id = #{projectId}")
     Integer getMaxCycleNumberIncludeDeleted(@Param("projectId") Long projectId);
-}
 
+    /**
+     * 查询项目下第一个开始时间晚于指定时间的循环的循环号（按开始时间、循环号排序），走 (project_id, start_date) 索引定位
+     *
+     * @param excludeCycleId 要排除的循环ID，可为空
+     */
+    @Select("""
+        <script>
+        SELECT cycle_number
+        FROM cycle
+        WHERE project_id = #{projectId}
+          AND deleted = 0
+          AND start_date &gt; #{startDate}
+          <if test="excludeCycleId != null">AND id &lt;&gt; #{excludeCycleId}</if>
+        ORDER BY start_date, cycle_number
+        LIMIT 1
+        </script>
+        """)
+    Integer selectFirstCycleNumberStartingAfter(@Param("projectId") Long projectId,
+                                                @Param("startDate") LocalDateTime startDate,
+                                                @Param("excludeCycleId") Long excludeCycleId);
+
+    /**
+     * 查询项目下未删除循环的最大循环号，没有循环时返回null
+     *
+     * @param excludeCycleId 要排除的循环ID，可为空
+     */
+    @Select("""
+        <script>
+        SELECT MAX(cycle_number)
+        FROM cycle
+        WHERE project_id = #{projectId}
+          AND deleted = 0
+          <if test="excludeCycleId != null">AND id &lt;&gt; #{excludeCycleId}</if>
+        </script>
+        """)
+    Integer selectMaxCycleNumber(@Param("projectId") Long projectId, @Param("excludeCycleId") Long excludeCycleId);
+
+    /**
+     * 根据循环下"装药爆破"工序的时间刷新循环的响炮时间（优先实际结束时间，其次预计结束时间，没有则置空）
+     */
+    @Update("""
+        UPDATE cycle
+        SET blast_time = (
+            SELECT COALESCE(p.actual_end_time, p.estimated_end_time)
+            FROM process p
+            WHERE p.cycle_id = #{cycleId}
+              AND p.deleted = 0
+              AND p.process_name = '装药爆破'
+              AND COALESCE(p.actual_end_time, p.estimated_end_time) IS NOT NULL
+            ORDER BY p.start_order
+            LIMIT 1
+        )
+        WHERE id = #{cycleId}
+        """)
+    int refreshBlastTime(@Param("cycleId") Long cycleId);
+
+    /**
+     * 查询工点在 [startTime, endTime] 内响炮的循环，以及该区间之前最近一次响炮的循环（用于计算第一个间隔）
+     * 两段均走 (project_id, blast_time) 索引，按响炮时间升序返回，仅填充 id、cycleNumber、controlDuration、blastTime
+     */
+    @Select("""
+        SELECT id, cycle_number, control_duration, blast_time
+        FROM (
+            (SELECT id, cycle_number, control_duration, blast_time
+             FROM cycle
+             WHERE project_id = #{projectId}
+               AND deleted = 0
+               AND blast_time < #{startTime}
+             ORDER BY blast_time DESC
+             LIMIT 1)
+            UNION ALL
+            (SELECT id, cycle_number, control_duration, blast_time
+             FROM cycle
+             WHERE project_id = #{projectId}
+               AND deleted = 0
+               AND blast_time BETWEEN #{startTime} AND #{endTime})
+        ) t
+        ORDER BY blast_time, cycle_number
+        """)
+    List<Cycle> selectBlastTimeline(@Param("projectId") Long projectId,
+                                    @Param("startTime") LocalDateTime startTime,
+                                    @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按工点聚合循环数量和进尺长度
+     * 循环按开始时间落在 [startTime, endTime] 内筛选，一次查询覆盖所有工点
+     */
+    @Select("""
+        <script>
+        SELECT project_id AS projectId,
+               COUNT(*) AS cycleCount,
+               COALESCE(SUM(advance_length), 0) AS advanceLength
+        FROM cycle
+        WHERE deleted = 0
+          AND start_date BETWEEN #{startTime} AND #{endTime}
+          AND project_id IN
+          <foreach collection="projectIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+        GROUP BY project_id
+        </script>
+        """)
+    List<SiteAdvanceStat> selectSiteAdvanceStats(@Param("projectIds") Collection<Long> projectIds,
+                                                 @Param("startTime") LocalDateTime startTime,
+                                                 @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 批量查询多个项目各自的最新循环（循环号最大的一条），一次查询完成
+     * 子查询按 project_id 分组取 MAX(cycle_number)，可走 uk_project_cycle_number 索引
+     */
+    @Select("""
+        <script>
+        SELECT c.*, c.cycle_status AS status
+        FROM cycle c
+        JOIN (
+            SELECT project_id, MAX(cycle_number) AS max_cycle_number
+            FROM cycle
+            WHERE deleted = 0
+              AND project_id IN
+              <foreach collection="projectIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            GROUP BY project_id
+        ) latest ON latest.project_id = c.project_id AND latest.max_cycle_number = c.cycle_number
+        WHERE c.deleted = 0
+        </script>
+        """)
+    List<Cycle> selectLatestByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+}
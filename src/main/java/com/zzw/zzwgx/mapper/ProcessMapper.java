@@ -1,13 +1,193 @@
 package com.zzw.zzwgx.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zzw.zzwgx.dto.response.OvertimeProcessResponse;
+import com.zzw.zzwgx.dto.response.WorkerProcessListResponse;
+import com.zzw.zzwgx.dto.statistics.OvertimeDetailRow;
 import com.zzw.zzwgx.entity.Process;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 工序Mapper接口
  */
 @Mapper
 public interface ProcessMapper extends BaseMapper<Process> {
-}
 
+    /**
+     * 查询超耗工序明细，同时关联循环号和操作员姓名
+     * 按循环、工序顺序排列，与逐个循环遍历的结果顺序一致
+     */
+    @Select("""
+        <script>
+        SELECT c.project_id AS projectId,
+               p.id AS processId,
+               p.process_name AS processName,
+               c.cycle_number AS cycleNumber,
+               p.control_time AS controlTime,
+               TIMESTAMPDIFF(MINUTE, p.actual_start_time, p.actual_end_time) AS actualTime,
+               p.overtime_reason AS overtimeReason,
+               p.actual_start_time AS actualStartTime,
+               p.actual_end_time AS actualEndTime,
+               u.real_name AS operatorName
+        FROM process p
+        JOIN cycle c ON c.id = p.cycle_id AND c.deleted = 0
+        LEFT JOIN sys_user u ON u.id = p.operator_id AND u.deleted = 0
+        WHERE p.deleted = 0
+          AND p.process_status = 'COMPLETED'
+          AND p.actual_start_time IS NOT NULL
+          AND p.actual_end_time IS NOT NULL
+          AND p.control_time IS NOT NULL
+          AND TIMESTAMPDIFF(MINUTE, p.actual_start_time, p.actual_end_time) &gt; p.control_time
+          AND c.start_date BETWEEN #{startTime} AND #{endTime}
+          AND c.project_id IN
+          <foreach collection="projectIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+        ORDER BY c.project_id, c.id, p.start_order, p.id
+        </script>
+        """)
+    List<OvertimeDetailRow> selectOvertimeDetails(@Param("projectIds") Collection<Long> projectIds,
+                                                  @Param("startTime") LocalDateTime startTime,
+                                                  @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 分页查询施工人员的工序列表，关联循环号和工点名称，工点名称过滤在SQL中完成
+     * 按创建时间倒序排列
+     */
+    @Select("""
+        <script>
+        SELECT p.id AS processId,
+               pr.project_name AS projectName,
+               p.process_name AS processName,
+               p.process_status AS status,
+               c.cycle_number AS cycleNumber,
+               p.control_time AS taskTimeMinutes,
+               p.actual_start_time AS actualStartTime,
+               p.actual_end_time AS actualEndTime,
+               p.create_time AS createTime
+        FROM process p
+        JOIN cycle c ON c.id = p.cycle_id AND c.deleted = 0
+        LEFT JOIN project pr ON pr.id = c.project_id AND pr.deleted = 0
+        WHERE p.deleted = 0
+          AND p.operator_id = #{workerId}
+          <if test="status != null and status != ''">AND p.process_status = #{status}</if>
+          <if test="projectName != null and projectName != ''">AND pr.project_name LIKE CONCAT('%', #{projectName}, '%')</if>
+        ORDER BY p.create_time DESC, p.id DESC
+        </script>
+        """)
+    Page<WorkerProcessListResponse> selectWorkerProcessPage(Page<WorkerProcessListResponse> page,
+                                                            @Param("workerId") Long workerId,
+                                                            @Param("projectName") String projectName,
+                                                            @Param("status") String status);
+
+    /**
+     * 游标方式查询施工人员的工序列表（按 create_time、id 倒序），返回游标之后的最多 limit 条
+     * 游标为空时从最新一条开始
+     */
+    @Select("""
+        <script>
+        SELECT p.id AS processId,
+               pr.project_name AS projectName,
+               p.process_name AS processName,
+               p.process_status AS status,
+               c.cycle_number AS cycleNumber,
+               p.control_time AS taskTimeMinutes,
+               p.actual_start_time AS actualStartTime,
+               p.actual_end_time AS actualEndTime,
+               p.create_time AS createTime
+        FROM process p
+        JOIN cycle c ON c.id = p.cycle_id AND c.deleted = 0
+        LEFT JOIN project pr ON pr.id = c.project_id AND pr.deleted = 0
+        WHERE p.deleted = 0
+          AND p.operator_id = #{workerId}
+          <if test="status != null and status != ''">AND p.process_status = #{status}</if>
+          <if test="projectName != null and projectName != ''">AND pr.project_name LIKE CONCAT('%', #{projectName}, '%')</if>
+          <if test="cursorTime != null and cursorId != null">
+            AND (p.create_time &lt; #{cursorTime} OR (p.create_time = #{cursorTime} AND p.id &lt; #{cursorId}))
+          </if>
+        ORDER BY p.create_time DESC, p.id DESC
+        LIMIT #{limit}
+        </script>
+        """)
+    List<WorkerProcessListResponse> selectWorkerProcessesAfter(@Param("workerId") Long workerId,
+                                                               @Param("projectName") String projectName,
+                                                               @Param("status") String status,
+                                                               @Param("cursorTime") LocalDateTime cursorTime,
+                                                               @Param("cursorId") Long cursorId,
+                                                               @Param("limit") int limit);
+
+    /**
+     * 分页查询超时未填报原因的工序（所属循环未完成），按实际结束时间倒序
+     * overtime_reason_pending 为生成列，由索引 idx_overtime_reason_pending 直接定位待填报工序
+     */
+    @Select("""
+        <script>
+        SELECT p.id AS processId,
+               p.process_name AS processName,
+               pr.project_name AS projectName,
+               c.cycle_number AS cycleNumber,
+               u.real_name AS operatorName,
+               p.control_time AS controlTime,
+               p.actual_start_time AS actualStartTime,
+               p.actual_end_time AS actualEndTime,
+               p.actual_minutes AS actualTimeMinutes,
+               p.overtime_minutes AS overtimeMinutes
+        FROM process p
+        JOIN cycle c ON c.id = p.cycle_id AND c.deleted = 0
+        JOIN project pr ON pr.id = c.project_id AND pr.deleted = 0
+        LEFT JOIN sys_user u ON u.id = p.operator_id AND u.deleted = 0
+        WHERE p.overtime_reason_pending = 1
+          AND (c.cycle_status IS NULL OR c.cycle_status != 'COMPLETED')
+          <if test="projectName != null and projectName != ''">AND pr.project_name LIKE CONCAT('%', #{projectName}, '%')</if>
+        ORDER BY p.actual_end_time DESC, p.id DESC
+        </script>
+        """)
+    Page<OvertimeProcessResponse> selectOvertimeWithoutReasonPage(Page<OvertimeProcessResponse> page,
+                                                                  @Param("projectName") String projectName);
+
+    /**
+     * 查询同一循环下顺序在指定工序之后的工序，按顺序排列
+     */
+    @Select("""
+        SELECT * FROM process
+        WHERE deleted = 0
+          AND cycle_id = #{cycleId}
+          AND start_order > #{startOrder}
+        ORDER BY start_order
+        """)
+    List<Process> selectSubsequentProcesses(@Param("cycleId") Long cycleId,
+                                            @Param("startOrder") Integer startOrder);
+
+    /**
+     * 批量更新工序的计划/实际时间（一条语句）
+     * 与 updateById 一致：字段为null时保留原值
+     */
+    @Update("""
+        <script>
+        UPDATE process SET
+          actual_start_time = CASE id
+            <foreach collection="processes" item="p">WHEN #{p.id} THEN COALESCE(#{p.actualStartTime}, actual_start_time) </foreach>
+          END,
+          actual_end_time = CASE id
+            <foreach collection="processes" item="p">WHEN #{p.id} THEN COALESCE(#{p.actualEndTime}, actual_end_time) </foreach>
+          END,
+          estimated_start_time = CASE id
+            <foreach collection="processes" item="p">WHEN #{p.id} THEN COALESCE(#{p.estimatedStartTime}, estimated_start_time) </foreach>
+          END,
+          estimated_end_time = CASE id
+            <foreach collection="processes" item="p">WHEN #{p.id} THEN COALESCE(#{p.estimatedEndTime}, estimated_end_time) </foreach>
+          END,
+          update_time = NOW()
+        WHERE deleted = 0
+          AND id IN
+          <foreach collection="processes" item="p" open="(" separator="," close=")">#{p.id}</foreach>
+        </script>
+        """)
+    int batchUpdateScheduleTimes(@Param("processes") Collection<Process> processes);
+}
@@ -2,9 +2,25 @@ package com.zzw.zzwgx.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zzw.zzwgx.entity.ProcessOperationLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
 
 @Mapper
 public interface ProcessOperationLogMapper extends BaseMapper<ProcessOperationLog> {
-}
 
+    /**
+     * 批量插入操作日志（一条多值INSERT）
+     */
+    @Insert("""
+        <script>
+        INSERT INTO process_operation_log (process_id, user_id, action, remark, create_time) VALUES
+        <foreach collection="logs" item="l" separator=",">
+          (#{l.processId}, #{l.userId}, #{l.action}, #{l.remark}, #{l.createTime})
+        </foreach>
+        </script>
+        """)
+    int insertBatch(@Param("logs") Collection<ProcessOperationLog> logs);
+}
@@ -0,0 +1,114 @@
+package com.zzw.zzwgx.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zzw.zzwgx.dto.statistics.SiteProcessStat;
+import com.zzw.zzwgx.entity.SiteDailyProcessStat;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 工点每日工序统计Mapper接口
+ */
+@Mapper
+public interface SiteDailyProcessStatMapper extends BaseMapper<SiteDailyProcessStat> {
+
+    /**
+     * 从工序表重新计算某工点某一天的汇总行，存在则覆盖
+     * 当天没有任何已完成工序时写入全0行，保证循环日期调整后旧日期的数据被清零
+     */
+    @Insert("""
+        INSERT INTO site_daily_process_stat (project_id, stat_date, completed_count, control_minutes, actual_minutes,
+                                             timed_count, overtime_minutes, saved_minutes, create_time, update_time)
+        SELECT #{projectId}, #{statDate},
+               COUNT(t.id),
+               COALESCE(SUM(t.control_time), 0),
+               COALESCE(SUM(COALESCE(t.actual_minutes, 0)), 0),
+               COALESCE(SUM(CASE WHEN t.actual_minutes IS NOT NULL AND t.control_time IS NOT NULL THEN 1 ELSE 0 END), 0),
+               COALESCE(SUM(CASE WHEN t.actual_minutes > t.control_time THEN t.actual_minutes - t.control_time ELSE 0 END), 0),
+               COALESCE(SUM(CASE WHEN t.actual_minutes <= t.control_time THEN t.control_time - t.actual_minutes ELSE 0 END), 0),
+               NOW(), NOW()
+        FROM (
+            SELECT p.id, p.control_time,
+                   TIMESTAMPDIFF(MINUTE, p.actual_start_time, p.actual_end_time) AS actual_minutes
+            FROM process p
+            JOIN cycle c ON c.id = p.cycle_id AND c.deleted = 0
+            WHERE p.deleted = 0
+              AND p.process_status = 'COMPLETED'
+              AND c.project_id = #{projectId}
+              AND c.start_date >= #{statDate}
+              AND c.start_date < DATE_ADD(#{statDate}, INTERVAL 1 DAY)
+        ) t
+        ON DUPLICATE KEY UPDATE completed_count = VALUES(completed_count),
+                                control_minutes = VALUES(control_minutes),
+                                actual_minutes = VALUES(actual_minutes),
+                                timed_count = VALUES(timed_count),
+                                overtime_minutes = VALUES(overtime_minutes),
+                                saved_minutes = VALUES(saved_minutes),
+                                update_time = NOW()
+        """)
+    int refreshSiteDay(@Param("projectId") Long projectId, @Param("statDate") LocalDate statDate);
+
+    /**
+     * 删除日期范围内的汇总行（重建前清理）
+     */
+    @Delete("DELETE FROM site_daily_process_stat WHERE stat_date BETWEEN #{startDate} AND #{endDate}")
+    int deleteByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按工点、日期从工序表批量重建日期范围内的汇总行
+     */
+    @Insert("""
+        INSERT INTO site_daily_process_stat (project_id, stat_date, completed_count, control_minutes, actual_minutes,
+                                             timed_count, overtime_minutes, saved_minutes, create_time, update_time)
+        SELECT t.project_id, t.stat_date,
+               COUNT(*),
+               COALESCE(SUM(t.control_time), 0),
+               COALESCE(SUM(COALESCE(t.actual_minutes, 0)), 0),
+               SUM(CASE WHEN t.actual_minutes IS NOT NULL AND t.control_time IS NOT NULL THEN 1 ELSE 0 END),
+               SUM(CASE WHEN t.actual_minutes > t.control_time THEN t.actual_minutes - t.control_time ELSE 0 END),
+               SUM(CASE WHEN t.actual_minutes <= t.control_time THEN t.control_time - t.actual_minutes ELSE 0 END),
+               NOW(), NOW()
+        FROM (
+            SELECT c.project_id, DATE(c.start_date) AS stat_date, p.control_time,
+                   TIMESTAMPDIFF(MINUTE, p.actual_start_time, p.actual_end_time) AS actual_minutes
+            FROM process p
+            JOIN cycle c ON c.id = p.cycle_id AND c.deleted = 0
+            WHERE p.deleted = 0
+              AND p.process_status = 'COMPLETED'
+              AND c.start_date >= #{startDate}
+              AND c.start_date < DATE_ADD(#{endDate}, INTERVAL 1 DAY)
+        ) t
+        GROUP BY t.project_id, t.stat_date
+        """)
+    int insertAggregatedRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按工点汇总日期范围内的统计行，一次查询覆盖所有工点
+     */
+    @Select("""
+        <script>
+        SELECT project_id AS projectId,
+               SUM(completed_count) AS completedCount,
+               SUM(control_minutes) AS controlMinutes,
+               SUM(actual_minutes) AS actualMinutes,
+               SUM(timed_count) AS timedCount,
+               SUM(overtime_minutes) AS overtimeMinutes,
+               SUM(saved_minutes) AS savedMinutes
+        FROM site_daily_process_stat
+        WHERE stat_date BETWEEN #{startDate} AND #{endDate}
+          AND project_id IN
+          <foreach collection="projectIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+        GROUP BY project_id
+        </script>
+        """)
+    List<SiteProcessStat> sumByProjectIds(@Param("projectIds") Collection<Long> projectIds,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+}
@@ -1,13 +1,52 @@
 package com.zzw.zzwgx.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zzw.zzwgx.dto.TemplateStepRow;
+import com.zzw.zzwgx.dto.response.ProcessTemplateOptionResponse;
 import com.zzw.zzwgx.entity.TemplateProcess;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 模板-工序关联Mapper
  */
 @Mapper
 public interface TemplateProcessMapper extends BaseMapper<TemplateProcess> {
-}
 
+    /**
+     * 一次查出所有未删除模板及其工序（含工序字典名称），按模板ID、默认顺序排序
+     * 没有工序的模板也返回一行，工序字段为空
+     */
+    @Select("""
+        SELECT t.id AS templateId, t.template_name AS templateName,
+               tp.id AS stepId, tp.process_catalog_id AS processCatalogId, pc.process_name AS processName,
+               tp.control_time AS controlTime, tp.default_order AS defaultOrder, tp.description AS description,
+               tp.create_time AS createTime, tp.update_time AS updateTime
+        FROM template t
+        LEFT JOIN template_process tp ON tp.template_id = t.id AND tp.deleted = 0
+        LEFT JOIN process_catalog pc ON pc.id = tp.process_catalog_id AND pc.deleted = 0
+        WHERE t.deleted = 0
+        ORDER BY t.id, tp.default_order, tp.id
+        """)
+    List<TemplateStepRow> selectAllTemplateSteps();
+
+    /**
+     * 工序选项：启用的工序字典按显示顺序排列，附带该工序在模板中的首次出现（按模板ID、默认顺序取第一条）
+     * 工序未出现在任何模板中时 templateId、templateName 为空
+     */
+    @Select("""
+        SELECT tp.id AS templateId, pc.process_name AS processName, t.template_name AS templateName
+        FROM process_catalog pc
+        LEFT JOIN template_process tp ON tp.id = (
+            SELECT first_tp.id FROM template_process first_tp
+            WHERE first_tp.process_catalog_id = pc.id AND first_tp.deleted = 0
+            ORDER BY first_tp.template_id, first_tp.default_order, first_tp.id
+            LIMIT 1)
+        LEFT JOIN template t ON t.id = tp.template_id AND t.deleted = 0
+        WHERE pc.deleted = 0 AND pc.status = 1
+        ORDER BY pc.display_order, pc.id
+        """)
+    List<ProcessTemplateOptionResponse> selectProcessTemplateOptions();
+}
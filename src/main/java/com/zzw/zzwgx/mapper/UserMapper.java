@@ -1,13 +1,77 @@
 package com.zzw.zzwgx.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zzw.zzwgx.dto.response.UserViewListResponse;
 import com.zzw.zzwgx.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 用户Mapper接口
  */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
-}
 
+    /**
+     * 分页查询用户，角色过滤在SQL中完成（只认启用且未删除的角色），按创建时间倒序
+     */
+    @Select("""
+        <script>
+        SELECT u.* FROM sys_user u
+        WHERE u.deleted = 0
+          <if test="username != null and username != ''">AND u.username LIKE CONCAT('%', #{username}, '%')</if>
+          <if test="realName != null and realName != ''">AND u.real_name LIKE CONCAT('%', #{realName}, '%')</if>
+          <if test="roleCode != null and roleCode != ''">
+            AND EXISTS (
+              SELECT 1 FROM sys_user_role ur
+              JOIN sys_role r ON r.id = ur.role_id AND r.deleted = 0 AND r.role_status = 1
+              WHERE ur.user_id = u.id AND ur.deleted = 0 AND r.role_code = #{roleCode}
+            )
+          </if>
+        ORDER BY u.create_time DESC
+        </script>
+        """)
+    Page<User> selectUserPage(Page<User> page,
+                              @Param("username") String username,
+                              @Param("realName") String realName,
+                              @Param("roleCode") String roleCode);
+
+    /**
+     * 查询启用的施工人员（WORKER角色）选项，只返回ID、账号和姓名
+     * 指定项目时仅返回在该项目循环中担任过工序操作员的人员
+     */
+    @Select("""
+        <script>
+        SELECT u.id AS id, u.username AS username, u.real_name AS realName
+        FROM sys_user u
+        WHERE u.deleted = 0
+          AND u.status = 1
+          <if test="keyword != null and keyword != ''">
+            AND (u.username LIKE CONCAT('%', #{keyword}, '%') OR u.real_name LIKE CONCAT('%', #{keyword}, '%'))
+          </if>
+          AND EXISTS (
+            SELECT 1 FROM sys_user_role ur
+            JOIN sys_role r ON r.id = ur.role_id AND r.deleted = 0 AND r.role_status = 1
+            WHERE ur.user_id = u.id AND ur.deleted = 0 AND r.role_code = #{workerRoleCode}
+          )
+          <if test="projectId != null">
+            AND u.id IN (
+              SELECT DISTINCT p.operator_id
+              FROM cycle c
+              JOIN process p ON p.cycle_id = c.id AND p.deleted = 0
+              WHERE c.project_id = #{projectId}
+                AND c.deleted = 0
+                AND p.operator_id IS NOT NULL
+            )
+          </if>
+        ORDER BY u.id
+        </script>
+        """)
+    List<UserViewListResponse> selectWorkerOptions(@Param("projectId") Long projectId,
+                                                   @Param("keyword") String keyword,
+                                                   @Param("workerRoleCode") String workerRoleCode);
+}
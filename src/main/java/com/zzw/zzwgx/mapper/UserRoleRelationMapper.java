@@ -1,11 +1,16 @@
 package com.zzw.zzwgx.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zzw.zzwgx.dto.UserRoleCodeRow;
 import com.zzw.zzwgx.entity.UserRoleRelation;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 用户角色关联Mapper
  */
@@ -17,5 +22,20 @@ public interface UserRoleRelationMapper extends BaseMapper<UserRoleRelation> {
      */
     @Update("UPDATE sys_user_role SET deleted = 0, update_time = NOW() WHERE user_id = #{userId} AND role_id = #{roleId} AND deleted = 1")
     int restoreDeletedRelation(@Param("userId") Long userId, @Param("roleId") Long roleId);
+    
+    /**
+     * 批量查询用户的角色编码（只返回启用且未删除的角色）
+     */
+    @Select("""
+        <script>
+        SELECT ur.user_id AS userId, r.role_code AS roleCode
+        FROM sys_user_role ur
+        JOIN sys_role r ON r.id = ur.role_id AND r.deleted = 0 AND r.role_status = 1
+        WHERE ur.deleted = 0
+          AND ur.user_id IN
+          <foreach collection="userIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+        ORDER BY ur.user_id, r.id
+        </script>
+        """)
+    List<UserRoleCodeRow> selectRoleCodesByUserIds(@Param("userIds") Collection<Long> userIds);
 }
-
@@ -0,0 +1,44 @@
+package com.zzw.zzwgx.monitor;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * SQL语句计数拦截器
+ * 拦截Executor的查询和更新，把语句数和耗时按Mapper方法记入当前请求的 {@link SqlStatementStats}，
+ * 不在HTTP请求内（后台任务、异步写入等）执行的语句直接放行不统计
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SqlStatementCounterInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (stats == null) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            Object[] args = invocation.getArgs();
+            MappedStatement mappedStatement = (MappedStatement) args[0];
+            stats.record(mappedStatement.getId(), System.nanoTime() - start,
+                    () -> args.length == 6 ? ((BoundSql) args[5]).getSql() : mappedStatement.getBoundSql(args[1]).getSql());
+        }
+    }
+}
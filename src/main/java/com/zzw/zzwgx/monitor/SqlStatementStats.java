@@ -0,0 +1,131 @@
+package com.zzw.zzwgx.monitor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 单个HTTP请求内的SQL语句统计
+ * 由 {@link SqlStatementStatsFilter} 在请求开始时绑定到当前线程，{@link SqlStatementCounterInterceptor} 按Mapper方法累计语句数和耗时。
+ * 只在处理请求的线程内读写，不需要同步；异步线程中执行的语句不计入。
+ */
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    /** IN 列表等连续占位符折叠为一个，参数个数不同的同一语句归为同一形态 */
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_SHAPE_LENGTH = 300;
+
+    private final Map<String, StatementStat> statements = new LinkedHashMap<>();
+    private int statementCount;
+    private long totalNanos;
+
+    private SqlStatementStats() {
+    }
+
+    /**
+     * 为当前线程开始新的统计
+     */
+    static SqlStatementStats start() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * 当前线程的统计，不在请求内时返回null
+     */
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 结束当前线程的统计
+     */
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 记录一条语句
+     *
+     * @param statementId Mapper方法（MappedStatement ID）
+     * @param nanos 执行耗时（纳秒）
+     * @param sqlSupplier 语句SQL，每个Mapper方法只在首次出现时获取一次
+     */
+    void record(String statementId, long nanos, Supplier<String> sqlSupplier) {
+        statementCount++;
+        totalNanos += nanos;
+        StatementStat stat = statements.computeIfAbsent(statementId,
+                id -> new StatementStat(id, normalize(sqlSupplier.get())));
+        stat.count++;
+        stat.nanos += nanos;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getTotalMillis() {
+        return totalNanos / 1_000_000;
+    }
+
+    /**
+     * 按执行次数降序取前若干个Mapper方法
+     */
+    public List<StatementStat> topByCount(int limit) {
+        List<StatementStat> sorted = new ArrayList<>(statements.values());
+        sorted.sort(Comparator.comparingInt(StatementStat::getCount).reversed());
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    /**
+     * 语句形态：压缩空白、折叠占位符列表并截断
+     */
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        shape = PLACEHOLDER_LIST.matcher(shape).replaceAll("(?...)");
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) + "..." : shape;
+    }
+
+    /**
+     * 单个Mapper方法的统计
+     */
+    public static final class StatementStat {
+
+        private final String statementId;
+        private final String shape;
+        private int count;
+        private long nanos;
+
+        private StatementStat(String statementId, String shape) {
+            this.statementId = statementId;
+            this.shape = shape;
+        }
+
+        public String getStatementId() {
+            return statementId;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getMillis() {
+            return nanos / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.zzw.zzwgx.monitor;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+/**
+ * 请求级SQL统计过滤器
+ * 请求开始时绑定 {@link SqlStatementStats}，结束后语句数超过阈值时输出告警，列出执行次数最多的语句，
+ * 便于在上线前发现循环内逐条查询（N+1）。排在过滤器链最前，认证过程中的查询也计入。
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementStatsFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int warnThreshold;
+    private final int topStatements;
+
+    public SqlStatementStatsFilter(@Value("${sql-monitor.enabled:true}") boolean enabled,
+                                   @Value("${sql-monitor.warn-threshold:50}") int warnThreshold,
+                                   @Value("${sql-monitor.top-statements:5}") int topStatements) {
+        this.enabled = enabled;
+        this.warnThreshold = warnThreshold;
+        this.topStatements = topStatements;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementStats.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementStats.clear();
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementStats stats) {
+        if (stats.getStatementCount() > warnThreshold) {
+            String top = stats.topByCount(topStatements).stream()
+                    .map(stat -> String.format("%n  %d次 %dms %s: %s",
+                            stat.getCount(), stat.getMillis(), stat.getStatementId(), stat.getShape()))
+                    .collect(Collectors.joining());
+            log.warn("请求SQL语句数超过阈值，{} {}，语句数: {}，数据库耗时: {}ms，阈值: {}，执行最多的语句:{}",
+                    request.getMethod(), request.getRequestURI(), stats.getStatementCount(), stats.getTotalMillis(),
+                    warnThreshold, top);
+        } else if (log.isDebugEnabled() && stats.getStatementCount() > 0) {
+            log.debug("请求SQL统计，{} {}，语句数: {}，数据库耗时: {}ms",
+                    request.getMethod(), request.getRequestURI(), stats.getStatementCount(), stats.getTotalMillis());
+        }
+    }
+}
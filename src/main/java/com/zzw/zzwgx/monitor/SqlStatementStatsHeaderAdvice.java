@@ -0,0 +1,39 @@
+package com.zzw.zzwgx.monitor;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 非生产环境在响应头中返回本次请求的SQL语句数和数据库耗时
+ * 响应体写出前才能设置响应头，因此只对返回JSON等消息体的接口生效，直接写出文件流的下载接口不带这两个头
+ */
+@Profile("!prod")
+@RestControllerAdvice
+public class SqlStatementStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER_SQL_COUNT = "X-Sql-Count";
+    public static final String HEADER_SQL_TIME = "X-Sql-Time-Ms";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (stats != null) {
+            response.getHeaders().set(HEADER_SQL_COUNT, String.valueOf(stats.getStatementCount()));
+            response.getHeaders().set(HEADER_SQL_TIME, String.valueOf(stats.getTotalMillis()));
+        }
+        return body;
+    }
+}
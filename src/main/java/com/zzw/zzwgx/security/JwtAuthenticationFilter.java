@@ -4,8 +4,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.zzw.zzwgx.entity.User;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +30,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final SecurityUserCache securityUserCache;
+    
+    /**
+     * 认证主体来源：db（默认，数据库加载并缓存）、token（直接由JWT声明构建，不查询数据库）
+     * token模式下用户禁用、角色变更要等到token过期才生效
+     */
+    @Value("${security.principal-source:db}")
+    private String principalSource;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -36,12 +47,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         if (StringUtils.hasText(token)) {
             log.debug("从请求中获取到Token，请求路径: {}", request.getRequestURI());
-            if (jwtUtil.validateToken(token)) {
-                String username = jwtUtil.getUsernameFromToken(token);
+            // 每个请求只解析一次token，后续从Claims读取用户信息
+            Claims claims = jwtUtil.parseValidToken(token);
+            if (claims != null) {
+                String username = claims.getSubject();
                 log.debug("Token验证成功，用户名: {}, 请求路径: {}", username, request.getRequestURI());
                 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    UserDetails userDetails = loadSecurityUser(claims, username);
                     
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
@@ -61,6 +74,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * 加载认证用户：token模式直接使用JWT声明，否则优先读取缓存，未命中再查询数据库
+     */
+    private UserDetails loadSecurityUser(Claims claims, String username) {
+        Long userId = jwtUtil.getUserIdFromClaims(claims);
+        if ("token".equalsIgnoreCase(principalSource) && userId != null) {
+            User user = new User();
+            user.setId(userId);
+            user.setUsername(username);
+            user.setStatus(1);
+            return new SecurityUser(user, jwtUtil.getRolesFromClaims(claims));
+        }
+        
+        SecurityUser cached = securityUserCache.get(userId);
+        if (cached != null && username.equals(cached.getUsername())) {
+            return cached;
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (userDetails instanceof SecurityUser securityUser) {
+            securityUserCache.put(securityUser);
+        }
+        return userDetails;
+    }
+    
     /**
      * 从请求中获取token
      */
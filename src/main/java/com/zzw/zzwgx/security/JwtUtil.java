@@ -1,9 +1,14 @@
 package com.zzw.zzwgx.security;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.crypto.SecureUtil;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -31,10 +36,34 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Value("${jwt.verified-cache.max-size:5000}")
+    private int verifiedCacheMaxSize;
+    
+    @Value("${jwt.verified-cache.ttl-seconds:300}")
+    private long verifiedCacheTtlSeconds;
+    
+    /**
+     * 密钥与解析器只需构建一次，JwtParser是线程安全的
+     */
+    private SecretKey secretKey;
+    private JwtParser jwtParser;
+    
+    /**
+     * 已验签token缓存：token的SHA-256摘要 -> Claims，避免同一token重复验签
+     */
+    private LRUCache<String, Claims> verifiedTokenCache;
+    
+    @PostConstruct
+    public void init() {
+        secretKey = buildSecretKey();
+        jwtParser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        verifiedTokenCache = CacheUtil.newLRUCache(verifiedCacheMaxSize, verifiedCacheTtlSeconds * 1000);
+    }
+    
     /**
      * 获取安全的密钥（确保至少64字节用于HS512）
      */
-    private SecretKey getSecretKey() {
+    private SecretKey buildSecretKey() {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         
         // HS512需要至少64字节（512位）
@@ -84,34 +113,50 @@ public class JwtUtil {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
         
-        SecretKey key = getSecretKey();
-        
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(secretKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
     /**
      * 从token中获取Claims
+     * 验签通过的结果按token摘要缓存，命中时只检查过期时间，不再重复验签
      */
     public Claims getClaimsFromToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        String tokenHash = SecureUtil.sha256(token);
+        Claims cached = verifiedTokenCache.get(tokenHash, false);
+        if (cached != null) {
+            if (!isTokenExpired(cached)) {
+                return cached;
+            }
+            verifiedTokenCache.remove(tokenHash);
+        }
         try {
-            SecretKey key = getSecretKey();
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            verifiedTokenCache.put(tokenHash, claims);
+            return claims;
         } catch (Exception e) {
             log.debug("解析JWT token失败: {}", e.getMessage());
             return null;
         }
     }
     
+    /**
+     * 解析并验证token，失败或已过期返回null
+     * 同一请求应只调用一次，后续通过Claims读取用户信息
+     */
+    public Claims parseValidToken(String token) {
+        Claims claims = getClaimsFromToken(token);
+        return claims != null && !isTokenExpired(claims) ? claims : null;
+    }
+    
     /**
      * 从token中获取用户名
      */
@@ -124,15 +169,30 @@ public class JwtUtil {
      * 从token中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims != null ? ((Number) claims.get("userId")).longValue() : null;
+        return getUserIdFromClaims(getClaimsFromToken(token));
+    }
+    
+    /**
+     * 从Claims中获取用户ID
+     */
+    public Long getUserIdFromClaims(Claims claims) {
+        if (claims == null || !(claims.get("userId") instanceof Number userId)) {
+            return null;
+        }
+        return userId.longValue();
     }
     
     /**
      * 从token中获取角色
      */
     public List<String> getRolesFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        return getRolesFromClaims(getClaimsFromToken(token));
+    }
+    
+    /**
+     * 从Claims中获取角色
+     */
+    public List<String> getRolesFromClaims(Claims claims) {
         if (claims == null) {
             return Collections.emptyList();
         }
@@ -166,7 +226,7 @@ public class JwtUtil {
      */
     private Boolean isTokenExpired(Claims claims) {
         Date expiration = claims.getExpiration();
-        return expiration.before(new Date());
+        return expiration != null && expiration.before(new Date());
     }
 }
 
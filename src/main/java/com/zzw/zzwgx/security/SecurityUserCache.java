@@ -0,0 +1,66 @@
+package com.zzw.zzwgx.security;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 已认证用户缓存（按用户ID）
+ * 容量有限、按写入时间过期，避免每个请求都查询 sys_user、sys_user_role、sys_role。
+ * 用户信息、状态或角色变更后需调用 {@link #evict(Long)}。
+ */
+@Slf4j
+@Component
+public class SecurityUserCache {
+
+    private final boolean enabled;
+    private final LRUCache<Long, SecurityUser> cache;
+
+    public SecurityUserCache(@Value("${security.user-cache.enabled:true}") boolean enabled,
+                             @Value("${security.user-cache.max-size:2000}") int maxSize,
+                             @Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = CacheUtil.newLRUCache(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * 获取缓存的用户，不存在或已过期返回null（读取不刷新过期时间）
+     */
+    public SecurityUser get(Long userId) {
+        if (!enabled || userId == null) {
+            return null;
+        }
+        return cache.get(userId, false);
+    }
+
+    public void put(SecurityUser securityUser) {
+        if (!enabled || securityUser == null || securityUser.getUserId() == null) {
+            return;
+        }
+        cache.put(securityUser.getUserId(), securityUser);
+    }
+
+    /**
+     * 移除用户缓存
+     * 在事务中调用时，事务结束后会再次移除，避免事务提交前被并发请求重新加载到旧数据
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        cache.remove(userId);
+        log.debug("移除认证用户缓存，用户ID: {}", userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.remove(userId);
+                }
+            });
+        }
+    }
+}
@@ -3,12 +3,21 @@ package com.zzw.zzwgx.service;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.zzw.zzwgx.dto.request.CreateCycleRequest;
+import com.zzw.zzwgx.dto.request.CycleReportExportJobRequest;
 import com.zzw.zzwgx.dto.request.UpdateCycleRequest;
+import com.zzw.zzwgx.dto.response.BlastIntervalResponse;
 import com.zzw.zzwgx.dto.response.CycleReportDataResponse;
 import com.zzw.zzwgx.dto.response.CycleResponse;
 import com.zzw.zzwgx.dto.response.InProgressProcessOrderResponse;
+import com.zzw.zzwgx.dto.response.ReportExportJobResponse;
 import com.zzw.zzwgx.dto.response.TemplateControlDurationResponse;
 import com.zzw.zzwgx.entity.Cycle;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 循环服务接口
@@ -45,6 +54,14 @@ public interface CycleService extends IService<Cycle> {
      */
     Cycle getLatestCycleByProjectId(Long projectId);
 
+    /**
+     * 批量获取多个项目的最新循环（一次查询）
+     *
+     * @param projectIds 项目ID集合
+     * @return 项目ID -> 最新循环，没有循环的项目不在结果中
+     */
+    Map<Long, Cycle> getLatestCyclesByProjectIds(Collection<Long> projectIds);
+
     /**
      * 根据项目ID和循环号获取循环
      */
@@ -56,7 +73,7 @@ public interface CycleService extends IService<Cycle> {
      * @param cycleId  循环ID
      * @param response HTTP响应流（写出Excel）
      */
-    void exportCycleReport(Long cycleId, jakarta.servlet.http.HttpServletResponse response);
+    void exportCycleReport(Long cycleId, HttpServletResponse response);
     
     /**
      * 获取循环报表数据（返回报表中需要填写的单元格值）
@@ -66,6 +83,16 @@ public interface CycleService extends IService<Cycle> {
      */
     CycleReportDataResponse getCycleReportData(Long cycleId);
     
+    /**
+     * 查询工点在日期范围内的响炮间隔序列（按响炮时间升序，第一个间隔以区间前最近一次响炮为起点）
+     *
+     * @param projectId 工点ID
+     * @param startDate 开始日期（含）
+     * @param endDate 结束日期（含）
+     * @return 响炮间隔列表
+     */
+    List<BlastIntervalResponse> getBlastIntervals(Long projectId, LocalDate startDate, LocalDate endDate);
+    
     /**
      * 根据模板ID和工点ID获取模板的控制时长（所有工序的控制时间总和）
      * 用于创建循环页面，在创建循环前显示控制时长
@@ -112,5 +139,22 @@ public interface CycleService extends IService<Cycle> {
      * @return 循环响应
      */
     CycleResponse fillCycleTime(Long cycleId, Long userId, CreateCycleRequest request);
+    
+    /**
+     * 提交循环报表批量导出任务（按工点和循环开始日期范围，每个循环一个Excel，打包为ZIP）
+     *
+     * @param request 导出请求
+     * @return 任务状态
+     */
+    ReportExportJobResponse submitCycleReportExportJob(CycleReportExportJobRequest request);
+    
+    /**
+     * 查询循环报表批量导出任务状态（仅任务提交人）
+     */
+    ReportExportJobResponse getCycleReportExportJob(String jobId);
+    
+    /**
+     * 下载已完成的循环报表批量导出文件（仅任务提交人）
+     */
+    void downloadCycleReportExportJob(String jobId, HttpServletResponse response);
 }
-
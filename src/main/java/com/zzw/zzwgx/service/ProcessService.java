@@ -6,12 +6,15 @@ import com.zzw.zzwgx.dto.request.CreateProcessRequest;
 import com.zzw.zzwgx.dto.request.FillProcessTimeRequest;
 import com.zzw.zzwgx.dto.request.UpdateProcessOrderRequest;
 import com.zzw.zzwgx.dto.request.UpdateProcessRequest;
+import com.zzw.zzwgx.dto.response.OperationLogWriterStats;
 import com.zzw.zzwgx.dto.response.OvertimeProcessResponse;
 import com.zzw.zzwgx.dto.response.ProcessDetailResponse;
 import com.zzw.zzwgx.dto.response.ProcessResponse;
 import com.zzw.zzwgx.dto.response.WorkerProcessListResponse;
+import com.zzw.zzwgx.dto.response.WorkerProcessScrollResponse;
 import com.zzw.zzwgx.entity.Process;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -79,6 +82,23 @@ public interface ProcessService extends IService<Process> {
                                                          String projectName,
                                                          String status);
     
+    /**
+     * 游标分页查询施工人员工序列表（按创建时间、工序ID倒序），用于移动端下拉加载
+     *
+     * @param workerId    当前施工人员用户ID
+     * @param cursorTime  上一页返回的 nextCursorTime，首次查询为空
+     * @param cursorId    上一页返回的 nextCursorId，首次查询为空
+     * @param size        每次返回数量
+     * @param projectName 工点名称（模糊查询）
+     * @param status      工序状态：NOT_STARTED/IN_PROGRESS/COMPLETED
+     */
+    WorkerProcessScrollResponse scrollWorkerProcessList(Long workerId,
+                                                        LocalDateTime cursorTime,
+                                                        Long cursorId,
+                                                        Integer size,
+                                                        String projectName,
+                                                        String status);
+    
     /**
      * 批量更新工序顺序
      */
@@ -115,5 +135,10 @@ public interface ProcessService extends IService<Process> {
      * 施工人员补填工序时间（24小时内可直接补填，超过24小时只能由系统管理员补填）
      */
     ProcessResponse fillProcessTime(Long processId, Long workerId, FillProcessTimeRequest request);
+    
+    /**
+     * 查询工序操作日志异步写入统计（队列深度、写入数、丢弃数、失败数）
+     */
+    OperationLogWriterStats getOperationLogWriterStats();
 }
 
@@ -8,6 +8,7 @@ import com.zzw.zzwgx.dto.response.ProgressDetailResponse;
 import com.zzw.zzwgx.dto.response.ProjectTreeNodeResponse;
 import com.zzw.zzwgx.dto.response.SiteConstructionStatusResponse;
 import com.zzw.zzwgx.entity.Project;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -56,6 +57,16 @@ public interface ProjectService extends IService<Project> {
      */
     SiteConstructionStatusResponse getSiteConstructionStatus(Long projectId);
     
+    /**
+     * 获取施工看板：当前用户可访问的所有工点的施工状态（管理员查看）
+     */
+    List<SiteConstructionStatusResponse> getConstructionBoard();
+    
+    /**
+     * 订阅施工变更事件（SSE），指定工点时只推送该工点，否则推送当前用户可访问的所有工点
+     */
+    SseEmitter subscribeConstructionEvents(Long projectId);
+    
     /**
      * 获取全部隧道列表（仅返回ID和名称）
      */
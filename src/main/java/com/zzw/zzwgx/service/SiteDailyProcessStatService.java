@@ -0,0 +1,37 @@
+package com.zzw.zzwgx.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.zzw.zzwgx.dto.statistics.SiteProcessStat;
+import com.zzw.zzwgx.entity.SiteDailyProcessStat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 工点每日工序统计服务接口
+ */
+public interface SiteDailyProcessStatService extends IService<SiteDailyProcessStat> {
+
+    /**
+     * 重新计算循环所在工点、所在日期的统计行（工序完成或时间变化后调用）
+     */
+    void refreshByCycleId(Long cycleId);
+
+    /**
+     * 重新计算指定工点在循环开始时间所在日期的统计行
+     */
+    void refreshSiteDay(Long projectId, LocalDateTime cycleStartDate);
+
+    /**
+     * 重建日期范围内所有工点的统计行（用于历史数据初始化和纠偏）
+     * @return 写入的统计行数
+     */
+    int rebuild(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 按工点汇总日期范围内的统计数据
+     */
+    List<SiteProcessStat> sumByProjectIds(Collection<Long> projectIds, LocalDate startDate, LocalDate endDate);
+}
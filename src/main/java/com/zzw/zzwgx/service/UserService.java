@@ -10,7 +10,9 @@ import com.zzw.zzwgx.dto.response.UserProfileResponse;
 import com.zzw.zzwgx.dto.response.UserViewListResponse;
 import com.zzw.zzwgx.entity.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户服务接口
@@ -51,6 +53,12 @@ public interface UserService extends IService<User> {
      * 获取用户角色代码列表
      */
     List<String> getUserRoleCodes(Long userId);
+    
+    /**
+     * 批量查询用户显示名称：优先真实姓名，其次用户名
+     * 一次查询完成，空ID忽略；用户不存在或两者都为空的不在结果中，返回不可变Map
+     */
+    Map<Long, String> getDisplayNames(Collection<Long> userIds);
 
     /**
      * 获取施工人员列表（仅角色为WORKER），支持按用户名或姓名模糊搜索
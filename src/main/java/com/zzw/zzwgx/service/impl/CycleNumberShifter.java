@@ -0,0 +1,55 @@
+package com.zzw.zzwgx.service.impl;
+
+import com.zzw.zzwgx.mapper.CycleMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 循环号批量平移
+ * 补填循环插入或调整位置时，需要把一段循环号整体 +1 或 -1。先将区间内的循环号（平移后）取负，再统一翻转为正数，
+ * 无论涉及多少循环都只需两条UPDATE，且任何时刻都不会违反 uk_project_cycle_number 唯一约束
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CycleNumberShifter {
+
+    private final CycleMapper cycleMapper;
+
+    /**
+     * 插入模式：将指定位置及之后的所有循环的 cycleNumber +1，为插入的循环让出位置
+     *
+     * @return 平移的循环数
+     */
+    public int shiftForInsert(Long projectId, Integer targetCycleNumber) {
+        int shifted = cycleMapper.negateShiftedCycleNumbers(projectId, targetCycleNumber, null, 1, null, null);
+        if (shifted == 0) {
+            log.debug("没有需要调整的循环，项目ID: {}, 目标循环号: {}", projectId, targetCycleNumber);
+            return 0;
+        }
+        cycleMapper.restoreNegatedCycleNumbers(projectId);
+        log.info("循环号调整完成（插入模式），项目ID: {}, 目标循环号: {}, 调整数量: {}", projectId, targetCycleNumber, shifted);
+        return shifted;
+    }
+
+    /**
+     * 更新模式：将循环从原循环号移动到目标循环号，两者之间的其他循环依次补位
+     * 循环号增大时 (currentCycleNumber, targetCycleNumber] 内的循环 -1，减小时 [targetCycleNumber, currentCycleNumber) 内的循环 +1，
+     * 被移动的循环同时写入目标循环号
+     *
+     * @return 调整的循环数（含被移动的循环）
+     */
+    public int shiftForMove(Long cycleId, Long projectId, Integer currentCycleNumber, Integer targetCycleNumber) {
+        if (currentCycleNumber.equals(targetCycleNumber)) {
+            return 0;
+        }
+        int shifted = currentCycleNumber < targetCycleNumber
+                ? cycleMapper.negateShiftedCycleNumbers(projectId, currentCycleNumber + 1, targetCycleNumber, -1, cycleId, targetCycleNumber)
+                : cycleMapper.negateShiftedCycleNumbers(projectId, targetCycleNumber, currentCycleNumber - 1, 1, cycleId, targetCycleNumber);
+        cycleMapper.restoreNegatedCycleNumbers(projectId);
+        log.info("循环号调整完成（更新模式），项目ID: {}, 循环ID: {}, 原循环号: {}, 目标循环号: {}, 调整数量: {}",
+                projectId, cycleId, currentCycleNumber, targetCycleNumber, shifted);
+        return shifted;
+    }
+}
@@ -11,42 +11,47 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 // import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper; // 暂时注释，调整cycle_number功能已禁用
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zzw.zzwgx.cache.CycleReportCache;
+import com.zzw.zzwgx.cache.ReportTemplateCache;
+import com.zzw.zzwgx.cache.TemplateRegistry;
+import com.zzw.zzwgx.common.enums.ConstructionEventType;
 import com.zzw.zzwgx.common.enums.ProcessStatus;
 import com.zzw.zzwgx.common.enums.ResultCode;
 import com.zzw.zzwgx.common.enums.RockLevel;
 import com.zzw.zzwgx.common.exception.BusinessException;
 import com.zzw.zzwgx.dto.request.CreateCycleRequest;
+import com.zzw.zzwgx.dto.request.CycleReportExportJobRequest;
 import com.zzw.zzwgx.dto.request.UpdateCycleRequest;
+import com.zzw.zzwgx.dto.response.BlastIntervalResponse;
 import com.zzw.zzwgx.dto.response.CycleReportDataResponse;
 import com.zzw.zzwgx.dto.response.CycleResponse;
 import com.zzw.zzwgx.dto.response.InProgressProcessOrderResponse;
+import com.zzw.zzwgx.dto.response.ReportExportJobResponse;
 import com.zzw.zzwgx.dto.response.TemplateControlDurationResponse;
 import com.zzw.zzwgx.entity.Cycle;
 import com.zzw.zzwgx.entity.Process;
 import com.zzw.zzwgx.entity.ProcessCatalog;
 import com.zzw.zzwgx.entity.ProcessTemplate;
 import com.zzw.zzwgx.entity.Project;
-import com.zzw.zzwgx.entity.ProjectTemplate;
-import com.zzw.zzwgx.entity.Template;
-import com.zzw.zzwgx.entity.TemplateProcess;
-import com.zzw.zzwgx.entity.User;
+import com.zzw.zzwgx.event.ConstructionEventBroadcaster;
+import com.zzw.zzwgx.job.ReportExportJobManager;
 import com.zzw.zzwgx.mapper.CycleMapper;
 import com.zzw.zzwgx.mapper.ProjectMapper;
-import com.zzw.zzwgx.mapper.ProjectTemplateMapper;
-import com.zzw.zzwgx.mapper.TemplateMapper;
-import com.zzw.zzwgx.mapper.TemplateProcessMapper;
-import com.zzw.zzwgx.mapper.UserMapper;
 import com.zzw.zzwgx.security.SecurityUtils;
 import com.zzw.zzwgx.service.CycleService;
 import com.zzw.zzwgx.service.ProcessCatalogService;
 import com.zzw.zzwgx.service.ProcessService;
 import com.zzw.zzwgx.service.ProcessTemplateService;
+import com.zzw.zzwgx.service.SiteDailyProcessStatService;
+import com.zzw.zzwgx.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellReference;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
@@ -54,14 +59,20 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * 循环服务实现类
@@ -76,10 +87,17 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
     private final ProcessCatalogService processCatalogService;
     private final ProcessService processService;
     private final ResourceLoader resourceLoader;
-    private final TemplateMapper templateMapper;
-    private final TemplateProcessMapper templateProcessMapper;
-    private final ProjectTemplateMapper projectTemplateMapper;
-    private final UserMapper userMapper;
+    private final TemplateRegistry templateRegistry;
+    private final CycleReportCache cycleReportCache;
+    private final CycleNumberShifter cycleNumberShifter;
+    private final UserService userService;
+    private final SiteDailyProcessStatService siteDailyProcessStatService;
+    private final ReportTemplateCache reportTemplateCache;
+    private final ReportExportJobManager reportExportJobManager;
+    private final ConstructionEventBroadcaster constructionEventBroadcaster;
+
+    @Value("${report.export-job.max-cycles:500}")
+    private int maxExportJobCycles;
 
     private static final BigDecimal PROJECT_START_MILEAGE = new BigDecimal("84000");
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -95,56 +113,29 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
             throw new BusinessException(ResultCode.PROJECT_NOT_FOUND);
         }
 
-        // 根据 templateId 获取模板工序（template_process 表）
-        // 这里的 templateId 为 template 表主键，因此需要用 template_id 字段匹配
-        TemplateProcess templateProcess = templateProcessMapper.selectOne(
-                new LambdaQueryWrapper<TemplateProcess>()
-                        .eq(TemplateProcess::getTemplateId, request.getTemplateId())
-                        .eq(TemplateProcess::getDeleted, 0)
-                        .orderByAsc(TemplateProcess::getDefaultOrder)
-                        .last("LIMIT 1"));
-        if (templateProcess == null) {
-            log.error("创建循环失败，模板工序不存在，模板ID: {}", request.getTemplateId());
-            throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
-        }
-        
-        // 根据 template_id 查询模板信息
-        Template template = templateMapper.selectById(templateProcess.getTemplateId());
-        if (template == null) {
-            log.error("创建循环失败，模板不存在，模板ID: {}", templateProcess.getTemplateId());
+        // 从模板注册表获取模板（templateId 为 template 表主键）
+        TemplateRegistry.TemplateSnapshot template = templateRegistry.getTemplate(request.getTemplateId());
+        if (template == null || template.getSteps().isEmpty()) {
+            log.error("创建循环失败，模板不存在或没有工序定义，模板ID: {}", request.getTemplateId());
             throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
         }
         
         // 验证该工点是否关联了该模板
-        ProjectTemplate projectTemplate = projectTemplateMapper.selectOne(new LambdaQueryWrapper<ProjectTemplate>()
-                .eq(ProjectTemplate::getProjectId, request.getProjectId())
-                .eq(ProjectTemplate::getTemplateId, request.getTemplateId())
-                .eq(ProjectTemplate::getDeleted, 0)
-                .last("LIMIT 1"));
-        
-        if (projectTemplate == null) {
+        if (!templateRegistry.isBoundToSite(request.getProjectId(), template.getTemplateId())) {
             log.error("创建循环失败，该工点未关联该模板，工点ID: {}, 模板ID: {}", 
-                    request.getProjectId(), template.getId());
+                    request.getProjectId(), template.getTemplateId());
             throw new BusinessException("该工点未关联该模板");
         }
         
-        // 根据模板名称获取该模板下的所有工序模板
-        List<ProcessTemplate> templates = processTemplateService.getTemplatesByName(template.getTemplateName());
-        if (templates.isEmpty()) {
-            log.error("创建循环失败，模板没有工序定义，模板ID: {}, 模板名称: {}", 
-                    template.getId(), template.getTemplateName());
-            throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
-        }
+        // 该模板下的所有工序模板
+        List<ProcessTemplate> templates = template.toProcessTemplates(null);
 
-        // 计算控制时长：始终根据模板中所有工序的控制时间总和
-        Integer controlDuration = templates.stream()
-                .filter(t -> t.getControlTime() != null && t.getControlTime() > 0)
-                .mapToInt(ProcessTemplate::getControlTime)
-                .sum();
+        // 控制时长：模板中所有工序的控制时间总和（注册表加载时已计算）
+        Integer controlDuration = template.getControlDuration();
         log.info("自动计算控制时长，模板名称: {}, 工序数量: {}, 控制时长总和: {}分钟",
                 template.getTemplateName(), templates.size(), controlDuration);
         
-        if (controlDuration == null || controlDuration <= 0) {
+        if (controlDuration <= 0) {
             log.error("创建循环失败，控制时长无效，工点ID: {}, 模板名称: {}, 控制时长: {}", 
                     request.getProjectId(), template.getTemplateName(), controlDuration);
             throw new BusinessException("模板中工序的控制时间总和无效，无法创建循环");
@@ -229,7 +220,8 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         
         // 根据模板自动创建工序（模板已验证，直接创建）
         Long currentUserId = SecurityUtils.getCurrentUserId();
-        createProcessesFromTemplate(cycle.getId(), request.getProjectId(), template.getTemplateName(), cycle.getStartDate(), currentUserId);
+        createProcessesFromTemplate(cycle.getId(), request.getProjectId(), template.getTemplateName(), templates, cycle.getStartDate(), currentUserId);
+        constructionEventBroadcaster.publishCycleChange(ConstructionEventType.CYCLE_CREATED, cycle);
         
         return convertToResponse(cycle);
     }
@@ -253,6 +245,8 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
             }
         }
         
+        LocalDateTime oldStartDate = cycle.getStartDate();
+        String oldStatus = cycle.getStatus();
         if (request.getControlDuration() != null) {
             cycle.setControlDuration(request.getControlDuration());
         }
@@ -287,6 +281,11 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
             cycle.setRockLevel(request.getRockLevel());
         }
         updateById(cycle);
+        refreshDailyStatIfStartDateChanged(cycle, oldStartDate);
+        cycleReportCache.invalidate();
+        boolean completed = "COMPLETED".equals(cycle.getStatus()) && !"COMPLETED".equals(oldStatus);
+        constructionEventBroadcaster.publishCycleChange(
+                completed ? ConstructionEventType.CYCLE_COMPLETED : ConstructionEventType.CYCLE_UPDATED, cycle);
         log.info("循环更新完成，循环ID: {}", cycleId);
         return convertToResponse(cycle);
     }
@@ -321,6 +320,9 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         
         // 再删除循环本身（逻辑删除）
         removeById(cycleId);
+        siteDailyProcessStatService.refreshSiteDay(cycle.getProjectId(), cycle.getStartDate());
+        cycleReportCache.invalidate();
+        constructionEventBroadcaster.publishCycleChange(ConstructionEventType.CYCLE_DELETED, cycle);
         
         // TODO: 暂时注释掉调整其他循环cycle_number的逻辑
         // 保存被删除循环的信息，用于后续调整其他循环的cycle_number
@@ -427,6 +429,15 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         return cycle;
     }
 
+    @Override
+    public Map<Long, Cycle> getLatestCyclesByProjectIds(Collection<Long> projectIds) {
+        if (projectIds == null || projectIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return baseMapper.selectLatestByProjectIds(projectIds).stream()
+                .collect(Collectors.toMap(Cycle::getProjectId, cycle -> cycle, (a, b) -> a));
+    }
+    
     @Override
     public Cycle getCycleByProjectAndNumber(Long projectId, Integer cycleNumber) {
         log.debug("根据项目和循环号查询循环，项目ID: {}, 循环号: {}", projectId, cycleNumber);
@@ -443,18 +454,17 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
     /**
      * 计算循环报表的时间信息
      * @param cycle 循环对象
-     * @param cycleId 循环ID
+     * @param lastCycle 上一循环，没有时为null
      * @return 包含所有时间信息的对象
      */
-    private CycleTimeInfo calculateCycleTimeInfo(Cycle cycle, Long cycleId) {
+    private CycleTimeInfo calculateCycleTimeInfo(Cycle cycle, Cycle lastCycle) {
         LocalDateTime start = cycle.getStartDate();
         LocalDateTime end = cycle.getEndDate();
         Integer controlMinutes = cycle.getControlDuration();
         
-        // 获取上循环信息
-        Cycle lastCycle = getCycleByProjectAndNumber(cycle.getProjectId(), cycle.getCycleNumber() - 1);
-        LocalDateTime lastCycleBlastTime = lastCycle != null ? getBlastTimeByCycleId(lastCycle.getId()) : null;
-        LocalDateTime currentCycleBlastTime = getBlastTimeByCycleId(cycleId);
+        // 上循环及本循环响炮时间（装药爆破工序结束时间，由工序变更时维护在循环上）
+        LocalDateTime lastCycleBlastTime = lastCycle != null ? lastCycle.getBlastTime() : null;
+        LocalDateTime currentCycleBlastTime = cycle.getBlastTime();
         
         // 计算预测时间
         LocalDateTime predictedNextByControl = null;
@@ -524,19 +534,31 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
     
     /**
      * 根据模板名称创建工序
-     * 此方法假设模板已验证存在，不再进行重复验证
+     * 此方法假设模板已验证存在，不再进行重复验证；工序模板由调用方传入，避免重复查询
+     * 工序字典一次批量查询，工序一次批量插入
      */
-    private void createProcessesFromTemplate(Long cycleId, Long siteId, String templateName, LocalDateTime cycleStartTime, Long firstOperatorId) {
+    private void createProcessesFromTemplate(Long cycleId, Long siteId, String templateName, List<ProcessTemplate> processTemplates,
+                                             LocalDateTime cycleStartTime, Long firstOperatorId) {
         log.info("根据模板创建工序，循环ID: {}, 工点ID: {}, 模板名称: {}", cycleId, siteId, templateName);
         
-        // 获取该模板的所有工序模板（模板是全局的，不区分工点）
-        List<ProcessTemplate> templates = processTemplateService.getTemplatesByName(templateName).stream()
+        // 按默认顺序排列工序模板（模板是全局的，不区分工点）
+        List<ProcessTemplate> templates = processTemplates.stream()
                 .sorted(Comparator.comparing(ProcessTemplate::getDefaultOrder, Comparator.nullsLast(Integer::compareTo)))
                 .collect(Collectors.toList());
         
+        // 批量获取工序字典
+        Set<Long> catalogIds = templates.stream()
+                .map(ProcessTemplate::getProcessCatalogId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ProcessCatalog> catalogMap = catalogIds.isEmpty()
+                ? Collections.emptyMap()
+                : processCatalogService.listByIds(catalogIds).stream()
+                        .collect(Collectors.toMap(ProcessCatalog::getId, catalog -> catalog));
+        
         // 根据模板创建工序
         boolean firstStarted = false;
-        int createdCount = 0;
+        List<Process> processes = new ArrayList<>();
         for (ProcessTemplate processTemplate : templates) {
             // 如果工序模板的控制时间为0或null，则跳过该工序
             if (processTemplate.getControlTime() == null || processTemplate.getControlTime() == 0) {
@@ -549,7 +571,7 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
             process.setCycleId(cycleId);
             // 从工序字典获取工序名称（如果processTemplate有processCatalogId）
             if (processTemplate.getProcessCatalogId() != null) {
-                ProcessCatalog catalog = processCatalogService.getById(processTemplate.getProcessCatalogId());
+                ProcessCatalog catalog = catalogMap.get(processTemplate.getProcessCatalogId());
                 if (catalog != null) {
                     process.setProcessName(catalog.getProcessName());
                     process.setCategory(catalog.getCategory());
@@ -581,16 +603,53 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
                 process.setProcessStatus(ProcessStatus.NOT_STARTED.getCode());
                 process.setOperatorId(null);
             }
-            processService.save(process);
-            createdCount++;
-            log.debug("根据模板创建工序成功，工序名称: {}, 顺序: {}, 模板ID: {}", process.getProcessName(), processTemplate.getDefaultOrder(), processTemplate.getId());
+            processes.add(process);
+        }
+        
+        if (!processes.isEmpty()) {
+            processService.saveBatch(processes);
         }
+        // 复用已删除的循环时，响炮时间按新工序重新计算
+        baseMapper.refreshBlastTime(cycleId);
         
-        log.info("根据模板创建工序完成，循环ID: {}, 模板工序总数: {}, 实际创建工序数量: {}", cycleId, templates.size(), createdCount);
+        log.info("根据模板创建工序完成，循环ID: {}, 模板工序总数: {}, 实际创建工序数量: {}", cycleId, templates.size(), processes.size());
     }
     
     @Override
-    public void exportCycleReport(Long cycleId, jakarta.servlet.http.HttpServletResponse response) {
+    public List<BlastIntervalResponse> getBlastIntervals(Long projectId, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new BusinessException("查询日期范围无效");
+        }
+        log.info("查询工点响炮间隔，工点ID: {}, 开始日期: {}, 结束日期: {}", projectId, startDate, endDate);
+        LocalDateTime startTime = startDate.atStartOfDay();
+        LocalDateTime endTime = endDate.atTime(LocalTime.MAX);
+        // 一次查询取出区间内的响炮记录及区间前最近的一次响炮，按响炮时间升序
+        List<Cycle> timeline = baseMapper.selectBlastTimeline(projectId, startTime, endTime);
+        
+        List<BlastIntervalResponse> intervals = new ArrayList<>();
+        Cycle previous = null;
+        for (Cycle cycle : timeline) {
+            if (!cycle.getBlastTime().isBefore(startTime)) {
+                BlastIntervalResponse interval = new BlastIntervalResponse();
+                interval.setCycleId(cycle.getId());
+                interval.setCycleNumber(cycle.getCycleNumber());
+                interval.setBlastTime(cycle.getBlastTime());
+                interval.setControlDuration(cycle.getControlDuration());
+                if (previous != null) {
+                    interval.setPreviousCycleNumber(previous.getCycleNumber());
+                    interval.setPreviousBlastTime(previous.getBlastTime());
+                    interval.setIntervalMinutes(Duration.between(previous.getBlastTime(), cycle.getBlastTime()).toMinutes());
+                }
+                intervals.add(interval);
+            }
+            previous = cycle;
+        }
+        log.info("查询工点响炮间隔完成，工点ID: {}, 响炮次数: {}", projectId, intervals.size());
+        return intervals;
+    }
+    
+    @Override
+    public void exportCycleReport(Long cycleId, HttpServletResponse response) {
         log.info("导出循环报表（新模板），循环ID: {}", cycleId);
         Cycle cycle = getById(cycleId);
         if (cycle == null) {
@@ -605,99 +664,203 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         String siteName = project.getProjectName();
         
         // 获取隧道信息（父节点）
-        String tunnelName = "";
-        if (project.getParentId() != null) {
-            Project tunnel = projectMapper.selectById(project.getParentId());
-            if (tunnel != null && "TUNNEL".equals(tunnel.getNodeType())) {
-                tunnelName = tunnel.getProjectName();
-            }
-        }
+        String tunnelName = resolveTunnelName(project);
         
         // 获取工序列表
         List<Process> processes = processService.getProcessesByCycleId(cycleId);
         processes.sort(Comparator.comparing(Process::getStartOrder, Comparator.nullsLast(Integer::compareTo)));
+        Map<Long, String> operatorNames = userService.getDisplayNames(processes.stream()
+                .map(Process::getOperatorId)
+                .collect(Collectors.toList()));
         
-        // 模板路径：从 static 目录读取模板文件
-        File templateFile = findNewTemplateFile();
-        if (templateFile == null || !templateFile.exists()) {
-            throw new BusinessException("未找到报表模板文件（static目录下的工序时间统计表.xlsx）");
-        }
+        String fileName = (tunnelName.isEmpty() ? "" : tunnelName + "-") + siteName + "-工序时间统计表.xlsx";
+        Map<String, TemplateCellValue> cellValues = buildCycleReportCellValues(cycle, siteName);
         
+        // 限制同时导出数量，控制工作簿占用的堆内存
+        reportTemplateCache.acquireExportPermit();
         try {
-            Map<String, TemplateCellValue> cellValues = new HashMap<>();
-            
-            // 第一行：隧道名称+工点名称+工序时间统计表
-            String title = siteName + "工序时间统计表";
-            cellValues.put("A1", TemplateCellValue.string(title));
-            
-            // 第2行
-            // A2和B2是合并单元格：显示"开始日期："+循环开始日期
-            LocalDateTime startDate = cycle.getStartDate() != null ? cycle.getStartDate() : cycle.getEstimatedStartDate();
-            if (startDate != null) {
-                // 只显示日期部分（yyyy-MM-dd格式）
-                String startDateStr = startDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                cellValues.put("A2", TemplateCellValue.string("开始日期：" + startDateStr));
-            } else {
-                cellValues.put("A2", TemplateCellValue.string("开始日期："));
-            }
-            // C2和D2是合并单元格：显示"结束日期："+循环结束日期
-            // 如果循环没有结束（endDate为null），不使用预计结束时间，只显示"结束日期："
-            if (cycle.getEndDate() != null) {
-                // 只显示日期部分（yyyy-MM-dd格式）
-                String endDateStr = cycle.getEndDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                cellValues.put("C2", TemplateCellValue.string("结束日期：" + endDateStr));
-            } else {
-                cellValues.put("C2", TemplateCellValue.string("结束日期："));
-            }
-            // E2：循环里程：+循环里程（优先使用实际里程，其次预估里程）
-            BigDecimal mileage = cycle.getActualMileage() != null ? cycle.getActualMileage() : cycle.getEstimatedMileage();
-            if (mileage != null) {
-                cellValues.put("E2", TemplateCellValue.string("循环里程：" + mileage));
-            } else {
-                cellValues.put("E2", TemplateCellValue.string("循环里程："));
-            }
-            // F2：围岩等级：+围岩等级
-            if (cycle.getRockLevel() != null) {
-                cellValues.put("F2", TemplateCellValue.string("围岩等级：" + cycle.getRockLevel()));
-            } else {
-                cellValues.put("F2", TemplateCellValue.string("围岩等级："));
-            }
-            // I2：进尺长度：*m（*替换为实际进尺长度）
-            if (cycle.getAdvanceLength() != null) {
-                cellValues.put("I2", TemplateCellValue.string("进尺长度：" + cycle.getAdvanceLength().toPlainString() + "m"));
-            } else {
-                cellValues.put("I2", TemplateCellValue.string("进尺长度：m"));
-            }
-            
-            String fileName = (tunnelName.isEmpty() ? "" : tunnelName + "-") + siteName + "-工序时间统计表.xlsx";
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-Disposition", "attachment; filename=\"" + java.net.URLEncoder.encode(fileName, java.nio.charset.StandardCharsets.UTF_8) + "\"");
-            
-            // 先写入内存，确保文件完整，再输出到响应流，避免被中途截断导致"文件损坏"
-            try (java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-                 ExcelWriter writer = EasyExcel.write(bos)
-                         .withTemplate(templateFile)
-                         .inMemory(true) // 使用内存模式，避免 SXSSF 对已存在行的限制
-                         .autoCloseStream(false)
-                         .registerWriteHandler(new NewTemplateCellWriteHandler(cellValues, processes, userMapper))
-                         .build()) {
-                WriteSheet sheet = EasyExcel.writerSheet(0).build();
-                // 写入空数据以触发模板和处理器
-                writer.fill(new ArrayList<>(), sheet);
-                writer.finish();
-                
-                // 输出到响应流
-                byte[] data = bos.toByteArray();
-                response.setContentLength(data.length);
-                try (var out = response.getOutputStream()) {
-                    out.write(data);
-                    out.flush();
-                }
-            }
+            // 直接写入响应流，不再整体缓存到字节数组
+            writeCycleReport(cellValues, processes, operatorNames, response.getOutputStream());
             response.flushBuffer();
         } catch (IOException e) {
             log.error("导出循环报表失败，循环ID: {}", cycleId, e);
             throw new BusinessException("导出循环报表失败");
+        } finally {
+            reportTemplateCache.releaseExportPermit();
+        }
+    }
+    
+    /**
+     * 构建循环报表表头单元格（标题、开始/结束日期、里程、围岩等级、进尺）
+     */
+    private Map<String, TemplateCellValue> buildCycleReportCellValues(Cycle cycle, String siteName) {
+        Map<String, TemplateCellValue> cellValues = new HashMap<>();
+        
+        // 第一行：隧道名称+工点名称+工序时间统计表
+        String title = siteName + "工序时间统计表";
+        cellValues.put("A1", TemplateCellValue.string(title));
+        
+        // 第2行
+        // A2和B2是合并单元格：显示"开始日期："+循环开始日期
+        LocalDateTime startDate = cycle.getStartDate() != null ? cycle.getStartDate() : cycle.getEstimatedStartDate();
+        if (startDate != null) {
+            // 只显示日期部分（yyyy-MM-dd格式）
+            String startDateStr = startDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            cellValues.put("A2", TemplateCellValue.string("开始日期：" + startDateStr));
+        } else {
+            cellValues.put("A2", TemplateCellValue.string("开始日期："));
+        }
+        // C2和D2是合并单元格：显示"结束日期："+循环结束日期
+        // 如果循环没有结束（endDate为null），不使用预计结束时间，只显示"结束日期："
+        if (cycle.getEndDate() != null) {
+            // 只显示日期部分（yyyy-MM-dd格式）
+            String endDateStr = cycle.getEndDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            cellValues.put("C2", TemplateCellValue.string("结束日期：" + endDateStr));
+        } else {
+            cellValues.put("C2", TemplateCellValue.string("结束日期："));
+        }
+        // E2：循环里程：+循环里程（优先使用实际里程，其次预估里程）
+        BigDecimal mileage = cycle.getActualMileage() != null ? cycle.getActualMileage() : cycle.getEstimatedMileage();
+        if (mileage != null) {
+            cellValues.put("E2", TemplateCellValue.string("循环里程：" + mileage));
+        } else {
+            cellValues.put("E2", TemplateCellValue.string("循环里程："));
+        }
+        // F2：围岩等级：+围岩等级
+        if (cycle.getRockLevel() != null) {
+            cellValues.put("F2", TemplateCellValue.string("围岩等级：" + cycle.getRockLevel()));
+        } else {
+            cellValues.put("F2", TemplateCellValue.string("围岩等级："));
+        }
+        // I2：进尺长度：*m（*替换为实际进尺长度）
+        if (cycle.getAdvanceLength() != null) {
+            cellValues.put("I2", TemplateCellValue.string("进尺长度：" + cycle.getAdvanceLength().toPlainString() + "m"));
+        } else {
+            cellValues.put("I2", TemplateCellValue.string("进尺长度：m"));
+        }
+        return cellValues;
+    }
+    
+    /**
+     * 按新模板填充循环报表并写入输出流（不关闭输出流）
+     * 模板从缓存的字节打开；使用内存模式，避免 SXSSF 对模板中已存在行的限制
+     */
+    private void writeCycleReport(Map<String, TemplateCellValue> cellValues, List<Process> processes,
+                                  Map<Long, String> operatorNames, OutputStream out) {
+        try (ExcelWriter writer = EasyExcel.write(out)
+                .withTemplate(reportTemplateCache.openCycleReportTemplate())
+                .inMemory(true)
+                .autoCloseStream(false)
+                .registerWriteHandler(new NewTemplateCellWriteHandler(cellValues, processes, operatorNames))
+                .build()) {
+            WriteSheet sheet = EasyExcel.writerSheet(0).build();
+            // 写入空数据以触发模板和处理器
+            writer.fill(new ArrayList<>(), sheet);
+        }
+    }
+    
+    /**
+     * 获取工点所属隧道名称，父节点不是隧道时返回空字符串
+     */
+    private String resolveTunnelName(Project site) {
+        if (site.getParentId() != null) {
+            Project tunnel = projectMapper.selectById(site.getParentId());
+            if (tunnel != null && "TUNNEL".equals(tunnel.getNodeType())) {
+                return tunnel.getProjectName();
+            }
+        }
+        return "";
+    }
+    
+    @Override
+    public ReportExportJobResponse submitCycleReportExportJob(CycleReportExportJobRequest request) {
+        log.info("提交循环报表批量导出任务，工点ID: {}, 开始日期: {}, 结束日期: {}",
+                request.getProjectId(), request.getStartDate(), request.getEndDate());
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new BusinessException("结束日期不能早于开始日期");
+        }
+        Project site = projectMapper.selectById(request.getProjectId());
+        if (site == null) {
+            throw new BusinessException(ResultCode.PROJECT_NOT_FOUND);
+        }
+        
+        // 按开始时间筛选日期范围内的循环，按循环号排列
+        List<Cycle> cycles = lambdaQuery()
+                .eq(Cycle::getProjectId, site.getId())
+                .ge(Cycle::getStartDate, request.getStartDate().atStartOfDay())
+                .lt(Cycle::getStartDate, request.getEndDate().plusDays(1).atStartOfDay())
+                .orderByAsc(Cycle::getCycleNumber)
+                .list();
+        if (cycles.isEmpty()) {
+            throw new BusinessException("所选日期范围内没有循环");
+        }
+        if (cycles.size() > maxExportJobCycles) {
+            throw new BusinessException("单次最多导出" + maxExportJobCycles + "个循环，请缩小日期范围");
+        }
+        
+        String tunnelName = resolveTunnelName(site);
+        DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+        String fileName = (tunnelName.isEmpty() ? "" : tunnelName + "-") + site.getProjectName() + "-循环报表-"
+                + request.getStartDate().format(dayFormatter) + "-" + request.getEndDate().format(dayFormatter) + ".zip";
+        return reportExportJobManager.submit(SecurityUtils.getCurrentUserId(), fileName, cycles.size(),
+                (job, out) -> writeCycleReportZip(site.getProjectName(), cycles, job, out));
+    }
+    
+    /**
+     * 将多个循环的报表写入ZIP（每个循环一个Excel文件）
+     * 所有循环的工序和操作员在开始前一次性查询
+     */
+    private void writeCycleReportZip(String siteName, List<Cycle> cycles, ReportExportJobManager.ExportJob job,
+                                     OutputStream out) throws IOException {
+        List<Long> cycleIds = cycles.stream().map(Cycle::getId).collect(Collectors.toList());
+        List<Process> allProcesses = processService.lambdaQuery()
+                .in(Process::getCycleId, cycleIds)
+                .list();
+        Map<Long, List<Process>> processesByCycle = allProcesses.stream()
+                .collect(Collectors.groupingBy(Process::getCycleId));
+        Map<Long, String> operatorNames = userService.getDisplayNames(allProcesses.stream()
+                .map(Process::getOperatorId)
+                .collect(Collectors.toList()));
+        
+        DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("yyyyMMdd");
+        try (ZipOutputStream zip = new ZipOutputStream(out, java.nio.charset.StandardCharsets.UTF_8)) {
+            for (Cycle cycle : cycles) {
+                List<Process> processes = new ArrayList<>(processesByCycle.getOrDefault(cycle.getId(), Collections.emptyList()));
+                processes.sort(Comparator.comparing(Process::getStartOrder, Comparator.nullsLast(Integer::compareTo)));
+                String startDay = cycle.getStartDate() != null ? cycle.getStartDate().format(dayFormatter) : "未开始";
+                zip.putNextEntry(new ZipEntry(String.format("第%d循环-%s.xlsx", cycle.getCycleNumber(), startDay)));
+                // POI 遇到 ZipOutputStream 会直接往里写工作簿内部文件，且写完会关闭流，需要包一层
+                writeCycleReport(buildCycleReportCellValues(cycle, siteName), processes, operatorNames,
+                        new NonClosingOutputStream(zip));
+                zip.closeEntry();
+                job.markFinished();
+            }
+        }
+    }
+    
+    @Override
+    public ReportExportJobResponse getCycleReportExportJob(String jobId) {
+        return reportExportJobManager.getJob(jobId, SecurityUtils.getCurrentUserId()).toResponse();
+    }
+    
+    @Override
+    public void downloadCycleReportExportJob(String jobId, HttpServletResponse response) {
+        ReportExportJobManager.ExportJob job = reportExportJobManager.getJob(jobId, SecurityUtils.getCurrentUserId());
+        File file = job.getFile();
+        if (file == null || !file.exists()) {
+            throw new BusinessException("导出任务尚未完成");
+        }
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + java.net.URLEncoder.encode(job.getFileName(), java.nio.charset.StandardCharsets.UTF_8) + "\"");
+        response.setContentLengthLong(file.length());
+        try {
+            java.nio.file.Files.copy(file.toPath(), response.getOutputStream());
+            response.flushBuffer();
+        } catch (IOException e) {
+            log.error("下载循环报表导出文件失败，任务ID: {}", jobId, e);
+            throw new BusinessException("下载导出文件失败");
         }
     }
     
@@ -814,6 +977,14 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
     @Override
     public CycleReportDataResponse getCycleReportData(Long cycleId) {
         log.info("获取循环报表数据，循环ID: {}", cycleId);
+        // 已完成循环的报表快照直接返回
+        CycleReportDataResponse cached = cycleReportCache.get(cycleId);
+        if (cached != null) {
+            log.debug("命中循环报表快照，循环ID: {}", cycleId);
+            return cached;
+        }
+        long cacheVersion = cycleReportCache.currentVersion();
+        
         Cycle cycle = getById(cycleId);
         if (cycle == null) {
             throw new BusinessException(ResultCode.CYCLE_NOT_FOUND);
@@ -821,12 +992,16 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         Project project = projectMapper.selectById(cycle.getProjectId());
         String projectName = project != null ? project.getProjectName() : "循环报表";
         
-        // 计算时间信息
-        CycleTimeInfo timeInfo = calculateCycleTimeInfo(cycle, cycleId);
+        // 计算时间信息（上一循环只用于取响炮时间）
+        Cycle lastCycle = getCycleByProjectAndNumber(cycle.getProjectId(), cycle.getCycleNumber() - 1);
+        CycleTimeInfo timeInfo = calculateCycleTimeInfo(cycle, lastCycle);
         Double controlHours = timeInfo.controlMinutes != null ? timeInfo.controlMinutes / 60.0 : null;
         
-        // 获取工序列表
+        // 获取工序列表，操作员姓名一次批量查询
         List<Process> processes = processService.getProcessesByCycleId(cycleId);
+        Map<Long, String> operatorNames = userService.getDisplayNames(processes.stream()
+                .map(Process::getOperatorId)
+                .collect(Collectors.toList()));
         
         // 构建响应对象
         CycleReportDataResponse response = new CycleReportDataResponse();
@@ -957,6 +1132,11 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
             // 工序类别（来自工序字典的 category）
             processRow.setCategory(process.getCategory());
             
+            // H列：操作人员
+            if (process.getOperatorId() != null) {
+                processRow.setOperatorName(operatorNames.get(process.getOperatorId()));
+            }
+            
             processList.add(processRow);
         }
         response.setProcessList(processList);
@@ -1000,9 +1180,24 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         }
         response.setSummary(summary);
         
+        // 已完成且不含进行中工序的循环，报表不再随当前时间变化，缓存快照
+        if (isReportFinal(cycle, processes)) {
+            cycleReportCache.put(cycleId, cacheVersion, response);
+        }
         return response;
     }
     
+    /**
+     * 判断循环报表是否已定型：循环已完成且有结束时间，且没有只开始未结束的工序（耗时按当前时间计算）
+     */
+    private static boolean isReportFinal(Cycle cycle, List<Process> processes) {
+        if (!"COMPLETED".equals(cycle.getStatus()) || cycle.getEndDate() == null) {
+            return false;
+        }
+        return processes.stream()
+                .noneMatch(process -> process.getActualStartTime() != null && process.getActualEndTime() == null);
+    }
+    
     /**
      * 获取工序状态描述
      */
@@ -1064,28 +1259,6 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         return hrs + "小时" + mins + "分钟";
     }
     
-    /**
-     * 从 static 目录查找新模板文件（工序时间统计表.xlsx）
-     */
-    private File findNewTemplateFile() {
-        try {
-            Resource resource = resourceLoader.getResource("classpath:static/工序时间统计表.xlsx");
-            if (resource.exists()) {
-                try {
-                    return resource.getFile();
-                } catch (IOException e) {
-                    log.debug("模板文件在jar包中，复制到临时文件: {}", e.getMessage());
-                    return copyResourceToTempFile(resource);
-                }
-            }
-            log.warn("未找到报表模板文件（static目录下的工序时间统计表.xlsx）");
-            return null;
-        } catch (Exception e) {
-            log.error("查找报表模板文件失败", e);
-            return null;
-        }
-    }
-    
     /**
      * 从 static 目录查找模板文件
      * 优先查找 classpath:static/模版.xlsx，如果不存在则查找第一个 .xlsx 文件
@@ -1909,29 +2082,14 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
 
     
     /**
-     * 获取循环中"装药爆破"工序的结束时间（响炮时间）
-     * 优先使用实际结束时间，其次使用预计结束时间
-     * 
-     * @param cycleId 循环ID
-     * @return 装药爆破工序的结束时间，如果未找到该工序则返回null
+     * 循环开始时间变化后，工序统计归属的日期随之变化，需要同时刷新新旧两天的工点每日统计
      */
-    private LocalDateTime getBlastTimeByCycleId(Long cycleId) {
-        if (cycleId == null) {
-            return null;
-        }
-        List<Process> processes = processService.getProcessesByCycleId(cycleId);
-        for (Process process : processes) {
-            // 查找工序名称为"装药爆破"的工序
-            if ("装药爆破".equals(process.getProcessName())) {
-                // 优先使用实际结束时间，其次使用预计结束时间
-                if (process.getActualEndTime() != null) {
-                    return process.getActualEndTime();
-                } else if (process.getEstimatedEndTime() != null) {
-                    return process.getEstimatedEndTime();
-                }
-            }
+    private void refreshDailyStatIfStartDateChanged(Cycle cycle, LocalDateTime oldStartDate) {
+        if (Objects.equals(oldStartDate, cycle.getStartDate())) {
+            return;
         }
-        return null;
+        siteDailyProcessStatService.refreshSiteDay(cycle.getProjectId(), oldStartDate);
+        siteDailyProcessStatService.refreshSiteDay(cycle.getProjectId(), cycle.getStartDate());
     }
     
     /**
@@ -1948,46 +2106,22 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
     public TemplateControlDurationResponse getTemplateControlDuration(Long templateId) {
         log.info("获取模板控制时长，模板ID: {}", templateId);
         
-        // 根据templateId获取模板工序（template_process表）
-        TemplateProcess templateProcess = templateProcessMapper.selectById(templateId);
-        if (templateProcess == null) {
-            log.error("获取模板控制时长失败，模板工序不存在，模板ID: {}", templateId);
-            throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
-        }
-        
-        // 根据 template_id 查询模板信息
-        Template template = templateMapper.selectById(templateProcess.getTemplateId());
+        // templateId 为 template_process 表主键，从模板注册表获取其所属模板
+        TemplateRegistry.TemplateSnapshot template = templateRegistry.getTemplateByStepId(templateId);
         if (template == null) {
-            log.error("获取模板控制时长失败，模板不存在，模板ID: {}", templateProcess.getTemplateId());
-            throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
-        }
-        
-        // 根据模板ID获取该模板下的所有工序模板
-        List<TemplateProcess> templateProcesses = templateProcessMapper.selectList(new LambdaQueryWrapper<TemplateProcess>()
-                .eq(TemplateProcess::getTemplateId, template.getId())
-                .eq(TemplateProcess::getDeleted, 0)
-                .orderByAsc(TemplateProcess::getDefaultOrder));
-        
-        if (templateProcesses.isEmpty()) {
-            log.error("获取模板控制时长失败，模板没有工序定义，模板ID: {}, 模板名称: {}", 
-                    template.getId(), template.getTemplateName());
+            log.error("获取模板控制时长失败，模板工序不存在，模板ID: {}", templateId);
             throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
         }
         
-        // 计算控制时长：模板中所有工序的控制时间总和
-        Integer controlDuration = templateProcesses.stream()
-                .filter(tp -> tp.getControlTime() != null && tp.getControlTime() > 0)
-                .mapToInt(TemplateProcess::getControlTime)
-                .sum();
-        
+        // 控制时长：模板中所有工序的控制时间总和（注册表加载时已计算）
+        Integer controlDuration = template.getControlDuration();
         log.info("计算模板控制时长，模板名称: {}, 工序数量: {}, 控制时长总和: {}分钟", 
-                template.getTemplateName(), templateProcesses.size(), controlDuration);
+                template.getTemplateName(), template.getSteps().size(), controlDuration);
         
-        // 如果控制时长为0或null，设置为0（前端可以显示，但创建循环时会校验）
-        if (controlDuration == null || controlDuration <= 0) {
-            controlDuration = 0;
+        // 如果控制时长为0，前端可以显示，但创建循环时会校验
+        if (controlDuration <= 0) {
             log.warn("模板控制时长为0或无效，模板ID: {}, 模板名称: {}, 工序数量: {}", 
-                    templateId, template.getTemplateName(), templateProcesses.size());
+                    templateId, template.getTemplateName(), template.getSteps().size());
         }
         
         // 构建响应
@@ -2070,52 +2204,27 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
             }
         }
         
-        // 根据 templateId 获取模板信息
-        TemplateProcess templateProcess = templateProcessMapper.selectOne(
-                new LambdaQueryWrapper<TemplateProcess>()
-                        .eq(TemplateProcess::getTemplateId, request.getTemplateId())
-                        .eq(TemplateProcess::getDeleted, 0)
-                        .orderByAsc(TemplateProcess::getDefaultOrder)
-                        .last("LIMIT 1"));
-        if (templateProcess == null) {
-            log.error("补填循环失败，模板工序不存在，模板ID: {}", request.getTemplateId());
-            throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
-        }
-        
-        Template template = templateMapper.selectById(templateProcess.getTemplateId());
-        if (template == null) {
-            log.error("补填循环失败，模板不存在，模板ID: {}", templateProcess.getTemplateId());
+        // 从模板注册表获取模板（templateId 为 template 表主键）
+        TemplateRegistry.TemplateSnapshot template = templateRegistry.getTemplate(request.getTemplateId());
+        if (template == null || template.getSteps().isEmpty()) {
+            log.error("补填循环失败，模板不存在或没有工序定义，模板ID: {}", request.getTemplateId());
             throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
         }
         
         // 验证该工点是否关联了该模板
-        ProjectTemplate projectTemplate = projectTemplateMapper.selectOne(new LambdaQueryWrapper<ProjectTemplate>()
-                .eq(ProjectTemplate::getProjectId, request.getProjectId())
-                .eq(ProjectTemplate::getTemplateId, request.getTemplateId())
-                .eq(ProjectTemplate::getDeleted, 0)
-                .last("LIMIT 1"));
-        
-        if (projectTemplate == null) {
+        if (!templateRegistry.isBoundToSite(request.getProjectId(), template.getTemplateId())) {
             log.error("补填循环失败，该工点未关联该模板，工点ID: {}, 模板ID: {}", 
-                    request.getProjectId(), template.getId());
+                    request.getProjectId(), template.getTemplateId());
             throw new BusinessException("该工点未关联该模板");
         }
         
-        // 根据模板名称获取该模板下的所有工序模板
-        List<ProcessTemplate> templates = processTemplateService.getTemplatesByName(template.getTemplateName());
-        if (templates.isEmpty()) {
-            log.error("补填循环失败，模板没有工序定义，模板ID: {}, 模板名称: {}", 
-                    template.getId(), template.getTemplateName());
-            throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
-        }
+        // 该模板下的所有工序模板
+        List<ProcessTemplate> templates = template.toProcessTemplates(null);
         
-        // 计算控制时长
-        Integer controlDuration = templates.stream()
-                .filter(t -> t.getControlTime() != null && t.getControlTime() > 0)
-                .mapToInt(ProcessTemplate::getControlTime)
-                .sum();
+        // 控制时长（注册表加载时已计算）
+        Integer controlDuration = template.getControlDuration();
         
-        if (controlDuration == null || controlDuration <= 0) {
+        if (controlDuration <= 0) {
             log.error("补填循环失败，控制时长无效，工点ID: {}, 模板名称: {}, 控制时长: {}", 
                     request.getProjectId(), template.getTemplateName(), controlDuration);
             throw new BusinessException("模板中工序的控制时间总和无效，无法补填循环");
@@ -2127,20 +2236,22 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
                 request.getProjectId(), request.getStartDate(), targetCycleNumber);
         
         Cycle cycle;
+        LocalDateTime oldStartDate = null;
         if (cycleId != null) {
             // 更新现有循环
             cycle = getById(cycleId);
             if (cycle == null) {
                 throw new BusinessException(ResultCode.CYCLE_NOT_FOUND);
             }
+            oldStartDate = cycle.getStartDate();
             
             // 如果循环号需要改变，先调整其他循环的cycleNumber
             Integer currentCycleNumber = cycle.getCycleNumber();
             if (!targetCycleNumber.equals(currentCycleNumber)) {
                 log.info("补填循环需要调整循环号，循环ID: {}, 原循环号: {}, 目标循环号: {}", 
                         cycleId, currentCycleNumber, targetCycleNumber);
-                // 调整其他循环的cycleNumber（排除当前循环）
-                adjustCycleNumbersForUpdate(cycleId, request.getProjectId(), currentCycleNumber, targetCycleNumber);
+                // 当前循环移动到目标循环号，其他循环依次补位
+                cycleNumberShifter.shiftForMove(cycleId, request.getProjectId(), currentCycleNumber, targetCycleNumber);
                 cycle.setCycleNumber(targetCycleNumber);
             }
         } else {
@@ -2163,8 +2274,8 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
                 // 目标位置被正常记录占用，需要调整循环号
                 log.info("目标循环号被正常记录占用，调整循环号，项目ID: {}, 目标循环号: {}", 
                         request.getProjectId(), targetCycleNumber);
-                // 调整 >= targetCycleNumber 的所有循环（从大到小调整，避免重复）
-                adjustCycleNumbersForInsert(request.getProjectId(), targetCycleNumber);
+                // 调整 >= targetCycleNumber 的所有循环
+                cycleNumberShifter.shiftForInsert(request.getProjectId(), targetCycleNumber);
                 // 调整后，再次检查是否还有 deleted=1 的记录占用
                 deletedCycle = baseMapper.selectByProjectIdAndCycleNumberIncludeDeleted(
                         request.getProjectId(), targetCycleNumber);
@@ -2185,7 +2296,7 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
                         .ge(Cycle::getCycleNumber, targetCycleNumber));
                 if (count > 0) {
                     // 有循环需要调整
-                    adjustCycleNumbersForInsert(request.getProjectId(), targetCycleNumber);
+                    cycleNumberShifter.shiftForInsert(request.getProjectId(), targetCycleNumber);
                 }
                 // 调整后，再次检查是否有 deleted=1 的记录占用
                 deletedCycle = baseMapper.selectByProjectIdAndCycleNumberIncludeDeleted(
@@ -2237,6 +2348,7 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         if (cycleId != null) {
             // 更新现有循环
             updateById(cycle);
+            refreshDailyStatIfStartDateChanged(cycle, oldStartDate);
         } else {
             // 创建新循环
             save(cycle);
@@ -2249,9 +2361,12 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         if (cycleId == null || processService.getProcessesByCycleId(cycle.getId()).isEmpty()) {
             // 新建循环或循环下没有工序，创建工序（不设置时间）
             createProcessesFromTemplate(cycle.getId(), request.getProjectId(), 
-                    template.getTemplateName(), request.getStartDate(), userId);
+                    template.getTemplateName(), templates, request.getStartDate(), userId);
         }
         // 如果循环已存在且有工序，不更新工序，工序之后自行补填
+        cycleReportCache.invalidate();
+        constructionEventBroadcaster.publishCycleChange(
+                cycleId == null ? ConstructionEventType.CYCLE_CREATED : ConstructionEventType.CYCLE_UPDATED, cycle);
         
         return convertToResponse(cycle);
     }
@@ -2265,93 +2380,14 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
      * @param excludeCycleId 要排除的循环ID（如果补填的是已存在的循环，需要排除它自己）
      */
     private Integer calculateTargetCycleNumber(Long projectId, LocalDateTime startDate, Long excludeCycleId) {
-        // 获取该工点下的所有循环，按开始时间排序（排除当前循环）
-        LambdaQueryWrapper<Cycle> wrapper = new LambdaQueryWrapper<Cycle>()
-                .eq(Cycle::getProjectId, projectId)
-                .isNotNull(Cycle::getStartDate)
-                .orderByAsc(Cycle::getStartDate)
-                .orderByAsc(Cycle::getCycleNumber);
-        
-        if (excludeCycleId != null) {
-            wrapper.ne(Cycle::getId, excludeCycleId);
-        }
-        
-        List<Cycle> cycles = list(wrapper);
-        
-        if (cycles.isEmpty()) {
-            // 没有其他循环，返回1
-            return 1;
-        }
-        
-        // 找到第一个开始时间晚于补填循环开始时间的循环
-        for (Cycle cycle : cycles) {
-            if (cycle.getStartDate() != null && cycle.getStartDate().isAfter(startDate)) {
-                // 补填循环应该插入到这个循环之前，使用这个循环的cycleNumber
-                return cycle.getCycleNumber();
-            }
-        }
-        
-        // 如果所有循环的开始时间都早于补填循环，补填循环应该放在最后
-        Cycle latestCycle = getLatestCycleByProjectId(projectId);
-        if (latestCycle != null && !latestCycle.getId().equals(excludeCycleId)) {
-            return latestCycle.getCycleNumber() + 1;
-        }
-        // 如果最新循环就是当前循环，需要找到真正的最大循环号
-        if (excludeCycleId != null) {
-            Cycle maxCycle = list(new LambdaQueryWrapper<Cycle>()
-                    .eq(Cycle::getProjectId, projectId)
-                    .ne(Cycle::getId, excludeCycleId)
-                    .orderByDesc(Cycle::getCycleNumber)
-                    .last("LIMIT 1"))
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
-            return maxCycle != null ? maxCycle.getCycleNumber() + 1 : 1;
-        }
-        return latestCycle != null ? latestCycle.getCycleNumber() + 1 : 1;
-    }
-    
-    /**
-     * 调整循环号：将指定位置及之后的所有循环的 cycleNumber +1
-     * 用于在插入补填循环时避免循环号冲突
-     * 注意：从大到小调整，避免调整过程中出现重复
-     */
-    private void adjustCycleNumbersForInsert(Long projectId, Integer targetCycleNumber) {
-        log.debug("调整循环号（插入模式），项目ID: {}, 目标循环号: {}", projectId, targetCycleNumber);
-        
-        // 获取所有需要调整的循环（cycleNumber >= targetCycleNumber）
-        // 从大到小排序，避免调整过程中出现重复
-        List<Cycle> cyclesToAdjust = list(new LambdaQueryWrapper<Cycle>()
-                .eq(Cycle::getProjectId, projectId)
-                .ge(Cycle::getCycleNumber, targetCycleNumber)
-                .orderByDesc(Cycle::getCycleNumber));
-        
-        if (cyclesToAdjust.isEmpty()) {
-            log.debug("没有需要调整的循环，项目ID: {}, 目标循环号: {}", projectId, targetCycleNumber);
-            return;
-        }
-        
-        log.info("开始调整循环号，项目ID: {}, 目标循环号: {}, 需要调整的循环数: {}", 
-                projectId, targetCycleNumber, cyclesToAdjust.size());
-        
-        // 从大到小批量更新：每个循环的 cycleNumber +1
-        // 这样可以避免在调整过程中出现重复的cycleNumber
-        // 使用批量更新确保事务一致性
-        for (Cycle cycle : cyclesToAdjust) {
-            Integer oldCycleNumber = cycle.getCycleNumber();
-            Integer newCycleNumber = oldCycleNumber + 1;
-            cycle.setCycleNumber(newCycleNumber);
-            boolean updated = updateById(cycle);
-            if (updated) {
-                log.debug("调整循环号成功，循环ID: {}, 原循环号: {}, 新循环号: {}", 
-                        cycle.getId(), oldCycleNumber, newCycleNumber);
-            } else {
-                log.warn("调整循环号失败，循环ID: {}, 原循环号: {}, 新循环号: {}", 
-                        cycle.getId(), oldCycleNumber, newCycleNumber);
-            }
-        }
-        
-        log.info("循环号调整完成（插入模式），项目ID: {}, 调整数量: {}", projectId, cyclesToAdjust.size());
+        // 第一个开始时间晚于补填循环开始时间的循环，补填循环插入到它之前，使用它的cycleNumber
+        Integer nextCycleNumber = baseMapper.selectFirstCycleNumberStartingAfter(projectId, startDate, excludeCycleId);
+        if (nextCycleNumber != null) {
+            return nextCycleNumber;
+        }
+        // 所有循环的开始时间都早于补填循环，补填循环放在最后
+        Integer maxCycleNumber = baseMapper.selectMaxCycleNumber(projectId, excludeCycleId);
+        return maxCycleNumber != null ? maxCycleNumber + 1 : 1;
     }
     
     /**
@@ -2379,62 +2415,6 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         }
     }
     
-    /**
-     * 调整循环号：用于更新已存在循环的循环号
-     * 根据原循环号和目标循环号，调整其他循环的cycleNumber
-     * 
-     * @param currentCycleId 当前循环ID（要排除）
-     * @param projectId 项目ID
-     * @param currentCycleNumber 当前循环号
-     * @param targetCycleNumber 目标循环号
-     */
-    private void adjustCycleNumbersForUpdate(Long currentCycleId, Long projectId, 
-                                             Integer currentCycleNumber, Integer targetCycleNumber) {
-        log.debug("调整循环号（更新模式），项目ID: {}, 当前循环ID: {}, 原循环号: {}, 目标循环号: {}", 
-                projectId, currentCycleId, currentCycleNumber, targetCycleNumber);
-        
-        if (currentCycleNumber.equals(targetCycleNumber)) {
-            // 循环号没有变化，不需要调整
-            return;
-        }
-        
-        if (currentCycleNumber < targetCycleNumber) {
-            // 循环号增大：将 currentCycleNumber+1 到 targetCycleNumber 之间的循环号都减1
-            List<Cycle> cyclesToAdjust = list(new LambdaQueryWrapper<Cycle>()
-                    .eq(Cycle::getProjectId, projectId)
-                    .ne(Cycle::getId, currentCycleId)
-                    .gt(Cycle::getCycleNumber, currentCycleNumber)
-                    .le(Cycle::getCycleNumber, targetCycleNumber)
-                    .orderByAsc(Cycle::getCycleNumber));
-            
-            for (Cycle cycle : cyclesToAdjust) {
-                Integer oldCycleNumber = cycle.getCycleNumber();
-                cycle.setCycleNumber(oldCycleNumber - 1);
-                updateById(cycle);
-                log.debug("调整循环号（减小），循环ID: {}, 原循环号: {}, 新循环号: {}", 
-                        cycle.getId(), oldCycleNumber, cycle.getCycleNumber());
-            }
-        } else {
-            // 循环号减小：将 targetCycleNumber 到 currentCycleNumber-1 之间的循环号都加1
-            List<Cycle> cyclesToAdjust = list(new LambdaQueryWrapper<Cycle>()
-                    .eq(Cycle::getProjectId, projectId)
-                    .ne(Cycle::getId, currentCycleId)
-                    .ge(Cycle::getCycleNumber, targetCycleNumber)
-                    .lt(Cycle::getCycleNumber, currentCycleNumber)
-                    .orderByAsc(Cycle::getCycleNumber));
-            
-            for (Cycle cycle : cyclesToAdjust) {
-                Integer oldCycleNumber = cycle.getCycleNumber();
-                cycle.setCycleNumber(oldCycleNumber + 1);
-                updateById(cycle);
-                log.debug("调整循环号（增大），循环ID: {}, 原循环号: {}, 新循环号: {}", 
-                        cycle.getId(), oldCycleNumber, cycle.getCycleNumber());
-            }
-        }
-        
-        log.info("循环号调整完成（更新模式），项目ID: {}", projectId);
-    }
-    
     /**
      * 新模板的单元格写入处理器
      * 从第4行开始填充工序信息，并在最后添加合计行
@@ -2443,12 +2423,13 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
         
         private final Map<String, TemplateCellValue> cellValues;
         private final List<Process> processes;
-        private final UserMapper userMapper;
+        private final Map<Long, String> operatorNames;
         
-        NewTemplateCellWriteHandler(Map<String, TemplateCellValue> cellValues, List<Process> processes, UserMapper userMapper) {
+        NewTemplateCellWriteHandler(Map<String, TemplateCellValue> cellValues, List<Process> processes, Map<Long, String> operatorNames) {
             this.cellValues = cellValues;
             this.processes = processes;
-            this.userMapper = userMapper;
+            // 写入回调中只读取预先查好的姓名，不访问数据库
+            this.operatorNames = Map.copyOf(operatorNames);
         }
         
         @Override
@@ -2616,9 +2597,8 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
                 
                 // H列：操作人员
                 if (process.getOperatorId() != null) {
-                    User user = userMapper.selectById(process.getOperatorId());
-                    if (user != null) {
-                        String operatorName = user.getRealName() != null ? user.getRealName() : user.getUsername();
+                    String operatorName = operatorNames.get(process.getOperatorId());
+                    if (operatorName != null) {
                         setCellValueWithFormat(row, 7, operatorName, templateFormatRow, 7);
                     } else {
                         applyCellFormat(row, 7, templateFormatRow, 7);
@@ -3059,5 +3039,24 @@ public class CycleServiceImpl extends ServiceImpl<CycleMapper, Cycle> implements
             }
         }
     }
+    
+    /**
+     * 关闭时只刷新、不关闭底层流，用于把多个工作簿依次写入同一个ZIP
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
-
@@ -2,6 +2,7 @@ package com.zzw.zzwgx.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zzw.zzwgx.cache.TemplateRegistry;
 import com.zzw.zzwgx.common.enums.ResultCode;
 import com.zzw.zzwgx.common.exception.BusinessException;
 import com.zzw.zzwgx.dto.request.CreateProcessCatalogRequest;
@@ -27,6 +28,8 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class ProcessCatalogServiceImpl extends ServiceImpl<ProcessCatalogMapper, ProcessCatalog> implements ProcessCatalogService {
+
+    private final TemplateRegistry templateRegistry;
     
     @Override
     public List<ProcessCatalogResponse> getAllProcessCatalogs() {
@@ -113,6 +116,8 @@ public class ProcessCatalogServiceImpl extends ServiceImpl<ProcessCatalogMapper,
                 throw new BusinessException(ResultCode.PROCESS_NAME_ALREADY_EXISTS);
             }
             catalog.setProcessName(request.getProcessName());
+            // 模板注册表中缓存了工序名称
+            templateRegistry.invalidate();
         }
         
         // 如果修改工序编码，检查是否重复
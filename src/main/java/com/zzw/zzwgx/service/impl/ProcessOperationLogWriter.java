@@ -0,0 +1,175 @@
+package com.zzw.zzwgx.service.impl;
+
+import com.zzw.zzwgx.dto.response.OperationLogWriterStats;
+import com.zzw.zzwgx.entity.ProcessOperationLog;
+import com.zzw.zzwgx.mapper.ProcessOperationLogMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工序操作日志异步写入器
+ * 日志在事务提交后进入有界队列，由后台线程批量写入，不占用工序开始/完成/补填的事务时间。
+ * 队列满时调用方最多等待 offer-timeout-ms，仍无空位则丢弃并计数；应用关闭时会把队列中的日志写完。
+ */
+@Slf4j
+@Component
+public class ProcessOperationLogWriter {
+
+    private final ProcessOperationLogMapper processOperationLogMapper;
+    private final BlockingQueue<ProcessOperationLog> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile boolean stopped;
+    private Thread worker;
+
+    public ProcessOperationLogWriter(ProcessOperationLogMapper processOperationLogMapper,
+                                     @Value("${process.operation-log.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${process.operation-log.batch-size:200}") int batchSize,
+                                     @Value("${process.operation-log.offer-timeout-ms:200}") long offerTimeoutMillis,
+                                     @Value("${process.operation-log.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this.processOperationLogMapper = processOperationLogMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::runLoop, "process-operation-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交日志：在事务中调用时，事务提交后才入队（回滚则丢弃），否则立即入队
+     */
+    public void submit(ProcessOperationLog operationLog) {
+        submitAll(List.of(operationLog));
+    }
+
+    public void submitAll(Collection<ProcessOperationLog> operationLogs) {
+        if (operationLogs == null || operationLogs.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<ProcessOperationLog> pending = new ArrayList<>(operationLogs);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.forEach(ProcessOperationLogWriter.this::enqueue);
+                }
+            });
+            return;
+        }
+        operationLogs.forEach(this::enqueue);
+    }
+
+    /**
+     * 当前统计信息
+     */
+    public OperationLogWriterStats getStats() {
+        OperationLogWriterStats stats = new OperationLogWriterStats();
+        stats.setQueueDepth(queue.size());
+        stats.setRemainingCapacity(queue.remainingCapacity());
+        stats.setEnqueuedCount(enqueuedCount.get());
+        stats.setWrittenCount(writtenCount.get());
+        stats.setDroppedCount(droppedCount.get());
+        stats.setFailedCount(failedCount.get());
+        return stats;
+    }
+
+    private void enqueue(ProcessOperationLog operationLog) {
+        boolean accepted;
+        try {
+            // 队列满时短暂阻塞调用方，形成背压
+            accepted = !stopped && queue.offer(operationLog, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (accepted) {
+            enqueuedCount.incrementAndGet();
+        } else {
+            long dropped = droppedCount.incrementAndGet();
+            log.warn("工序操作日志队列已满或写入器已停止，丢弃日志，processId: {}, action: {}, 累计丢弃: {}",
+                    operationLog.getProcessId(), operationLog.getAction(), dropped);
+        }
+    }
+
+    private void runLoop() {
+        List<ProcessOperationLog> batch = new ArrayList<>(batchSize);
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                ProcessOperationLog first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // 关闭时被中断，剩余日志在 stop() 中写完
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<ProcessOperationLog> batch) {
+        try {
+            processOperationLogMapper.insertBatch(batch);
+            writtenCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(batch.size());
+            log.warn("批量写入工序操作日志失败，数量: {}, error: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭时停止接收新日志，并把队列中剩余日志写完
+     */
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (worker != null) {
+            try {
+                worker.join(shutdownTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        }
+        List<ProcessOperationLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            writeBatch(remaining.subList(i, Math.min(i + batchSize, remaining.size())));
+        }
+        log.info("工序操作日志写入器已停止，累计写入: {}, 丢弃: {}, 失败: {}",
+                writtenCount.get(), droppedCount.get(), failedCount.get());
+    }
+}
@@ -4,6 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zzw.zzwgx.cache.CycleReportCache;
+import com.zzw.zzwgx.cache.ProjectHierarchyIndex;
+import com.zzw.zzwgx.common.enums.ConstructionEventType;
 import com.zzw.zzwgx.common.enums.ProcessStatus;
 import com.zzw.zzwgx.common.enums.ResultCode;
 import com.zzw.zzwgx.common.exception.BusinessException;
@@ -18,13 +21,14 @@ import com.zzw.zzwgx.entity.ProcessCatalog;
 import com.zzw.zzwgx.entity.ProcessOperationLog;
 import com.zzw.zzwgx.entity.Project;
 import com.zzw.zzwgx.entity.User;
+import com.zzw.zzwgx.event.ConstructionEventBroadcaster;
 import com.zzw.zzwgx.mapper.CycleMapper;
 import com.zzw.zzwgx.mapper.ProcessMapper;
 import com.zzw.zzwgx.mapper.ProjectMapper;
 import com.zzw.zzwgx.service.CycleService;
 import com.zzw.zzwgx.service.ProcessCatalogService;
-import com.zzw.zzwgx.service.ProcessOperationLogService;
 import com.zzw.zzwgx.service.ProcessService;
+import com.zzw.zzwgx.service.SiteDailyProcessStatService;
 import com.zzw.zzwgx.service.UserProjectService;
 import com.zzw.zzwgx.service.UserService;
 import com.zzw.zzwgx.security.SecurityUtils;
@@ -53,12 +57,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> implements ProcessService {
     
+    /** 装药爆破工序名称，其结束时间即循环的响炮时间 */
+    private static final String BLAST_PROCESS_NAME = "装药爆破";
+    
     private final CycleMapper cycleMapper;
     private final ProjectMapper projectMapper;
     private final UserService userService;
     private final ProcessCatalogService processCatalogService;
-    private final ProcessOperationLogService processOperationLogService;
+    private final ProcessOperationLogWriter processOperationLogWriter;
     private final UserProjectService userProjectService;
+    private final SiteDailyProcessStatService siteDailyProcessStatService;
+    private final ProjectHierarchyIndex projectHierarchyIndex;
+    private final ProcessTimeCascade processTimeCascade;
+    private final ConstructionEventBroadcaster constructionEventBroadcaster;
+    private final CycleReportCache cycleReportCache;
     
     @Lazy
     @Autowired
@@ -151,6 +163,7 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
                 request.getProcessCatalogId(), catalog.getProcessName(), request.getControlTime());
         
         save(process);
+        refreshBlastTimeIfBlasting(process);
         
         // 将工序的控制时间累加到循环的控制时间上
         if (request.getControlTime() != null && request.getControlTime() > 0) {
@@ -166,6 +179,7 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         }
         
         log.info("工序创建成功，工序ID: {}, 工序名称: {}", process.getId(), process.getProcessName());
+        constructionEventBroadcaster.publishProcessChange(ConstructionEventType.PROCESS_CREATED, process);
 
         return buildProcessResponse(process);
     }
@@ -391,6 +405,7 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         }
 
         save(process);
+        refreshBlastTimeIfBlasting(process);
         
         // 将工序的控制时间累加到循环的控制时间上
         if (request.getControlTime() != null && request.getControlTime() > 0) {
@@ -423,6 +438,11 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
             log.info("工序创建并开工成功，工序ID: {}, 工序名称: {}", process.getId(), process.getProcessName());
             logProcessOperation(process.getId(), request.getWorkerId(), "CREATE_AND_START", null);
         }
+        constructionEventBroadcaster.publishProcessChange(
+                ProcessStatus.IN_PROGRESS.getCode().equals(process.getProcessStatus())
+                        ? ConstructionEventType.PROCESS_STARTED
+                        : ConstructionEventType.PROCESS_CREATED,
+                process);
         return buildProcessResponse(process);
     }
     
@@ -487,80 +507,49 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         log.info("查询施工人员工序列表，用户ID: {}, 页码: {}, 大小: {}, 工点名称: {}, 状态: {}",
                 workerId, pageNum, pageSize, projectName, status);
 
-        // 先按施工人员和状态从工序表中查询
-        LambdaQueryWrapper<Process> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Process::getOperatorId, workerId);
-        if (status != null && !status.isEmpty()) {
-            wrapper.eq(Process::getProcessStatus, status);
-        }
-        wrapper.orderByDesc(Process::getCreateTime);
-
-        Page<Process> processPage = page(new Page<>(pageNum, pageSize), wrapper);
-        if (processPage.getRecords().isEmpty()) {
-            return new Page<>(pageNum, pageSize, 0);
-        }
-
-        // 关联查询循环和项目名称
-        List<Process> processes = processPage.getRecords();
-        List<Long> cycleIds = processes.stream().map(Process::getCycleId).distinct().toList();
-        List<Cycle> cycles = cycleIds.isEmpty()
-                ? Collections.emptyList()
-                : cycleMapper.selectBatchIds(cycleIds);
-        Map<Long, Cycle> cycleMap = cycles.stream().collect(Collectors.toMap(Cycle::getId, c -> c));
-
-        List<Long> projectIds = cycles.stream().map(Cycle::getProjectId).distinct().toList();
-        List<Project> projects = projectIds.isEmpty()
-                ? Collections.emptyList()
-                : projectMapper.selectBatchIds(projectIds);
-        Map<Long, Project> projectMap = projects.stream().collect(Collectors.toMap(Project::getId, p -> p));
-
-        // 映射为响应DTO，并在内存中根据项目名称做过滤
-        List<WorkerProcessListResponse> all = new ArrayList<>();
-        for (Process p : processes) {
-            Cycle cycle = cycleMap.get(p.getCycleId());
-            if (cycle == null) {
-                continue;
-            }
-            Project project = projectMap.get(cycle.getProjectId());
-            String projName = project != null ? project.getProjectName() : null;
-
-            // 工点名称模糊过滤
-            if (projectName != null && !projectName.isEmpty()) {
-                if (projName == null || !projName.contains(projectName)) {
-                    continue;
-                }
-            }
+        // 一条关联查询完成工点名称过滤和分页，分页总数与过滤条件一致
+        Page<WorkerProcessListResponse> result = baseMapper.selectWorkerProcessPage(
+                new Page<>(pageNum, pageSize), workerId, projectName, status);
+        result.getRecords().forEach(this::fillStatusDesc);
 
-            WorkerProcessListResponse resp = new WorkerProcessListResponse();
-            resp.setProcessId(p.getId());
-            resp.setProjectName(projName);
-            resp.setProcessName(p.getProcessName());
-            resp.setStatus(p.getProcessStatus());
-            ProcessStatus ps = ProcessStatus.fromCode(p.getProcessStatus());
-            resp.setStatusDesc(ps != null ? ps.getDesc() : "");
-            resp.setCycleNumber(cycle.getCycleNumber());
-            resp.setTaskTimeMinutes(p.getControlTime());
-            resp.setActualStartTime(p.getActualStartTime());
-            resp.setActualEndTime(p.getActualEndTime());
-
-            all.add(resp);
-        }
-
-        // 重新根据过滤后的结果做分页
-        long total = all.size();
-        Page<WorkerProcessListResponse> result = new Page<>(pageNum, pageSize, total);
-        int fromIndex = (int) ((pageNum - 1L) * pageSize);
-        if (fromIndex >= total) {
-            result.setRecords(Collections.emptyList());
-            return result;
-        }
-        int toIndex = (int) Math.min(fromIndex + pageSize, total);
-        result.setRecords(all.subList(fromIndex, toIndex));
-
-        log.info("查询施工人员工序列表完成，用户ID: {}, 共 {} 条，当前页 {} 条", workerId, total, result.getRecords().size());
+        log.info("查询施工人员工序列表完成，用户ID: {}, 共 {} 条，当前页 {} 条", workerId, result.getTotal(), result.getRecords().size());
         return result;
     }
 
+    @Override
+    public WorkerProcessScrollResponse scrollWorkerProcessList(Long workerId,
+                                                              LocalDateTime cursorTime,
+                                                              Long cursorId,
+                                                              Integer size,
+                                                              String projectName,
+                                                              String status) {
+        log.info("游标查询施工人员工序列表，用户ID: {}, 游标: {}/{}, 大小: {}, 工点名称: {}, 状态: {}",
+                workerId, cursorTime, cursorId, size, projectName, status);
+        int limit = size == null || size <= 0 ? 20 : Math.min(size, 100);
+
+        // 多查一条用于判断是否还有下一页
+        List<WorkerProcessListResponse> rows = baseMapper.selectWorkerProcessesAfter(
+                workerId, projectName, status, cursorTime, cursorId, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<WorkerProcessListResponse> records = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        records.forEach(this::fillStatusDesc);
+
+        WorkerProcessScrollResponse response = new WorkerProcessScrollResponse();
+        response.setRecords(records);
+        response.setHasMore(hasMore);
+        if (!records.isEmpty()) {
+            WorkerProcessListResponse last = records.get(records.size() - 1);
+            response.setNextCursorTime(last.getCreateTime());
+            response.setNextCursorId(last.getProcessId());
+        }
+        return response;
+    }
+
+    private void fillStatusDesc(WorkerProcessListResponse resp) {
+        ProcessStatus ps = ProcessStatus.fromCode(resp.getStatus());
+        resp.setStatusDesc(ps != null ? ps.getDesc() : "");
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public ProcessResponse updateProcess(Long processId, UpdateProcessRequest request) {
@@ -648,6 +637,11 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         }
 
         updateById(process);
+        // 工序名称或时间可能变化，重新计算循环响炮时间
+        cycleMapper.refreshBlastTime(process.getCycleId());
+        siteDailyProcessStatService.refreshByCycleId(process.getCycleId());
+        cycleReportCache.invalidate();
+        constructionEventBroadcaster.publishProcessChange(ConstructionEventType.PROCESS_UPDATED, process);
 
         // 复用创建时的构造逻辑，返回最新数据
         ProcessResponse response = buildProcessResponse(process);
@@ -780,9 +774,11 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         process.setActualStartTime(actualStartTime);
         process.setProcessStatus(ProcessStatus.IN_PROGRESS.getCode());
         updateById(process);
+        refreshBlastTimeIfBlasting(process);
 
         // 记录开始操作
         logProcessOperation(processId, workerId, "START", null);
+        constructionEventBroadcaster.publishProcessChange(ConstructionEventType.PROCESS_STARTED, process);
 
         log.info("施工人员开始工序成功，工序ID: {}", processId);
         return response;
@@ -820,8 +816,10 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         process.setActualEndTime(now);
         process.setProcessStatus(ProcessStatus.COMPLETED.getCode());
         updateById(process);
+        refreshBlastTimeIfBlasting(process);
 
         logProcessOperation(processId, workerId, "COMPLETED", null);
+        constructionEventBroadcaster.publishProcessChange(ConstructionEventType.PROCESS_COMPLETED, process);
 
         // 完成后自动开启下一道未开始的工序
         // 使用当前工序的结束时间作为下一个工序的开始时间
@@ -829,6 +827,7 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
 
         // 如果本循环所有工序都已完成，则将循环状态置为已完成并记录结束时间
         tryCompleteCycle(process);
+        siteDailyProcessStatService.refreshByCycleId(process.getCycleId());
         return buildProcessResponse(process);
     }
     
@@ -863,8 +862,10 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         process.setActualEndTime(now);
         process.setProcessStatus(ProcessStatus.COMPLETED.getCode());
         updateById(process);
+        refreshBlastTimeIfBlasting(process);
 
         logProcessOperation(processId, workerId, "COMPLETED_AND_NEXT", null);
+        constructionEventBroadcaster.publishProcessChange(ConstructionEventType.PROCESS_COMPLETED, process);
 
         // 完成后自动开启下一道未开始的工序
         // 使用当前工序的结束时间作为下一个工序的开始时间
@@ -872,6 +873,7 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
 
         // 如果本循环所有工序都已完成，则将循环状态置为已完成并记录结束时间
         tryCompleteCycle(process);
+        siteDailyProcessStatService.refreshByCycleId(process.getCycleId());
 
         return buildProcessResponse(process);
     }
@@ -1062,11 +1064,14 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         }
         
         updateById(process);
+        refreshBlastTimeIfBlasting(process);
         
         // 记录操作日志
         logProcessOperation(processId, workerId, "FILL_TIME", 
                 String.format("补填时间：开始时间=%s, 结束时间=%s", 
                         request.getActualStartTime(), request.getActualEndTime()));
+        cycleReportCache.invalidate();
+        constructionEventBroadcaster.publishProcessChange(ConstructionEventType.PROCESS_TIME_FILLED, process);
         
         // 根据工序之前的状态决定后续处理：
         // - 如果补填的是已完成的工序：不更新后续工序的时间
@@ -1083,6 +1088,7 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
             tryCompleteCycle(process);
         }
         // 如果工序之前已完成，不更新后续工序的时间，也不开启下一工序
+        siteDailyProcessStatService.refreshByCycleId(process.getCycleId());
         
         log.info("施工人员补填工序时间成功，工序ID: {}, 用户ID: {}", processId, workerId);
         return buildProcessResponse(process);
@@ -1139,27 +1145,11 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
             return true;
         }
         
-        // 2. 检查工点的所有父节点是否在分配列表中
+        // 2. 检查工点的所有父节点是否在分配列表中（内存层级索引，不查库）
         // 如果用户被分配到父节点（如标段、隧道），则自动包含其下所有子工点
-        Project project = projectMapper.selectById(projectId);
-        if (project == null) {
-            log.warn("工点不存在，工点ID: {}", projectId);
-            return false;
-        }
-        
-        // 向上遍历父节点，检查是否有任何一个父节点在用户的分配列表中
-        Long currentParentId = project.getParentId();
-        while (currentParentId != null) {
-            if (allowedProjectIds.contains(currentParentId)) {
-                log.debug("用户通过父节点拥有该工点权限，用户ID: {}, 工点ID: {}, 父节点ID: {}", 
-                        userId, projectId, currentParentId);
-                return true;
-            }
-            Project parentProject = projectMapper.selectById(currentParentId);
-            if (parentProject == null) {
-                break;
-            }
-            currentParentId = parentProject.getParentId();
+        if (projectHierarchyIndex.isUnderAny(projectId, allowedProjectIds)) {
+            log.debug("用户通过父节点拥有该工点权限，用户ID: {}, 工点ID: {}", userId, projectId);
+            return true;
         }
         
         log.warn("用户没有该工点的权限，用户ID: {}, 工点ID: {}, 用户有权限的节点: {}", 
@@ -1189,6 +1179,7 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
                     cycle.setEndDate(LocalDateTime.now());
                 }
                 cycleMapper.updateById(cycle);
+                constructionEventBroadcaster.publishCycleChange(ConstructionEventType.CYCLE_COMPLETED, cycle);
                 log.info("循环所有工序完成，自动将循环置为已完成，循环ID: {}", cycleId);
             }
         }
@@ -1226,6 +1217,8 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
             next.setOperatorId(workerId);
         }
         updateById(next);
+        refreshBlastTimeIfBlasting(next);
+        constructionEventBroadcaster.publishProcessChange(ConstructionEventType.PROCESS_STARTED, next);
         // 记录自动开启下一工序
         logProcessOperation(next.getId(), workerId, "AUTO_START_NEXT", 
                 suggestedStartTime != null ? String.format("使用补填工序的结束时间作为开始时间: %s", suggestedStartTime) : null);
@@ -1261,238 +1254,35 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
             return;
         }
         
-        // 获取同一循环下，顺序在当前工序之后的所有工序
-        List<Process> subsequentProcesses = lambdaQuery()
-                .eq(Process::getCycleId, currentProcess.getCycleId())
-                .gt(Process::getStartOrder, currentProcess.getStartOrder())
-                .orderByAsc(Process::getStartOrder)
-                .list();
-        
-        if (subsequentProcesses.isEmpty()) {
-            log.debug("没有后续工序需要更新，当前工序ID: {}", currentProcess.getId());
-            return;
+        // 内存中推算后续工序时间，批量落库
+        int updatedCount = processTimeCascade.apply(currentProcess, newEndTime);
+        if (updatedCount > 0) {
+            siteDailyProcessStatService.refreshByCycleId(currentProcess.getCycleId());
+            // 后续工序中可能包含装药爆破
+            cycleMapper.refreshBlastTime(currentProcess.getCycleId());
         }
-        
-        int updatedCount = 0;
-        // 使用前一个工序的结束时间作为基准，实现级联更新
-        LocalDateTime previousEndTime = newEndTime;
-        
-        for (Process nextProcess : subsequentProcesses) {
-            boolean needUpdate = false;
-            LocalDateTime newStartTime = null;
-            LocalDateTime newEndTimeForNext = null;
-            
-            // 判断后续工序的状态，分别处理
-            if (ProcessStatus.COMPLETED.getCode().equals(nextProcess.getProcessStatus())) {
-                // 已完成工序：调整开始时间和结束时间，保持原耗时
-                // 关键逻辑：后续工序的开始时间应该等于前一个工序的结束时间
-                LocalDateTime originalStartTime = nextProcess.getActualStartTime();
-                if (originalStartTime != null) {
-                    // 如果原开始时间不等于前一个工序的新结束时间，需要调整
-                    // 这里使用时间差判断，如果时间差超过1分钟，就认为需要调整
-                    long timeDiff = Duration.between(originalStartTime, previousEndTime).toMinutes();
-                    if (Math.abs(timeDiff) > 1) {
-                        // 调整开始时间到前一个工序的新结束时间
-                        newStartTime = previousEndTime;
-                        needUpdate = true;
-                        
-                        // 保持原耗时，调整结束时间
-                        if (nextProcess.getActualEndTime() != null && originalStartTime != null) {
-                            long originalDuration = Duration.between(originalStartTime, nextProcess.getActualEndTime()).toMinutes();
-                            newEndTimeForNext = newStartTime.plusMinutes(originalDuration);
-                            nextProcess.setActualEndTime(newEndTimeForNext);
-                        }
-                        nextProcess.setActualStartTime(newStartTime);
-                        if (nextProcess.getEstimatedStartTime() != null) {
-                            nextProcess.setEstimatedStartTime(newStartTime);
-                        }
-                        // 更新预计结束时间：新的预计开始时间 + 控制时间
-                        if (nextProcess.getControlTime() != null) {
-                            LocalDateTime newEstimatedEndTime = newStartTime.plusMinutes(nextProcess.getControlTime());
-                            nextProcess.setEstimatedEndTime(newEstimatedEndTime);
-                            log.debug("更新已完成工序的预计结束时间，工序ID: {}, 新的预计结束时间: {}", 
-                                    nextProcess.getId(), newEstimatedEndTime);
-                        }
-                        log.debug("更新已完成工序时间，工序ID: {}, 原开始时间: {}, 新开始时间: {}, 新结束时间: {}", 
-                                nextProcess.getId(), originalStartTime, newStartTime, newEndTimeForNext);
-                    } else {
-                        // 如果时间差很小（<=1分钟），认为不需要调整，但需要更新前一个工序的结束时间基准
-                        if (nextProcess.getActualEndTime() != null) {
-                            newEndTimeForNext = nextProcess.getActualEndTime();
-                        }
-                    }
-                }
-            } else if (ProcessStatus.IN_PROGRESS.getCode().equals(nextProcess.getProcessStatus())) {
-                // 进行中工序：调整开始时间和预计结束时间，必须清空实际结束时间
-                // 关键逻辑：后续工序的开始时间应该等于前一个工序的结束时间
-                // 无论是否需要调整开始时间，进行中的工序都不应该有实际结束时间
-                
-                // 首先清空实际结束时间（进行中的工序不应该有实际结束时间）
-                if (nextProcess.getActualEndTime() != null) {
-                    nextProcess.setActualEndTime(null);
-                    needUpdate = true;
-                    log.debug("清空进行中工序的实际结束时间，工序ID: {}", nextProcess.getId());
-                }
-                
-                LocalDateTime originalStartTime = nextProcess.getActualStartTime();
-                LocalDateTime originalEstimatedStartTime = nextProcess.getEstimatedStartTime();
-                // 确定新的预计开始时间：使用前一个工序的结束时间
-                LocalDateTime newEstimatedStartTime = previousEndTime;
-                
-                // 如果预计开始时间需要更新（与原值不同），则更新
-                if (originalEstimatedStartTime == null || !originalEstimatedStartTime.equals(newEstimatedStartTime)) {
-                    long timeDiff = 0;
-                    if (originalEstimatedStartTime != null) {
-                        timeDiff = Duration.between(originalEstimatedStartTime, newEstimatedStartTime).toMinutes();
-                    }
-                    // 如果时间差超过1分钟，或者预计开始时间为空，需要调整
-                    if (originalEstimatedStartTime == null || Math.abs(timeDiff) > 1) {
-                        newStartTime = newEstimatedStartTime;
-                        needUpdate = true;
-                        
-                        if (originalStartTime != null) {
-                            nextProcess.setActualStartTime(newStartTime);
-                        }
-                        nextProcess.setEstimatedStartTime(newStartTime);
-                        // 重新计算预计结束时间：新的预计开始时间 + 控制时间
-                        if (nextProcess.getControlTime() != null) {
-                            newEndTimeForNext = newStartTime.plusMinutes(nextProcess.getControlTime());
-                            nextProcess.setEstimatedEndTime(newEndTimeForNext);
-                        }
-                        log.debug("更新进行中工序时间，工序ID: {}, 原预计开始时间: {}, 新预计开始时间: {}, 新预计结束时间: {}", 
-                                nextProcess.getId(), originalEstimatedStartTime, newStartTime, newEndTimeForNext);
-                    } else {
-                        // 如果时间差很小（<=1分钟），认为不需要调整开始时间
-                        // 但为了确保预计结束时间正确，仍然重新计算：预计开始时间 + 控制时间
-                        if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
-                            newEndTimeForNext = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
-                            // 只有当计算出的预计结束时间与当前值不同时才更新
-                            if (nextProcess.getEstimatedEndTime() == null || 
-                                !nextProcess.getEstimatedEndTime().equals(newEndTimeForNext)) {
-                                nextProcess.setEstimatedEndTime(newEndTimeForNext);
-                                needUpdate = true;
-                            }
-                        } else if (nextProcess.getEstimatedEndTime() != null) {
-                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
-                        }
-                    }
-                } else {
-                    // 如果预计开始时间没有改变，确保预计结束时间正确：预计开始时间 + 控制时间
-                    if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
-                        LocalDateTime expectedEndTime = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
-                        if (nextProcess.getEstimatedEndTime() == null || 
-                            !nextProcess.getEstimatedEndTime().equals(expectedEndTime)) {
-                            nextProcess.setEstimatedEndTime(expectedEndTime);
-                            newEndTimeForNext = expectedEndTime;
-                            needUpdate = true;
-                        } else {
-                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
-                        }
-                    } else if (nextProcess.getEstimatedEndTime() != null) {
-                        newEndTimeForNext = nextProcess.getEstimatedEndTime();
-                    }
-                }
-            } else {
-                // 未开始工序：设置预计开始时间为前一个工序的结束时间
-                // 这样在补填进行中的工序时，下一个工序的预计开始时间会从补填工序的结束时间开始
-                LocalDateTime originalEstimatedStartTime = nextProcess.getEstimatedStartTime();
-                LocalDateTime newEstimatedStartTime = previousEndTime;
-                
-                if (originalEstimatedStartTime == null || !originalEstimatedStartTime.equals(newEstimatedStartTime)) {
-                    // 如果预计开始时间为空，或者不等于前一个工序的结束时间，需要更新
-                    long timeDiff = 0;
-                    if (originalEstimatedStartTime != null) {
-                        timeDiff = Duration.between(originalEstimatedStartTime, newEstimatedStartTime).toMinutes();
-                    }
-                    if (originalEstimatedStartTime == null || Math.abs(timeDiff) > 1) {
-                        nextProcess.setEstimatedStartTime(newEstimatedStartTime);
-                        needUpdate = true;
-                        // 重新计算预计结束时间：新的预计开始时间 + 控制时间
-                        if (nextProcess.getControlTime() != null) {
-                            newEndTimeForNext = newEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
-                            nextProcess.setEstimatedEndTime(newEndTimeForNext);
-                        }
-                        log.debug("更新未开始工序的预计时间，工序ID: {}, 预计开始时间: {}, 预计结束时间: {}", 
-                                nextProcess.getId(), newEstimatedStartTime, newEndTimeForNext);
-                    } else {
-                        // 如果时间差很小（<=1分钟），认为不需要调整开始时间
-                        // 但为了确保预计结束时间正确，仍然重新计算：预计开始时间 + 控制时间
-                        if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
-                            newEndTimeForNext = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
-                            // 只有当计算出的预计结束时间与当前值不同时才更新
-                            if (nextProcess.getEstimatedEndTime() == null || 
-                                !nextProcess.getEstimatedEndTime().equals(newEndTimeForNext)) {
-                                nextProcess.setEstimatedEndTime(newEndTimeForNext);
-                                needUpdate = true;
-                            }
-                        } else if (nextProcess.getEstimatedEndTime() != null) {
-                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
-                        }
-                    }
-                } else {
-                    // 如果预计开始时间已经等于前一个工序的结束时间，确保预计结束时间正确：预计开始时间 + 控制时间
-                    if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
-                        LocalDateTime expectedEndTime = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
-                        if (nextProcess.getEstimatedEndTime() == null || 
-                            !nextProcess.getEstimatedEndTime().equals(expectedEndTime)) {
-                            nextProcess.setEstimatedEndTime(expectedEndTime);
-                            newEndTimeForNext = expectedEndTime;
-                            needUpdate = true;
-                        } else {
-                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
-                        }
-                    } else if (nextProcess.getEstimatedEndTime() != null) {
-                        newEndTimeForNext = nextProcess.getEstimatedEndTime();
-                    }
-                }
-            }
-            
-            if (needUpdate) {
-                updateById(nextProcess);
-                logProcessOperation(nextProcess.getId(), null, "UPDATE_TIME_BY_PREVIOUS_FILL", 
-                        String.format("因前序工序补填时间而调整：新开始时间=%s", newStartTime));
-                updatedCount++;
-            }
-            
-            // 更新前一个工序的结束时间基准，用于下一个工序的判断
-            if (newEndTimeForNext != null) {
-                previousEndTime = newEndTimeForNext;
-            } else if (needUpdate && newStartTime != null && nextProcess.getControlTime() != null) {
-                // 如果没有结束时间，但调整了开始时间，使用开始时间+控制时间作为基准
-                previousEndTime = newStartTime.plusMinutes(nextProcess.getControlTime());
-            } else if (!needUpdate) {
-                // 如果没有调整，使用当前工序的结束时间作为基准（如果有的话）
-                LocalDateTime currentEndTime = null;
-                if (ProcessStatus.COMPLETED.getCode().equals(nextProcess.getProcessStatus())) {
-                    currentEndTime = nextProcess.getActualEndTime();
-                } else {
-                    currentEndTime = nextProcess.getEstimatedEndTime();
-                }
-                if (currentEndTime != null) {
-                    previousEndTime = currentEndTime;
-                }
-            }
+    }
+    
+    /**
+     * 装药爆破工序时间变化后刷新循环的响炮时间
+     */
+    private void refreshBlastTimeIfBlasting(Process process) {
+        if (BLAST_PROCESS_NAME.equals(process.getProcessName())) {
+            cycleMapper.refreshBlastTime(process.getCycleId());
         }
-        
-        log.info("更新后续工序时间完成，当前工序ID: {}, 后续工序总数: {}, 已更新数量: {}", 
-                currentProcess.getId(), subsequentProcesses.size(), updatedCount);
     }
     
     /**
-     * 记录工序操作日志
+     * 记录工序操作日志（事务提交后异步批量写入）
      */
     private void logProcessOperation(Long processId, Long userId, String action, String remark) {
-        try {
-            ProcessOperationLog log = new ProcessOperationLog();
-            log.setProcessId(processId);
-            log.setUserId(userId);
-            log.setAction(action);
-            log.setRemark(remark);
-            log.setCreateTime(LocalDateTime.now());
-            processOperationLogService.save(log);
-        } catch (Exception e) {
-            log.warn("记录工序操作日志失败，processId: {}, userId: {}, action: {}, error: {}", processId, userId, action, e.getMessage());
-        }
+        ProcessOperationLog log = new ProcessOperationLog();
+        log.setProcessId(processId);
+        log.setUserId(userId);
+        log.setAction(action);
+        log.setRemark(remark);
+        log.setCreateTime(LocalDateTime.now());
+        processOperationLogWriter.submit(log);
     }
 
     private ProcessDetailResponse buildProcessDetail(Process process) {
@@ -1770,6 +1560,8 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
             log.debug("更新工序顺序，工序ID: {}, 新顺序: {}", item.getProcessId(), item.getStartOrder());
         }
         
+        cycleReportCache.invalidate();
+        constructionEventBroadcaster.publishCycleProcessesChange(ConstructionEventType.PROCESS_REORDERED, cycleId);
         log.info("批量更新工序顺序完成，循环ID: {}, 更新数量: {}", cycleId, request.getProcessOrders().size());
     }
 
@@ -1931,110 +1723,21 @@ public class ProcessServiceImpl extends ServiceImpl<ProcessMapper, Process> impl
         log.info("施工人员填报超时原因成功，工序ID: {}", processId);
     }
 
+    @Override
+    public OperationLogWriterStats getOperationLogWriterStats() {
+        return processOperationLogWriter.getStats();
+    }
+
     @Override
     public Page<OvertimeProcessResponse> getOvertimeProcessesWithoutReason(
             Integer pageNum, Integer pageSize, String projectName) {
         log.info("查询超时未填报原因的工序列表，页码: {}, 大小: {}, 工点名称: {}", pageNum, pageSize, projectName);
         
-        // 查询所有已完成的工序，且循环未完成
-        LambdaQueryWrapper<Process> processWrapper = new LambdaQueryWrapper<>();
-        processWrapper.eq(Process::getProcessStatus, ProcessStatus.COMPLETED.getCode())
-                .isNotNull(Process::getActualStartTime)
-                .isNotNull(Process::getActualEndTime)
-                .isNotNull(Process::getControlTime)
-                .and(wrapper -> wrapper
-                        .isNull(Process::getOvertimeReason)
-                        .or()
-                        .eq(Process::getOvertimeReason, ""))
-                .orderByDesc(Process::getActualEndTime);
-        
-        Page<Process> processPage = page(new Page<>(pageNum, pageSize), processWrapper);
-        
-        if (processPage.getRecords().isEmpty()) {
-            return new Page<>(pageNum, pageSize, 0);
-        }
-        
-        // 获取循环信息
-        List<Process> processes = processPage.getRecords();
-        List<Long> cycleIds = processes.stream().map(Process::getCycleId).distinct().toList();
-        List<Cycle> cycles = cycleIds.isEmpty() 
-                ? Collections.emptyList()
-                : cycleMapper.selectBatchIds(cycleIds);
-        Map<Long, Cycle> cycleMap = cycles.stream()
-                .filter(cycle -> !"COMPLETED".equals(cycle.getStatus())) // 只保留未完成的循环
-                .collect(Collectors.toMap(Cycle::getId, c -> c));
-        
-        // 获取项目信息
-        List<Long> projectIds = cycles.stream().map(Cycle::getProjectId).distinct().toList();
-        List<Project> projects = projectIds.isEmpty()
-                ? Collections.emptyList()
-                : projectMapper.selectBatchIds(projectIds);
-        Map<Long, Project> projectMap = projects.stream()
-                .collect(Collectors.toMap(Project::getId, p -> p));
-        
-        // 获取操作员信息
-        List<Long> operatorIds = processes.stream()
-                .map(Process::getOperatorId)
-                .filter(id -> id != null)
-                .distinct()
-                .toList();
-        List<User> operators = operatorIds.isEmpty()
-                ? Collections.emptyList()
-                : userService.listByIds(operatorIds);
-        Map<Long, User> operatorMap = operators.stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
-        
-        // 构建响应列表
-        List<OvertimeProcessResponse> result = new ArrayList<>();
-        for (Process process : processes) {
-            Cycle cycle = cycleMap.get(process.getCycleId());
-            if (cycle == null) {
-                continue; // 跳过已完成的循环
-            }
-            
-            // 检查是否超时
-            long actualMinutes = Duration.between(process.getActualStartTime(), process.getActualEndTime()).toMinutes();
-            if (actualMinutes <= process.getControlTime()) {
-                continue; // 跳过未超时的工序
-            }
-            
-            Project project = projectMap.get(cycle.getProjectId());
-            if (project == null) {
-                continue;
-            }
-            
-            // 工点名称过滤
-            if (projectName != null && !projectName.isEmpty()) {
-                if (project.getProjectName() == null || !project.getProjectName().contains(projectName)) {
-                    continue;
-                }
-            }
-            
-            OvertimeProcessResponse response = new OvertimeProcessResponse();
-            response.setProcessId(process.getId());
-            response.setProcessName(process.getProcessName());
-            response.setProjectName(project.getProjectName());
-            response.setCycleNumber(cycle.getCycleNumber());
-            response.setControlTime(process.getControlTime());
-            response.setActualStartTime(process.getActualStartTime());
-            response.setActualEndTime(process.getActualEndTime());
-            response.setActualTimeMinutes(actualMinutes);
-            response.setOvertimeMinutes(actualMinutes - process.getControlTime());
-            
-            if (process.getOperatorId() != null) {
-                User operator = operatorMap.get(process.getOperatorId());
-                if (operator != null) {
-                    response.setOperatorName(operator.getRealName());
-                }
-            }
-            
-            result.add(response);
-        }
-        
-        Page<OvertimeProcessResponse> resultPage = new Page<>(pageNum, pageSize, result.size());
-        resultPage.setRecords(result);
+        // 超时、未填原因、循环未完成及工点名称过滤都在SQL中完成，分页总数准确
+        Page<OvertimeProcessResponse> resultPage = baseMapper.selectOvertimeWithoutReasonPage(
+                new Page<>(pageNum, pageSize), projectName);
         
-        log.info("查询超时未填报原因的工序列表完成，找到 {} 条记录", result.size());
+        log.info("查询超时未填报原因的工序列表完成，共 {} 条记录，当前页 {} 条", resultPage.getTotal(), resultPage.getRecords().size());
         return resultPage;
     }
     
@@ -3,6 +3,7 @@ package com.zzw.zzwgx.service.impl;
 import cn.hutool.core.bean.BeanUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zzw.zzwgx.cache.TemplateRegistry;
 import com.zzw.zzwgx.common.enums.ResultCode;
 import com.zzw.zzwgx.common.exception.BusinessException;
 import com.zzw.zzwgx.dto.request.CreateProcessTemplateBatchRequest;
@@ -50,35 +51,17 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     private final TemplateMapper templateMapper;
     private final TemplateProcessMapper templateProcessMapper;
     private final ProjectTemplateMapper projectTemplateMapper;
+    private final TemplateRegistry templateRegistry;
     
     @Override
     public List<ProcessTemplate> getTemplatesByName(String templateName) {
         log.debug("根据模板名称查询工序模板，模板名称: {}", templateName);
-        // 1. 根据模板名称查询模板ID
-        Template template = templateMapper.selectOne(new LambdaQueryWrapper<Template>()
-                .eq(Template::getTemplateName, templateName)
-                .eq(Template::getDeleted, 0)
-                .last("LIMIT 1"));
+        TemplateRegistry.TemplateSnapshot template = templateRegistry.getTemplateByName(templateName);
         if (template == null) {
             log.debug("模板不存在，模板名称: {}", templateName);
             return List.of();
         }
-        
-        // 2. 根据模板ID查询所有工序
-        List<TemplateProcess> templateProcesses = templateProcessMapper.selectList(new LambdaQueryWrapper<TemplateProcess>()
-                .eq(TemplateProcess::getTemplateId, template.getId())
-                .eq(TemplateProcess::getDeleted, 0)
-                .orderByAsc(TemplateProcess::getDefaultOrder));
-        
-        // 3. 转换为 ProcessTemplate 对象
-        List<ProcessTemplate> templates = templateProcesses.stream()
-                .map(tp -> {
-                    ProcessTemplate pt = BeanUtil.copyProperties(tp, ProcessTemplate.class);
-                    pt.setTemplateName(templateName);
-                    return pt;
-                })
-                .collect(Collectors.toList());
-        
+        List<ProcessTemplate> templates = template.toProcessTemplates(null);
         log.debug("查询到工序模板数量: {}", templates.size());
         return templates;
     }
@@ -86,43 +69,19 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     @Override
     public List<ProcessTemplate> getTemplatesByNameAndSiteId(String templateName, Long siteId) {
         log.debug("根据工点ID和模板名称查询工序模板，工点ID: {}, 模板名称: {}", siteId, templateName);
-        // 1. 根据模板名称查询模板ID
-        Template template = templateMapper.selectOne(new LambdaQueryWrapper<Template>()
-                .eq(Template::getTemplateName, templateName)
-                .eq(Template::getDeleted, 0)
-                .last("LIMIT 1"));
+        TemplateRegistry.TemplateSnapshot template = templateRegistry.getTemplateByName(templateName);
         if (template == null) {
             log.debug("模板不存在，模板名称: {}", templateName);
             return List.of();
         }
         
-        // 2. 验证该工点是否关联了该模板
-        ProjectTemplate projectTemplate = projectTemplateMapper.selectOne(new LambdaQueryWrapper<ProjectTemplate>()
-                .eq(ProjectTemplate::getProjectId, siteId)
-                .eq(ProjectTemplate::getTemplateId, template.getId())
-                .eq(ProjectTemplate::getDeleted, 0)
-                .last("LIMIT 1"));
-        if (projectTemplate == null) {
-            log.debug("该工点未关联该模板，工点ID: {}, 模板ID: {}", siteId, template.getId());
+        // 验证该工点是否关联了该模板
+        if (!templateRegistry.isBoundToSite(siteId, template.getTemplateId())) {
+            log.debug("该工点未关联该模板，工点ID: {}, 模板ID: {}", siteId, template.getTemplateId());
             return List.of();
         }
         
-        // 3. 根据模板ID查询所有工序
-        List<TemplateProcess> templateProcesses = templateProcessMapper.selectList(new LambdaQueryWrapper<TemplateProcess>()
-                .eq(TemplateProcess::getTemplateId, template.getId())
-                .eq(TemplateProcess::getDeleted, 0)
-                .orderByAsc(TemplateProcess::getDefaultOrder));
-        
-        // 4. 转换为 ProcessTemplate 对象
-        List<ProcessTemplate> templates = templateProcesses.stream()
-                .map(tp -> {
-                    ProcessTemplate pt = BeanUtil.copyProperties(tp, ProcessTemplate.class);
-                    pt.setTemplateName(templateName);
-                    pt.setSiteId(siteId);
-                    return pt;
-                })
-                .collect(Collectors.toList());
-        
+        List<ProcessTemplate> templates = template.toProcessTemplates(siteId);
         log.debug("查询到工序模板数量: {}", templates.size());
         return templates;
     }
@@ -130,31 +89,20 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     @Override
     public List<ProcessTemplate> getTemplatesByTemplateId(Long templateId) {
         log.debug("根据模板ID查询工序模板，模板ID: {}", templateId);
-        // templateId 现在是 template_process 表的 id，需要先查询 template_process 获取 template_id
-        TemplateProcess templateProcess = templateProcessMapper.selectById(templateId);
-        if (templateProcess == null) {
-            log.warn("模板工序不存在，模板ID: {}", templateId);
-            return List.of();
-        }
-        
-        // 根据 template_id 查询模板信息
-        Template template = templateMapper.selectById(templateProcess.getTemplateId());
+        // templateId 是 template_process 表的 id，取其所属模板下的所有工序
+        TemplateRegistry.TemplateSnapshot template = templateRegistry.getTemplateByStepId(templateId);
         if (template == null) {
-            log.warn("模板不存在，模板ID: {}", templateProcess.getTemplateId());
+            log.warn("模板工序不存在，模板ID: {}", templateId);
             return List.of();
         }
-        
-        // 查询该模板下的所有工序
-        return getTemplatesByName(template.getTemplateName());
+        return template.toProcessTemplates(null);
     }
     
     @Override
     public List<String> getAllTemplateNames() {
         log.debug("查询所有模板名称列表");
-        List<Template> templates = templateMapper.selectList(new LambdaQueryWrapper<Template>()
-                .eq(Template::getDeleted, 0));
-        List<String> templateNames = templates.stream()
-                .map(Template::getTemplateName)
+        List<String> templateNames = templateRegistry.getTemplates().stream()
+                .map(TemplateRegistry.TemplateSnapshot::getTemplateName)
                 .distinct()
                 .collect(Collectors.toList());
         log.debug("查询到模板名称数量: {}", templateNames.size());
@@ -164,27 +112,10 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     @Override
     public List<String> getTemplateNamesBySiteId(Long siteId) {
         log.debug("根据工点ID查询模板名称列表，工点ID: {}", siteId);
-        // 1. 查询该工点关联的所有模板ID
-        List<ProjectTemplate> projectTemplates = projectTemplateMapper.selectList(new LambdaQueryWrapper<ProjectTemplate>()
-                .eq(ProjectTemplate::getProjectId, siteId)
-                .eq(ProjectTemplate::getDeleted, 0));
-        
-        if (projectTemplates.isEmpty()) {
-            return List.of();
-        }
-        
-        // 2. 根据模板ID查询模板名称
-        List<Long> templateIds = projectTemplates.stream()
-                .map(ProjectTemplate::getTemplateId)
-                .collect(Collectors.toList());
-        
-        List<Template> templates = templateMapper.selectBatchIds(templateIds);
-        List<String> templateNames = templates.stream()
-                .filter(t -> t.getDeleted() == 0)
-                .map(Template::getTemplateName)
+        List<String> templateNames = templateRegistry.getSiteTemplates(siteId).stream()
+                .map(TemplateRegistry.TemplateSnapshot::getTemplateName)
                 .distinct()
                 .collect(Collectors.toList());
-        
         log.debug("查询到模板名称数量: {}", templateNames.size());
         return templateNames;
     }
@@ -192,46 +123,8 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     @Override
     public List<ProcessTemplateOptionResponse> getAllProcessTemplateOptions() {
         log.debug("查询所有工序选项列表（从工序字典表获取，按显示顺序排序）");
-        
-        // 从工序字典表获取所有工序（已去重，按显示顺序排序）
-        List<ProcessCatalog> catalogs = processCatalogService.list(new LambdaQueryWrapper<ProcessCatalog>()
-                .eq(ProcessCatalog::getDeleted, 0)
-                .eq(ProcessCatalog::getStatus, 1)
-                .orderByAsc(ProcessCatalog::getDisplayOrder)
-                .orderByAsc(ProcessCatalog::getId));
-        
-        // 转换为响应DTO
-        // 为了兼容前端，需要返回templateId，这里返回该工序在第一个模板中的templateId（如果存在）
-        List<ProcessTemplateOptionResponse> options = catalogs.stream()
-                .map(catalog -> {
-                    ProcessTemplateOptionResponse option = new ProcessTemplateOptionResponse();
-                    
-                    // 查找该工序在第一个模板中的templateId（用于兼容前端）
-                    TemplateProcess firstTemplateProcess = templateProcessMapper.selectOne(new LambdaQueryWrapper<TemplateProcess>()
-                            .eq(TemplateProcess::getProcessCatalogId, catalog.getId())
-                            .eq(TemplateProcess::getDeleted, 0)
-                            .orderByAsc(TemplateProcess::getTemplateId)
-                            .orderByAsc(TemplateProcess::getDefaultOrder)
-                            .last("LIMIT 1"));
-                    
-                    if (firstTemplateProcess != null) {
-                        option.setTemplateId(firstTemplateProcess.getId());
-                        // 查询模板名称
-                        Template template = templateMapper.selectById(firstTemplateProcess.getTemplateId());
-                        if (template != null) {
-                            option.setTemplateName(template.getTemplateName());
-                        }
-                    } else {
-                        // 如果该工序不在任何模板中，设置templateId为null或0
-                        option.setTemplateId(null);
-                        option.setTemplateName(null);
-                    }
-                    
-                    option.setProcessName(catalog.getProcessName());
-                    return option;
-                })
-                .collect(Collectors.toList());
-        
+        // 为了兼容前端，templateId 返回该工序在第一个模板中的 template_process ID（不在任何模板中则为空），一条语句查出
+        List<ProcessTemplateOptionResponse> options = templateProcessMapper.selectProcessTemplateOptions();
         log.debug("查询到工序选项数量: {}", options.size());
         return options;
     }
@@ -239,43 +132,7 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     @Override
     public List<TemplateListResponse> getTemplateList() {
         log.debug("查询模板列表");
-        // 获取所有模板
-        List<Template> templates = templateMapper.selectList(new LambdaQueryWrapper<Template>()
-                .eq(Template::getDeleted, 0));
-        
-        // 为每个模板获取第一个工序模板的ID和控制时长
-        List<TemplateListResponse> templateList = templates.stream()
-                .map(template -> {
-                    // 获取该模板下的所有工序
-                    List<TemplateProcess> templateProcesses = templateProcessMapper.selectList(new LambdaQueryWrapper<TemplateProcess>()
-                            .eq(TemplateProcess::getTemplateId, template.getId())
-                            .eq(TemplateProcess::getDeleted, 0)
-                            .orderByAsc(TemplateProcess::getDefaultOrder));
-                    
-                    if (templateProcesses.isEmpty()) {
-                        return null;
-                    }
-                    
-                    // 获取该模板下第一个工序模板（按defaultOrder排序后的第一个）
-                    TemplateProcess firstTemplateProcess = templateProcesses.get(0);
-                    // 计算控制时长：模板中所有工序的控制时间总和
-                    Integer controlDuration = templateProcesses.stream()
-                            .filter(tp -> tp.getControlTime() != null && tp.getControlTime() > 0)
-                            .mapToInt(TemplateProcess::getControlTime)
-                            .sum();
-                    
-                    TemplateListResponse response = new TemplateListResponse();
-                    response.setTemplateName(template.getTemplateName());
-                    // 返回 template 表主键
-                    response.setTemplateId(template.getId());
-                    // 兼容创建循环：提供首个工序模板ID（template_process 表）
-                    response.setFirstTemplateProcessId(firstTemplateProcess.getId());
-                    response.setControlDuration(controlDuration);
-                    return response;
-                })
-                .filter(template -> template != null)
-                .collect(Collectors.toList());
-        
+        List<TemplateListResponse> templateList = toTemplateListResponses(templateRegistry.getTemplates());
         log.debug("查询到模板数量: {}", templateList.size());
         return templateList;
     }
@@ -283,56 +140,29 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     @Override
     public List<TemplateListResponse> getTemplateListBySiteId(Long siteId) {
         log.debug("根据工点ID查询模板列表，工点ID: {}", siteId);
-        // 1. 查询该工点关联的所有模板ID
-        List<ProjectTemplate> projectTemplates = projectTemplateMapper.selectList(new LambdaQueryWrapper<ProjectTemplate>()
-                .eq(ProjectTemplate::getProjectId, siteId)
-                .eq(ProjectTemplate::getDeleted, 0));
-        
-        if (projectTemplates.isEmpty()) {
-            return List.of();
-        }
-        
-        // 2. 根据模板ID查询模板信息
-        List<Long> templateIds = projectTemplates.stream()
-                .map(ProjectTemplate::getTemplateId)
-                .collect(Collectors.toList());
-        
-        List<Template> templates = templateMapper.selectBatchIds(templateIds);
-        
-        // 3. 为每个模板获取第一个工序模板的ID和控制时长
-        List<TemplateListResponse> templateList = templates.stream()
-                .filter(t -> t.getDeleted() == 0)
+        List<TemplateListResponse> templateList = toTemplateListResponses(templateRegistry.getSiteTemplates(siteId));
+        log.debug("查询到模板数量: {}", templateList.size());
+        return templateList;
+    }
+    
+    /**
+     * 模板快照转换为模板列表项，没有工序的模板不返回
+     */
+    private List<TemplateListResponse> toTemplateListResponses(List<TemplateRegistry.TemplateSnapshot> templates) {
+        return templates.stream()
+                .filter(template -> template.getFirstStep() != null)
                 .map(template -> {
-                    // 获取该模板下的所有工序
-                    List<TemplateProcess> templateProcesses = templateProcessMapper.selectList(new LambdaQueryWrapper<TemplateProcess>()
-                            .eq(TemplateProcess::getTemplateId, template.getId())
-                            .eq(TemplateProcess::getDeleted, 0)
-                            .orderByAsc(TemplateProcess::getDefaultOrder));
-                    
-                    if (templateProcesses.isEmpty()) {
-                        return null;
-                    }
-                    
-                    // 获取该模板下第一个工序模板（按defaultOrder排序后的第一个）
-                    TemplateProcess firstTemplateProcess = templateProcesses.get(0);
-                    // 计算控制时长：模板中所有工序的控制时间总和
-                    Integer controlDuration = templateProcesses.stream()
-                            .filter(tp -> tp.getControlTime() != null && tp.getControlTime() > 0)
-                            .mapToInt(TemplateProcess::getControlTime)
-                            .sum();
-                    
                     TemplateListResponse response = new TemplateListResponse();
                     response.setTemplateName(template.getTemplateName());
-                    response.setTemplateId(template.getId());
-                    response.setFirstTemplateProcessId(firstTemplateProcess.getId());
-                    response.setControlDuration(controlDuration);
+                    // 返回 template 表主键
+                    response.setTemplateId(template.getTemplateId());
+                    // 兼容创建循环：提供首个工序模板ID（template_process 表）
+                    response.setFirstTemplateProcessId(template.getFirstStep().getId());
+                    // 控制时长：模板中所有工序的控制时间总和
+                    response.setControlDuration(template.getControlDuration());
                     return response;
                 })
-                .filter(template -> template != null)
                 .collect(Collectors.toList());
-        
-        log.debug("查询到模板数量: {}", templateList.size());
-        return templateList;
     }
 
     @Override
@@ -419,6 +249,9 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
             }
         }
         
+        if (adjustCount > 0) {
+            templateRegistry.invalidate();
+        }
         log.info("调整同一模板下其他工序模板的顺序完成，模板ID: {}, 调整数量: {}", template.getId(), adjustCount);
     }
     
@@ -472,6 +305,7 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
         }
         // 最后更新当前模板（包括新的默认顺序）
         templateProcessMapper.updateById(templateProcess);
+        templateRegistry.invalidate();
         
         // 转换为 ProcessTemplate 对象返回
         ProcessTemplate result = BeanUtil.copyProperties(templateProcess, ProcessTemplate.class);
@@ -483,45 +317,20 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
     public List<com.zzw.zzwgx.dto.response.TemplateWithProcessesResponse> getTemplatesWithProcesses() {
         log.info("查询所有模板及其工序列表");
         
-        // 获取所有模板
-        List<Template> templates = templateMapper.selectList(new LambdaQueryWrapper<Template>()
-                .eq(Template::getDeleted, 0));
-        
-        // 为每个模板获取其下的所有工序
-        List<com.zzw.zzwgx.dto.response.TemplateWithProcessesResponse> result = templates.stream()
+        // 模板及工序（含工序名称）均来自模板注册表，没有工序的模板不返回
+        List<com.zzw.zzwgx.dto.response.TemplateWithProcessesResponse> result = templateRegistry.getTemplates().stream()
+                .filter(template -> template.getFirstStep() != null)
                 .map(template -> {
-                    // 获取该模板下的所有工序模板（按默认顺序排序）
-                    List<TemplateProcess> templateProcesses = templateProcessMapper.selectList(new LambdaQueryWrapper<TemplateProcess>()
-                            .eq(TemplateProcess::getTemplateId, template.getId())
-                            .eq(TemplateProcess::getDeleted, 0)
-                            .orderByAsc(TemplateProcess::getDefaultOrder));
-                    
-                    if (templateProcesses.isEmpty()) {
-                        return null;
-                    }
-                    
-                    // 转换为响应对象
                     com.zzw.zzwgx.dto.response.TemplateWithProcessesResponse response = 
                             new com.zzw.zzwgx.dto.response.TemplateWithProcessesResponse();
                     response.setTemplateName(template.getTemplateName());
-                    
                     // 获取该模板下第一个工序模板的ID（作为模板ID）
-                    TemplateProcess firstTemplateProcess = templateProcesses.get(0);
-                    response.setTemplateId(firstTemplateProcess.getId());
-                    
-                    // 转换所有工序模板为响应对象
-                    List<com.zzw.zzwgx.dto.response.ProcessTemplateResponse> processResponses = templateProcesses.stream()
-                            .map(tp -> {
-                                ProcessTemplate pt = BeanUtil.copyProperties(tp, ProcessTemplate.class);
-                                pt.setTemplateName(template.getTemplateName());
-                                return convertToResponse(pt);
-                            })
-                            .collect(Collectors.toList());
-                    response.setProcesses(processResponses);
-                    
+                    response.setTemplateId(template.getFirstStep().getId());
+                    response.setProcesses(template.toProcessTemplates(null).stream()
+                            .map(this::convertToResponse)
+                            .collect(Collectors.toList()));
                     return response;
                 })
-                .filter(template -> template != null)
                 .collect(Collectors.toList());
         
         log.info("查询到模板数量: {}", result.size());
@@ -561,6 +370,7 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
         for (Long templateId : normalizedTemplateIds) {
             projectTemplateMapper.upsertProjectTemplate(projectId, templateId);
         }
+        templateRegistry.invalidate();
 
         log.info("工点绑定模板完成，工点ID: {}, 目标模板数量: {}", projectId, normalizedTemplateIds.size());
     }
@@ -609,6 +419,7 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
         templateProcess.setDefaultOrder(request.getDefaultOrder());
         templateProcess.setDescription(request.getDescription());
         templateProcessMapper.insert(templateProcess);
+        templateRegistry.invalidate();
 
         // 5. 转换为 ProcessTemplate 对象返回（为了兼容接口）
         ProcessTemplate result = new ProcessTemplate();
@@ -675,6 +486,7 @@ public class ProcessTemplateServiceImpl extends ServiceImpl<ProcessTemplateMappe
         for (TemplateProcess tp : templateProcesses) {
             templateProcessMapper.insert(tp);
         }
+        templateRegistry.invalidate();
 
         // 5. 转换为 ProcessTemplate 对象返回（为了兼容接口）
         return templateProcesses.stream()
@@ -0,0 +1,291 @@
+package com.zzw.zzwgx.service.impl;
+
+import com.zzw.zzwgx.common.enums.ProcessStatus;
+import com.zzw.zzwgx.entity.Process;
+import com.zzw.zzwgx.entity.ProcessOperationLog;
+import com.zzw.zzwgx.mapper.ProcessMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 工序时间级联调整
+ * 前序工序补填时间后，在内存中依次推算后续工序的时间，
+ * 再用一条批量UPDATE落库，调整日志交给异步写入器批量写入，避免逐条更新
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProcessTimeCascade {
+
+    private final ProcessMapper processMapper;
+    private final ProcessOperationLogWriter processOperationLogWriter;
+
+    /**
+     * 级联调整后续工序时间
+     *
+     * @param currentProcess 当前补填的工序
+     * @param newEndTime 补填后的结束时间
+     * @return 实际调整的工序数量
+     */
+    public int apply(Process currentProcess, LocalDateTime newEndTime) {
+        // 获取同一循环下，顺序在当前工序之后的所有工序
+        List<Process> subsequentProcesses = processMapper.selectSubsequentProcesses(
+                currentProcess.getCycleId(), currentProcess.getStartOrder());
+        if (subsequentProcesses.isEmpty()) {
+            log.debug("没有后续工序需要更新，当前工序ID: {}", currentProcess.getId());
+            return 0;
+        }
+
+        List<ScheduleChange> changes = computeChanges(subsequentProcesses, newEndTime);
+        if (!changes.isEmpty()) {
+            processMapper.batchUpdateScheduleTimes(changes.stream()
+                    .map(ScheduleChange::process)
+                    .collect(Collectors.toList()));
+            saveOperationLogs(changes);
+        }
+
+        log.info("更新后续工序时间完成，当前工序ID: {}, 后续工序总数: {}, 已更新数量: {}",
+                currentProcess.getId(), subsequentProcesses.size(), changes.size());
+        return changes.size();
+    }
+
+    /**
+     * 记录调整日志，事务提交后批量写入
+     */
+    private void saveOperationLogs(List<ScheduleChange> changes) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ProcessOperationLog> logs = changes.stream().map(change -> {
+            ProcessOperationLog operationLog = new ProcessOperationLog();
+            operationLog.setProcessId(change.process().getId());
+            operationLog.setAction("UPDATE_TIME_BY_PREVIOUS_FILL");
+            operationLog.setRemark(String.format("因前序工序补填时间而调整：新开始时间=%s", change.newStartTime()));
+            operationLog.setCreateTime(now);
+            return operationLog;
+        }).collect(Collectors.toList());
+        processOperationLogWriter.submitAll(logs);
+    }
+
+    /**
+     * 在内存中推算后续工序的新时间（直接修改传入的工序对象），返回需要落库的工序
+     * 已完成工序保持原耗时平移；进行中工序调整预计时间；未开始工序调整预计开始/结束时间
+     *
+     * @param subsequentProcesses 按顺序排列的后续工序
+     * @param newEndTime 补填工序的新结束时间
+     */
+    static List<ScheduleChange> computeChanges(List<Process> subsequentProcesses, LocalDateTime newEndTime) {
+        List<ScheduleChange> changes = new ArrayList<>();
+        // 使用前一个工序的结束时间作为基准，实现级联更新
+        LocalDateTime previousEndTime = newEndTime;
+        
+        for (Process nextProcess : subsequentProcesses) {
+            boolean needUpdate = false;
+            LocalDateTime newStartTime = null;
+            LocalDateTime newEndTimeForNext = null;
+            
+            // 判断后续工序的状态，分别处理
+            if (ProcessStatus.COMPLETED.getCode().equals(nextProcess.getProcessStatus())) {
+                // 已完成工序：调整开始时间和结束时间，保持原耗时
+                // 关键逻辑：后续工序的开始时间应该等于前一个工序的结束时间
+                LocalDateTime originalStartTime = nextProcess.getActualStartTime();
+                if (originalStartTime != null) {
+                    // 如果原开始时间不等于前一个工序的新结束时间，需要调整
+                    // 这里使用时间差判断，如果时间差超过1分钟，就认为需要调整
+                    long timeDiff = Duration.between(originalStartTime, previousEndTime).toMinutes();
+                    if (Math.abs(timeDiff) > 1) {
+                        // 调整开始时间到前一个工序的新结束时间
+                        newStartTime = previousEndTime;
+                        needUpdate = true;
+                        
+                        // 保持原耗时，调整结束时间
+                        if (nextProcess.getActualEndTime() != null && originalStartTime != null) {
+                            long originalDuration = Duration.between(originalStartTime, nextProcess.getActualEndTime()).toMinutes();
+                            newEndTimeForNext = newStartTime.plusMinutes(originalDuration);
+                            nextProcess.setActualEndTime(newEndTimeForNext);
+                        }
+                        nextProcess.setActualStartTime(newStartTime);
+                        if (nextProcess.getEstimatedStartTime() != null) {
+                            nextProcess.setEstimatedStartTime(newStartTime);
+                        }
+                        // 更新预计结束时间：新的预计开始时间 + 控制时间
+                        if (nextProcess.getControlTime() != null) {
+                            LocalDateTime newEstimatedEndTime = newStartTime.plusMinutes(nextProcess.getControlTime());
+                            nextProcess.setEstimatedEndTime(newEstimatedEndTime);
+                            log.debug("更新已完成工序的预计结束时间，工序ID: {}, 新的预计结束时间: {}", 
+                                    nextProcess.getId(), newEstimatedEndTime);
+                        }
+                        log.debug("更新已完成工序时间，工序ID: {}, 原开始时间: {}, 新开始时间: {}, 新结束时间: {}", 
+                                nextProcess.getId(), originalStartTime, newStartTime, newEndTimeForNext);
+                    } else {
+                        // 如果时间差很小（<=1分钟），认为不需要调整，但需要更新前一个工序的结束时间基准
+                        if (nextProcess.getActualEndTime() != null) {
+                            newEndTimeForNext = nextProcess.getActualEndTime();
+                        }
+                    }
+                }
+            } else if (ProcessStatus.IN_PROGRESS.getCode().equals(nextProcess.getProcessStatus())) {
+                // 进行中工序：调整开始时间和预计结束时间，必须清空实际结束时间
+                // 关键逻辑：后续工序的开始时间应该等于前一个工序的结束时间
+                // 无论是否需要调整开始时间，进行中的工序都不应该有实际结束时间
+                
+                // 首先清空实际结束时间（进行中的工序不应该有实际结束时间）
+                if (nextProcess.getActualEndTime() != null) {
+                    nextProcess.setActualEndTime(null);
+                    needUpdate = true;
+                    log.debug("清空进行中工序的实际结束时间，工序ID: {}", nextProcess.getId());
+                }
+                
+                LocalDateTime originalStartTime = nextProcess.getActualStartTime();
+                LocalDateTime originalEstimatedStartTime = nextProcess.getEstimatedStartTime();
+                // 确定新的预计开始时间：使用前一个工序的结束时间
+                LocalDateTime newEstimatedStartTime = previousEndTime;
+                
+                // 如果预计开始时间需要更新（与原值不同），则更新
+                if (originalEstimatedStartTime == null || !originalEstimatedStartTime.equals(newEstimatedStartTime)) {
+                    long timeDiff = 0;
+                    if (originalEstimatedStartTime != null) {
+                        timeDiff = Duration.between(originalEstimatedStartTime, newEstimatedStartTime).toMinutes();
+                    }
+                    // 如果时间差超过1分钟，或者预计开始时间为空，需要调整
+                    if (originalEstimatedStartTime == null || Math.abs(timeDiff) > 1) {
+                        newStartTime = newEstimatedStartTime;
+                        needUpdate = true;
+                        
+                        if (originalStartTime != null) {
+                            nextProcess.setActualStartTime(newStartTime);
+                        }
+                        nextProcess.setEstimatedStartTime(newStartTime);
+                        // 重新计算预计结束时间：新的预计开始时间 + 控制时间
+                        if (nextProcess.getControlTime() != null) {
+                            newEndTimeForNext = newStartTime.plusMinutes(nextProcess.getControlTime());
+                            nextProcess.setEstimatedEndTime(newEndTimeForNext);
+                        }
+                        log.debug("更新进行中工序时间，工序ID: {}, 原预计开始时间: {}, 新预计开始时间: {}, 新预计结束时间: {}", 
+                                nextProcess.getId(), originalEstimatedStartTime, newStartTime, newEndTimeForNext);
+                    } else {
+                        // 如果时间差很小（<=1分钟），认为不需要调整开始时间
+                        // 但为了确保预计结束时间正确，仍然重新计算：预计开始时间 + 控制时间
+                        if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
+                            newEndTimeForNext = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
+                            // 只有当计算出的预计结束时间与当前值不同时才更新
+                            if (nextProcess.getEstimatedEndTime() == null || 
+                                !nextProcess.getEstimatedEndTime().equals(newEndTimeForNext)) {
+                                nextProcess.setEstimatedEndTime(newEndTimeForNext);
+                                needUpdate = true;
+                            }
+                        } else if (nextProcess.getEstimatedEndTime() != null) {
+                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
+                        }
+                    }
+                } else {
+                    // 如果预计开始时间没有改变，确保预计结束时间正确：预计开始时间 + 控制时间
+                    if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
+                        LocalDateTime expectedEndTime = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
+                        if (nextProcess.getEstimatedEndTime() == null || 
+                            !nextProcess.getEstimatedEndTime().equals(expectedEndTime)) {
+                            nextProcess.setEstimatedEndTime(expectedEndTime);
+                            newEndTimeForNext = expectedEndTime;
+                            needUpdate = true;
+                        } else {
+                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
+                        }
+                    } else if (nextProcess.getEstimatedEndTime() != null) {
+                        newEndTimeForNext = nextProcess.getEstimatedEndTime();
+                    }
+                }
+            } else {
+                // 未开始工序：设置预计开始时间为前一个工序的结束时间
+                // 这样在补填进行中的工序时，下一个工序的预计开始时间会从补填工序的结束时间开始
+                LocalDateTime originalEstimatedStartTime = nextProcess.getEstimatedStartTime();
+                LocalDateTime newEstimatedStartTime = previousEndTime;
+                
+                if (originalEstimatedStartTime == null || !originalEstimatedStartTime.equals(newEstimatedStartTime)) {
+                    // 如果预计开始时间为空，或者不等于前一个工序的结束时间，需要更新
+                    long timeDiff = 0;
+                    if (originalEstimatedStartTime != null) {
+                        timeDiff = Duration.between(originalEstimatedStartTime, newEstimatedStartTime).toMinutes();
+                    }
+                    if (originalEstimatedStartTime == null || Math.abs(timeDiff) > 1) {
+                        nextProcess.setEstimatedStartTime(newEstimatedStartTime);
+                        needUpdate = true;
+                        // 重新计算预计结束时间：新的预计开始时间 + 控制时间
+                        if (nextProcess.getControlTime() != null) {
+                            newEndTimeForNext = newEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
+                            nextProcess.setEstimatedEndTime(newEndTimeForNext);
+                        }
+                        log.debug("更新未开始工序的预计时间，工序ID: {}, 预计开始时间: {}, 预计结束时间: {}", 
+                                nextProcess.getId(), newEstimatedStartTime, newEndTimeForNext);
+                    } else {
+                        // 如果时间差很小（<=1分钟），认为不需要调整开始时间
+                        // 但为了确保预计结束时间正确，仍然重新计算：预计开始时间 + 控制时间
+                        if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
+                            newEndTimeForNext = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
+                            // 只有当计算出的预计结束时间与当前值不同时才更新
+                            if (nextProcess.getEstimatedEndTime() == null || 
+                                !nextProcess.getEstimatedEndTime().equals(newEndTimeForNext)) {
+                                nextProcess.setEstimatedEndTime(newEndTimeForNext);
+                                needUpdate = true;
+                            }
+                        } else if (nextProcess.getEstimatedEndTime() != null) {
+                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
+                        }
+                    }
+                } else {
+                    // 如果预计开始时间已经等于前一个工序的结束时间，确保预计结束时间正确：预计开始时间 + 控制时间
+                    if (nextProcess.getControlTime() != null && originalEstimatedStartTime != null) {
+                        LocalDateTime expectedEndTime = originalEstimatedStartTime.plusMinutes(nextProcess.getControlTime());
+                        if (nextProcess.getEstimatedEndTime() == null || 
+                            !nextProcess.getEstimatedEndTime().equals(expectedEndTime)) {
+                            nextProcess.setEstimatedEndTime(expectedEndTime);
+                            newEndTimeForNext = expectedEndTime;
+                            needUpdate = true;
+                        } else {
+                            newEndTimeForNext = nextProcess.getEstimatedEndTime();
+                        }
+                    } else if (nextProcess.getEstimatedEndTime() != null) {
+                        newEndTimeForNext = nextProcess.getEstimatedEndTime();
+                    }
+                }
+            }
+            
+            if (needUpdate) {
+                changes.add(new ScheduleChange(nextProcess, newStartTime));
+            }
+            
+            // 更新前一个工序的结束时间基准，用于下一个工序的判断
+            if (newEndTimeForNext != null) {
+                previousEndTime = newEndTimeForNext;
+            } else if (needUpdate && newStartTime != null && nextProcess.getControlTime() != null) {
+                // 如果没有结束时间，但调整了开始时间，使用开始时间+控制时间作为基准
+                previousEndTime = newStartTime.plusMinutes(nextProcess.getControlTime());
+            } else if (!needUpdate) {
+                // 如果没有调整，使用当前工序的结束时间作为基准（如果有的话）
+                LocalDateTime currentEndTime = null;
+                if (ProcessStatus.COMPLETED.getCode().equals(nextProcess.getProcessStatus())) {
+                    currentEndTime = nextProcess.getActualEndTime();
+                } else {
+                    currentEndTime = nextProcess.getEstimatedEndTime();
+                }
+                if (currentEndTime != null) {
+                    previousEndTime = currentEndTime;
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 单个工序的调整结果
+     *
+     * @param process 调整后的工序
+     * @param newStartTime 新开始时间（仅调整结束时间时为null）
+     */
+    record ScheduleChange(Process process, LocalDateTime newStartTime) {
+    }
+}
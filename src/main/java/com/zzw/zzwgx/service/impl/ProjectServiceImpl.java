@@ -3,6 +3,7 @@ package com.zzw.zzwgx.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zzw.zzwgx.cache.ProjectHierarchyIndex;
 import com.zzw.zzwgx.common.enums.ProcessStatus;
 import com.zzw.zzwgx.common.enums.ProjectStatus;
 import com.zzw.zzwgx.common.enums.ResultCode;
@@ -14,6 +15,7 @@ import com.zzw.zzwgx.entity.Cycle;
 import com.zzw.zzwgx.entity.Process;
 import com.zzw.zzwgx.entity.Project;
 import com.zzw.zzwgx.entity.User;
+import com.zzw.zzwgx.event.ConstructionEventBroadcaster;
 import com.zzw.zzwgx.mapper.ProjectMapper;
 import com.zzw.zzwgx.service.CycleService;
 import com.zzw.zzwgx.security.SecurityUtils;
@@ -27,6 +29,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -46,6 +49,8 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
     private final ProcessService processService;
     private final UserProjectService userProjectService;
     private final UserService userService;
+    private final ProjectHierarchyIndex projectHierarchyIndex;
+    private final ConstructionEventBroadcaster constructionEventBroadcaster;
     
     @Override
     public Page<Project> getProjectPage(Integer pageNum, Integer pageSize, String name) {
@@ -99,6 +104,9 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
 
         // 由于查询时已经过滤了node_type='SITE'和status，这里直接使用查询结果
         List<Project> siteProjects = page.getRecords();
+        // 一次查询当前页所有工点的最新循环
+        Map<Long, Cycle> latestCycles = cycleService.getLatestCyclesByProjectIds(
+                siteProjects.stream().map(Project::getId).collect(Collectors.toList()));
 
         List<ProjectListResponse> list = siteProjects.stream().map(project -> {
             ProjectListResponse response = new ProjectListResponse();
@@ -110,7 +118,7 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
             response.setStatusDesc(ps != null ? ps.getDesc() : "");
 
             // 获取最新循环：不管状态，获取循环号最大的循环
-            Cycle latestCycle = cycleService.getLatestCycleByProjectId(project.getId());
+            Cycle latestCycle = latestCycles.get(project.getId());
             if (latestCycle != null) {
                 // 有循环，显示最新循环号
                 response.setCurrentCycleNumber(latestCycle.getCycleNumber());
@@ -446,6 +454,7 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
         project.setProjectDescription(request.getProjectDescription());
         project.setProjectStatus(request.getProjectStatus());
         save(project);
+        projectHierarchyIndex.invalidate();
         log.info("项目节点创建成功，ID: {}", project.getId());
         return convertToNode(project);
     }
@@ -471,6 +480,7 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
         project.setProjectDescription(request.getProjectDescription());
         project.setProjectStatus(request.getProjectStatus());
         updateById(project);
+        projectHierarchyIndex.invalidate();
         log.info("项目节点更新成功，ID: {}", projectId);
         return convertToNode(project);
     }
@@ -489,6 +499,7 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
             throw new BusinessException("请先删除子节点");
         }
         removeById(projectId);
+        projectHierarchyIndex.invalidate();
         log.info("项目节点删除成功，ID: {}", projectId);
     }
     
@@ -630,7 +641,7 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
         Set<Long> rootIdSet = new HashSet<>(rootIds);
         
         for (Long id : rootIds) {
-            Project project = getById(id);
+            Project project = projectHierarchyIndex.getProject(id);
             if (project == null) {
                 continue;
             }
@@ -646,11 +657,10 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
         
         // 2. 对于每个绑定的隧道，检查是否有该隧道下的工点已经被绑定
         for (Long tunnelId : tunnelIds) {
-            // 查询该隧道下的所有工点
-            List<Project> tunnelSites = list(new LambdaQueryWrapper<Project>()
-                    .eq(Project::getParentId, tunnelId)
-                    .eq(Project::getNodeType, "SITE")
-                    .eq(Project::getDeleted, 0));
+            // 该隧道下的所有工点
+            List<Project> tunnelSites = projectHierarchyIndex.getChildren(tunnelId).stream()
+                    .filter(child -> "SITE".equals(child.getNodeType()))
+                    .toList();
             
             // 检查是否有该隧道下的工点已经被绑定
             boolean hasBoundSites = tunnelSites.stream()
@@ -688,15 +698,116 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
             throw new BusinessException(ResultCode.PROJECT_NOT_FOUND);
         }
         
+        // 获取当前循环（最新循环）及其工序
+        Cycle currentCycle = cycleService.getLatestCycleByProjectId(projectId);
+        List<Process> processes = currentCycle != null
+                ? processService.getProcessesByCycleId(currentCycle.getId())
+                : Collections.emptyList();
+        Map<Long, String> operatorNames = userService.getDisplayNames(processes.stream()
+                .map(Process::getOperatorId)
+                .collect(Collectors.toList()));
+        SiteConstructionStatusResponse response = buildSiteConstructionStatus(
+                project, currentCycle, processes, operatorNames);
+        
+        log.info("查询工点施工状态成功，项目ID: {}, 当前工序: {}, 已完成工序数: {}", 
+                projectId, 
+                response.getCurrentProcess() != null ? response.getCurrentProcess().getProcessName() : "无",
+                response.getCompletedProcesses() != null ? response.getCompletedProcesses().size() : 0);
+        return response;
+    }
+    
+    @Override
+    public List<SiteConstructionStatusResponse> getConstructionBoard() {
+        log.info("查询施工看板（所有可访问工点）");
+        List<Long> allowedSiteIds = getAllowedProjectIds(null);
+        
+        // 1. 可访问的工点：系统管理员为全部工点，其余按分配的工点
+        List<Project> sites;
+        if (allowedSiteIds == null) {
+            sites = lambdaQuery()
+                    .eq(Project::getNodeType, "SITE")
+                    .orderByAsc(Project::getId)
+                    .list();
+        } else {
+            sites = allowedSiteIds.stream()
+                    .map(projectHierarchyIndex::getProject)
+                    .filter(Objects::nonNull)
+                    .filter(project -> "SITE".equalsIgnoreCase(project.getNodeType()))
+                    .collect(Collectors.toList());
+        }
+        if (sites.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // 2. 所有工点的最新循环（一次查询）
+        Map<Long, Cycle> latestCycles = cycleService.getLatestCyclesByProjectIds(
+                sites.stream().map(Project::getId).collect(Collectors.toList()));
+        
+        // 3. 这些循环的全部工序（一次查询）
+        Map<Long, List<Process>> processesByCycle = Collections.emptyMap();
+        List<Process> allProcesses = Collections.emptyList();
+        if (!latestCycles.isEmpty()) {
+            List<Long> cycleIds = latestCycles.values().stream().map(Cycle::getId).collect(Collectors.toList());
+            allProcesses = processService.lambdaQuery()
+                    .in(Process::getCycleId, cycleIds)
+                    .list();
+            processesByCycle = allProcesses.stream().collect(Collectors.groupingBy(Process::getCycleId));
+        }
+        
+        // 4. 涉及的操作员（一次查询）
+        Map<Long, String> operatorNames = userService.getDisplayNames(allProcesses.stream()
+                .map(Process::getOperatorId)
+                .collect(Collectors.toList()));
+        
+        List<SiteConstructionStatusResponse> result = new ArrayList<>(sites.size());
+        for (Project site : sites) {
+            Cycle cycle = latestCycles.get(site.getId());
+            List<Process> processes = cycle != null
+                    ? processesByCycle.getOrDefault(cycle.getId(), Collections.emptyList())
+                    : Collections.emptyList();
+            result.add(buildSiteConstructionStatus(site, cycle, processes, operatorNames));
+        }
+        log.info("查询施工看板成功，工点数: {}, 有循环的工点数: {}", sites.size(), latestCycles.size());
+        return result;
+    }
+    
+    @Override
+    public SseEmitter subscribeConstructionEvents(Long projectId) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        List<Long> allowedSiteIds = getAllowedProjectIds(null);
+        Collection<Long> siteIds = allowedSiteIds;
+        if (projectId != null) {
+            Project project = projectHierarchyIndex.getProject(projectId);
+            if (project == null || !"SITE".equalsIgnoreCase(project.getNodeType())) {
+                throw new BusinessException(ResultCode.PROJECT_NOT_FOUND);
+            }
+            if (allowedSiteIds != null && !allowedSiteIds.contains(projectId)) {
+                log.warn("订阅施工事件失败，无该工点权限，用户ID: {}, 项目ID: {}", userId, projectId);
+                throw new BusinessException(ResultCode.FORBIDDEN);
+            }
+            siteIds = Collections.singletonList(projectId);
+        }
+        return constructionEventBroadcaster.subscribe(userId, siteIds);
+    }
+    
+    /**
+     * 根据工点、最新循环及其工序组装施工状态
+     *
+     * @param project 工点
+     * @param currentCycle 最新循环，可为null
+     * @param processes 最新循环的工序
+     * @param operatorNames 操作员ID -> 姓名
+     */
+    private SiteConstructionStatusResponse buildSiteConstructionStatus(Project project, Cycle currentCycle,
+                                                                       List<Process> processes,
+                                                                       Map<Long, String> operatorNames) {
         SiteConstructionStatusResponse response = new SiteConstructionStatusResponse();
         response.setProjectId(project.getId());
         response.setProjectName(project.getProjectName());
         response.setProjectStatus(project.getProjectStatus());
         
-        // 获取当前循环（最新循环）
-        Cycle currentCycle = cycleService.getLatestCycleByProjectId(projectId);
         if (currentCycle == null) {
-            log.info("工点暂无循环数据，项目ID: {}", projectId);
+            log.debug("工点暂无循环数据，项目ID: {}", project.getId());
             return response;
         }
         
@@ -731,14 +842,13 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
             }
         }
         
-        // 获取当前循环的所有工序
-        List<Process> processes = processService.getProcessesByCycleId(currentCycle.getId());
         if (CollectionUtils.isEmpty(processes)) {
-            log.info("当前循环暂无工序数据，循环ID: {}", currentCycle.getId());
+            log.debug("当前循环暂无工序数据，循环ID: {}", currentCycle.getId());
             return response;
         }
         
         // 按开始顺序排序
+        processes = new ArrayList<>(processes);
         processes.sort((p1, p2) -> {
             int order1 = p1.getStartOrder() != null ? p1.getStartOrder() : 0;
             int order2 = p2.getStartOrder() != null ? p2.getStartOrder() : 0;
@@ -806,10 +916,7 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
             
             // 获取操作员姓名
             if (currentProcess.getOperatorId() != null) {
-                User operator = userService.getById(currentProcess.getOperatorId());
-                if (operator != null) {
-                    currentInfo.setOperatorName(operator.getRealName());
-                }
+                currentInfo.setOperatorName(operatorNames.get(currentProcess.getOperatorId()));
             }
             
             response.setCurrentProcess(currentInfo);
@@ -869,22 +976,13 @@ public class ProjectServiceImpl extends ServiceImpl<ProjectMapper, Project> impl
                     
                     // 获取操作员姓名
                     if (process.getOperatorId() != null) {
-                        User operator = userService.getById(process.getOperatorId());
-                        if (operator != null) {
-                            info.setOperatorName(operator.getRealName());
-                        }
+                        info.setOperatorName(operatorNames.get(process.getOperatorId()));
                     }
                     
                     return info;
                 }).collect(Collectors.toList());
         
         response.setCompletedProcesses(completedInfos);
-        
-        log.info("查询工点施工状态成功，项目ID: {}, 当前工序: {}, 已完成工序数: {}", 
-                projectId, 
-                currentProcess != null ? currentProcess.getProcessName() : "无",
-                completedInfos.size());
-        
         return response;
     }
 
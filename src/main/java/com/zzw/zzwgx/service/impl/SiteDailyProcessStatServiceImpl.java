@@ -0,0 +1,79 @@
+package com.zzw.zzwgx.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zzw.zzwgx.common.exception.BusinessException;
+import com.zzw.zzwgx.dto.statistics.SiteProcessStat;
+import com.zzw.zzwgx.entity.Cycle;
+import com.zzw.zzwgx.entity.SiteDailyProcessStat;
+import com.zzw.zzwgx.mapper.CycleMapper;
+import com.zzw.zzwgx.mapper.SiteDailyProcessStatMapper;
+import com.zzw.zzwgx.service.SiteDailyProcessStatService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 工点每日工序统计服务实现类
+ * 统计行按"工点 + 循环开始日期"归集，每次刷新都从工序表重算当天数据，避免增量累加产生偏差
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SiteDailyProcessStatServiceImpl extends ServiceImpl<SiteDailyProcessStatMapper, SiteDailyProcessStat>
+        implements SiteDailyProcessStatService {
+
+    private final CycleMapper cycleMapper;
+
+    @Override
+    public void refreshByCycleId(Long cycleId) {
+        if (cycleId == null) {
+            return;
+        }
+        Cycle cycle = cycleMapper.selectById(cycleId);
+        if (cycle == null) {
+            log.debug("刷新工点每日统计跳过，循环不存在，循环ID: {}", cycleId);
+            return;
+        }
+        refreshSiteDay(cycle.getProjectId(), cycle.getStartDate());
+    }
+
+    @Override
+    public void refreshSiteDay(Long projectId, LocalDateTime cycleStartDate) {
+        if (projectId == null || cycleStartDate == null) {
+            return;
+        }
+        LocalDate statDate = cycleStartDate.toLocalDate();
+        baseMapper.refreshSiteDay(projectId, statDate);
+        log.debug("刷新工点每日统计，工点ID: {}, 日期: {}", projectId, statDate);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new BusinessException("重建日期范围无效");
+        }
+        log.info("重建工点每日统计，开始日期: {}, 结束日期: {}", startDate, endDate);
+        int deleted = baseMapper.deleteByDateRange(startDate, endDate);
+        int inserted = baseMapper.insertAggregatedRange(startDate, endDate);
+        log.info("重建工点每日统计完成，开始日期: {}, 结束日期: {}, 清理行数: {}, 写入行数: {}",
+                startDate, endDate, deleted, inserted);
+        return inserted;
+    }
+
+    @Override
+    public List<SiteProcessStat> sumByProjectIds(Collection<Long> projectIds, LocalDate startDate, LocalDate endDate) {
+        if (CollectionUtils.isEmpty(projectIds)) {
+            return new ArrayList<>();
+        }
+        return baseMapper.sumByProjectIds(projectIds, startDate, endDate);
+    }
+}
@@ -1,14 +1,19 @@
 package com.zzw.zzwgx.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zzw.zzwgx.cache.ProjectHierarchyIndex;
 import com.zzw.zzwgx.common.enums.ProcessStatus;
 import com.zzw.zzwgx.dto.response.MonthlyStatisticsResponse;
 import com.zzw.zzwgx.dto.response.StatisticsResponse;
 import com.zzw.zzwgx.dto.response.WeeklyOvertimeSummaryResponse;
+import com.zzw.zzwgx.dto.statistics.OvertimeDetailRow;
+import com.zzw.zzwgx.dto.statistics.SiteAdvanceStat;
+import com.zzw.zzwgx.dto.statistics.SiteProcessStat;
 import com.zzw.zzwgx.entity.Cycle;
 import com.zzw.zzwgx.entity.Process;
 import com.zzw.zzwgx.entity.Project;
-import com.zzw.zzwgx.entity.User;
+import com.zzw.zzwgx.mapper.CycleMapper;
+import com.zzw.zzwgx.mapper.ProcessMapper;
 import com.zzw.zzwgx.security.SecurityUtils;
 import com.zzw.zzwgx.service.*;
 import lombok.RequiredArgsConstructor;
@@ -35,8 +40,12 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final ProjectService projectService;
     private final CycleService cycleService;
     private final ProcessService processService;
-    private final UserService userService;
     private final UserProjectService userProjectService;
+    private final SiteDailyProcessStatService siteDailyProcessStatService;
+    private final ProjectHierarchyIndex projectHierarchyIndex;
+    
+    private final CycleMapper cycleMapper;
+    private final ProcessMapper processMapper;
     
     @Override
     public StatisticsResponse.ProcessTimeStat getProcessTimeStatistics(Long projectId, Integer year, Integer month) {
@@ -48,44 +57,12 @@ public class StatisticsServiceImpl implements StatisticsService {
         }
         
         LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.with(TemporalAdjusters.lastDayOfMonth());
         LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        LocalDateTime endDateTime = startDate.with(TemporalAdjusters.lastDayOfMonth()).atTime(23, 59, 59);
         log.debug("统计时间范围，开始时间: {}, 结束时间: {}", startDateTime, endDateTime);
         
-        // 获取该时间段内的循环
-        List<Cycle> cycles = cycleService.list(new LambdaQueryWrapper<Cycle>()
-                .eq(Cycle::getProjectId, projectId)
-                .between(Cycle::getStartDate, startDateTime, endDateTime));
-        log.debug("查询到循环数量: {}", cycles.size());
-        
-        double totalControlTime = 0;
-        double totalActualTime = 0;
-        int count = 0;
-        
-        for (Cycle cycle : cycles) {
-            List<Process> processes = processService.getProcessesByCycleId(cycle.getId());
-            for (Process process : processes) {
-                if (ProcessStatus.COMPLETED.getCode().equals(process.getProcessStatus())) {
-                    totalControlTime += process.getControlTime();
-                    if (process.getActualStartTime() != null && process.getActualEndTime() != null) {
-                        long minutes = Duration.between(process.getActualStartTime(), process.getActualEndTime()).toMinutes();
-                        totalActualTime += minutes;
-                    }
-                    count++;
-                }
-            }
-        }
-        
-        StatisticsResponse.ProcessTimeStat stat = new StatisticsResponse.ProcessTimeStat();
-        stat.setProjectName(project.getProjectName());
-        if (count > 0) {
-            stat.setAverageTime(formatToOneDecimal(totalActualTime / count / 60.0)); // 转换为小时
-            stat.setSavedTime(formatToOneDecimal(Math.max(0, (totalControlTime - totalActualTime) / 60.0))); // 转换为小时
-        } else {
-            stat.setAverageTime(0.0);
-            stat.setSavedTime(0.0);
-        }
+        Map<Long, SiteProcessStat> statMap = loadSiteProcessStats(List.of(projectId), startDateTime, endDateTime);
+        StatisticsResponse.ProcessTimeStat stat = buildProcessTimeStat(project, statMap.get(projectId));
         log.info("工点工序总时间统计计算完成，项目ID: {}, 平均时间: {} 小时，节省时间: {} 小时", 
                 projectId, stat.getAverageTime(), stat.getSavedTime());
         
@@ -100,12 +77,16 @@ public class StatisticsServiceImpl implements StatisticsService {
             log.warn("当前用户无可访问的工点，返回空列表");
             return new ArrayList<>();
         }
+        
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = startDate.with(TemporalAdjusters.lastDayOfMonth()).atTime(23, 59, 59);
+        
+        // 一次聚合查询得到所有工点的统计数据
+        Map<Long, SiteProcessStat> statMap = loadSiteProcessStats(getSiteIds(sites), startDateTime, endDateTime);
         List<StatisticsResponse.ProcessTimeStat> result = new ArrayList<>();
         for (Project site : sites) {
-            StatisticsResponse.ProcessTimeStat stat = getProcessTimeStatistics(site.getId(), year, month);
-            if (stat != null) {
-                result.add(stat);
-            }
+            result.add(buildProcessTimeStat(site, statMap.get(site.getId())));
         }
         log.info("工序总时间统计列表计算完成，可访问工点数: {}, 统计结果数: {}", sites.size(), result.size());
         return result;
@@ -121,30 +102,13 @@ public class StatisticsServiceImpl implements StatisticsService {
         }
         
         LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.with(TemporalAdjusters.lastDayOfMonth());
         LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        List<Cycle> cycles = cycleService.list(new LambdaQueryWrapper<Cycle>()
-                .eq(Cycle::getProjectId, projectId)
-                .between(Cycle::getStartDate, startDateTime, endDateTime));
-        log.debug("查询到循环数量: {}", cycles.size());
+        LocalDateTime endDateTime = startDate.with(TemporalAdjusters.lastDayOfMonth()).atTime(23, 59, 59);
         
-        double totalAdvanceLength = 0;
-        int cycleCount = cycles.size();
-        
-        for (Cycle cycle : cycles) {
-            if (cycle.getAdvanceLength() != null) {
-                totalAdvanceLength += cycle.getAdvanceLength().doubleValue();
-            }
-        }
-        
-        StatisticsResponse.AdvanceLengthStat stat = new StatisticsResponse.AdvanceLengthStat();
-        stat.setProjectName(project.getProjectName());
-        stat.setCycleCount(cycleCount);
-        stat.setAdvanceLength(formatToOneDecimal(totalAdvanceLength));
+        Map<Long, SiteAdvanceStat> statMap = loadSiteAdvanceStats(List.of(projectId), startDateTime, endDateTime);
+        StatisticsResponse.AdvanceLengthStat stat = buildAdvanceLengthStat(project, statMap.get(projectId));
         log.info("进总尺长度统计计算完成，项目ID: {}, 循环数量: {}, 总进尺: {} 米", 
-                projectId, cycleCount, totalAdvanceLength);
+                projectId, stat.getCycleCount(), stat.getAdvanceLength());
         
         return stat;
     }
@@ -157,12 +121,15 @@ public class StatisticsServiceImpl implements StatisticsService {
             log.warn("当前用户无可访问的工点，返回空列表");
             return new ArrayList<>();
         }
+        
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = startDate.with(TemporalAdjusters.lastDayOfMonth()).atTime(23, 59, 59);
+        
+        Map<Long, SiteAdvanceStat> statMap = loadSiteAdvanceStats(getSiteIds(sites), startDateTime, endDateTime);
         List<StatisticsResponse.AdvanceLengthStat> result = new ArrayList<>();
         for (Project site : sites) {
-            StatisticsResponse.AdvanceLengthStat stat = getAdvanceLengthStatistics(site.getId(), year, month);
-            if (stat != null) {
-                result.add(stat);
-            }
+            result.add(buildAdvanceLengthStat(site, statMap.get(site.getId())));
         }
         log.info("进尺长度统计列表计算完成，可访问工点数: {}, 统计结果数: {}", sites.size(), result.size());
         return result;
@@ -177,43 +144,15 @@ public class StatisticsServiceImpl implements StatisticsService {
             return null;
         }
         
-        LocalDate now = LocalDate.now();
-        LocalDate weekStart = now.minusDays(now.getDayOfWeek().getValue() - 1);
-        LocalDate weekEnd = weekStart.plusDays(6);
+        LocalDate weekStart = currentWeekStart();
         LocalDateTime weekStartDateTime = weekStart.atStartOfDay();
-        LocalDateTime weekEndDateTime = weekEnd.atTime(23, 59, 59);
+        LocalDateTime weekEndDateTime = weekStart.plusDays(6).atTime(23, 59, 59);
         log.debug("本周时间范围，开始时间: {}, 结束时间: {}", weekStartDateTime, weekEndDateTime);
         
-        List<Cycle> cycles = cycleService.list(new LambdaQueryWrapper<Cycle>()
-                .eq(Cycle::getProjectId, projectId)
-                .between(Cycle::getStartDate, weekStartDateTime, weekEndDateTime));
-        log.debug("查询到循环数量: {}", cycles.size());
-        
-        double totalOvertime = 0;
-        double totalSavedTime = 0;
-        
-        for (Cycle cycle : cycles) {
-            List<Process> processes = processService.getProcessesByCycleId(cycle.getId());
-            for (Process process : processes) {
-                if (ProcessStatus.COMPLETED.getCode().equals(process.getProcessStatus())) {
-                    if (process.getActualStartTime() != null && process.getActualEndTime() != null) {
-                        long minutes = Duration.between(process.getActualStartTime(), process.getActualEndTime()).toMinutes();
-                        if (minutes > process.getControlTime()) {
-                            totalOvertime += (minutes - process.getControlTime()) / 60.0;
-                        } else {
-                            totalSavedTime += (process.getControlTime() - minutes) / 60.0;
-                        }
-                    }
-                }
-            }
-        }
-        
-        StatisticsResponse.OvertimeStat stat = new StatisticsResponse.OvertimeStat();
-        stat.setProjectName(project.getProjectName());
-        stat.setOvertime(formatToOneDecimal(totalOvertime));
-        stat.setSavedTime(formatToOneDecimal(totalSavedTime));
+        Map<Long, SiteProcessStat> statMap = loadSiteProcessStats(List.of(projectId), weekStartDateTime, weekEndDateTime);
+        StatisticsResponse.OvertimeStat stat = buildOvertimeStat(project, statMap.get(projectId));
         log.info("本周超耗总时间统计计算完成，项目ID: {}, 超时时间: {} 小时，节省时间: {} 小时", 
-                projectId, totalOvertime, totalSavedTime);
+                projectId, stat.getOvertime(), stat.getSavedTime());
         
         return stat;
     }
@@ -226,12 +165,15 @@ public class StatisticsServiceImpl implements StatisticsService {
             log.warn("当前用户无可访问的工点，返回空列表");
             return new ArrayList<>();
         }
+        
+        LocalDate weekStart = currentWeekStart();
+        LocalDateTime weekStartDateTime = weekStart.atStartOfDay();
+        LocalDateTime weekEndDateTime = weekStart.plusDays(6).atTime(23, 59, 59);
+        
+        Map<Long, SiteProcessStat> statMap = loadSiteProcessStats(getSiteIds(sites), weekStartDateTime, weekEndDateTime);
         List<StatisticsResponse.OvertimeStat> result = new ArrayList<>();
         for (Project site : sites) {
-            StatisticsResponse.OvertimeStat stat = getOvertimeStatistics(site.getId());
-            if (stat != null) {
-                result.add(stat);
-            }
+            result.add(buildOvertimeStat(site, statMap.get(site.getId())));
         }
         log.info("本周超耗统计列表计算完成，可访问工点数: {}, 统计结果数: {}", sites.size(), result.size());
         return result;
@@ -330,80 +272,34 @@ public class StatisticsServiceImpl implements StatisticsService {
         MonthlyStatisticsResponse response = new MonthlyStatisticsResponse();
         response.setMonth(month);
         List<MonthlyStatisticsResponse.ProjectStatistics> projectStatsList = new ArrayList<>();
+        if (sites.isEmpty()) {
+            response.setProjectStatistics(projectStatsList);
+            return response;
+        }
+        
+        // 所有工点的进尺、工序时长和超耗明细各用一次查询完成
+        List<Long> siteIds = getSiteIds(sites);
+        Map<Long, SiteAdvanceStat> advanceMap = loadSiteAdvanceStats(siteIds, startDateTime, endDateTime);
+        Map<Long, SiteProcessStat> processMap = loadSiteProcessStats(siteIds, startDateTime, endDateTime);
+        Map<Long, List<MonthlyStatisticsResponse.OvertimeDetail>> detailMap = new HashMap<>();
+        for (OvertimeDetailRow row : processMapper.selectOvertimeDetails(siteIds, startDateTime, endDateTime)) {
+            detailMap.computeIfAbsent(row.getProjectId(), id -> new ArrayList<>()).add(toOvertimeDetail(row));
+        }
         
-        // 遍历每个工点进行统计
         for (Project site : sites) {
             MonthlyStatisticsResponse.ProjectStatistics projectStat = new MonthlyStatisticsResponse.ProjectStatistics();
             projectStat.setProjectId(site.getId());
             projectStat.setProjectName(site.getProjectName());
             
-            // 获取该时间段内的循环
-            List<Cycle> cycles = cycleService.list(new LambdaQueryWrapper<Cycle>()
-                    .eq(Cycle::getProjectId, site.getId())
-                    .between(Cycle::getStartDate, startDateTime, endDateTime));
-            
-            // 统计进尺长度
-            BigDecimal totalAdvanceLength = BigDecimal.ZERO;
-            for (Cycle cycle : cycles) {
-                if (cycle.getAdvanceLength() != null) {
-                    totalAdvanceLength = totalAdvanceLength.add(cycle.getAdvanceLength());
-                }
-            }
+            SiteAdvanceStat advanceStat = advanceMap.get(site.getId());
+            BigDecimal totalAdvanceLength = advanceStat != null && advanceStat.getAdvanceLength() != null
+                    ? advanceStat.getAdvanceLength() : BigDecimal.ZERO;
             projectStat.setAdvanceLength(formatBigDecimalToOneDecimal(totalAdvanceLength));
             
-            // 统计工序时间和超耗信息
-            double totalProcessTime = 0.0; // 总时长（小时）
-            double totalOvertime = 0.0; // 超耗时间（小时）
-            List<MonthlyStatisticsResponse.OvertimeDetail> overtimeDetails = new ArrayList<>();
-            
-            for (Cycle cycle : cycles) {
-                List<Process> processes = processService.getProcessesByCycleId(cycle.getId());
-                for (Process process : processes) {
-                    if (ProcessStatus.COMPLETED.getCode().equals(process.getProcessStatus()) 
-                            && process.getActualStartTime() != null 
-                            && process.getActualEndTime() != null) {
-                        long actualMinutes = Duration.between(
-                                process.getActualStartTime(), 
-                                process.getActualEndTime()).toMinutes();
-                        double actualHours = actualMinutes / 60.0;
-                        totalProcessTime += actualHours;
-                        
-                        // 检查是否超时
-                        if (process.getControlTime() != null && actualMinutes > process.getControlTime()) {
-                            long overtimeMinutes = actualMinutes - process.getControlTime();
-                            double overtimeHours = overtimeMinutes / 60.0;
-                            totalOvertime += overtimeHours;
-                            
-                            // 添加到超耗详情列表
-                            MonthlyStatisticsResponse.OvertimeDetail detail = 
-                                    new MonthlyStatisticsResponse.OvertimeDetail();
-                            detail.setProcessId(process.getId());
-                            detail.setProcessName(process.getProcessName());
-                            detail.setCycleNumber(cycle.getCycleNumber());
-                            detail.setControlTime(process.getControlTime());
-                            detail.setActualTime((int) actualMinutes);
-                            detail.setOvertimeMinutes((int) overtimeMinutes);
-                            detail.setOvertimeReason(process.getOvertimeReason());
-                            detail.setActualStartTime(process.getActualStartTime());
-                            detail.setActualEndTime(process.getActualEndTime());
-                            
-                            // 获取操作员姓名
-                            if (process.getOperatorId() != null) {
-                                User operator = userService.getById(process.getOperatorId());
-                                if (operator != null) {
-                                    detail.setOperatorName(operator.getRealName());
-                                }
-                            }
-                            
-                            overtimeDetails.add(detail);
-                        }
-                    }
-                }
-            }
-            
-            projectStat.setTotalProcessTime(formatToOneDecimal(totalProcessTime));
-            projectStat.setOvertime(formatToOneDecimal(totalOvertime));
-            projectStat.setOvertimeDetails(overtimeDetails);
+            SiteProcessStat processStat = processMap.get(site.getId());
+            projectStat.setTotalProcessTime(formatToOneDecimal(minutesToHours(processStat != null ? processStat.getActualMinutes() : null)));
+            projectStat.setOvertime(formatToOneDecimal(minutesToHours(processStat != null ? processStat.getOvertimeMinutes() : null)));
+            projectStat.setOvertimeDetails(detailMap.getOrDefault(site.getId(), new ArrayList<>()));
             
             projectStatsList.add(projectStat);
         }
@@ -444,7 +340,7 @@ public class StatisticsServiceImpl implements StatisticsService {
         }
         
         // 将分配的节点ID展开为所有子层级的工点ID
-        List<Long> siteProjectIds = expandToSiteProjectIds(assignedProjectIds);
+        List<Long> siteProjectIds = projectHierarchyIndex.getSiteDescendantIds(assignedProjectIds);
         if (CollectionUtils.isEmpty(siteProjectIds)) {
             log.debug("普通管理员未分配到任何工点，用户ID: {}", userId);
             return new ArrayList<>();
@@ -456,41 +352,12 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .in(Project::getId, siteProjectIds));
     }
     
-    /**
-     * 将任意层级的节点展开为所有子层级的工点（node_type=SITE）ID
-     */
-    private List<Long> expandToSiteProjectIds(List<Long> rootIds) {
-        List<Long> result = new ArrayList<>();
-        if (CollectionUtils.isEmpty(rootIds)) {
-            return result;
-        }
-        Queue<Long> queue = new ArrayDeque<>(rootIds);
-        while (!queue.isEmpty()) {
-            Long currentId = queue.poll();
-            Project project = projectService.getById(currentId);
-            if (project == null) {
-                continue;
-            }
-            if ("SITE".equalsIgnoreCase(project.getNodeType())) {
-                result.add(project.getId());
-            } else {
-                List<Project> children = projectService.list(new LambdaQueryWrapper<Project>()
-                        .eq(Project::getParentId, currentId));
-                if (!children.isEmpty()) {
-                    children.forEach(child -> queue.offer(child.getId()));
-                }
-            }
-        }
-        return result;
-    }
-    
     @Override
     public WeeklyOvertimeSummaryResponse getWeeklyOvertimeSummary() {
         log.info("计算每周超耗时间汇总和排名");
         
         // 计算本周时间范围
-        LocalDate now = LocalDate.now();
-        LocalDate weekStart = now.minusDays(now.getDayOfWeek().getValue() - 1);
+        LocalDate weekStart = currentWeekStart();
         LocalDate weekEnd = weekStart.plusDays(6);
         LocalDateTime weekStartDateTime = weekStart.atStartOfDay();
         LocalDateTime weekEndDateTime = weekEnd.atTime(23, 59, 59);
@@ -507,42 +374,16 @@ public class StatisticsServiceImpl implements StatisticsService {
         List<WeeklyOvertimeSummaryResponse.ProjectOvertimeStat> overtimeStats = new ArrayList<>();
         List<WeeklyOvertimeSummaryResponse.ProjectSavedTimeRank> savedTimeRanks = new ArrayList<>();
         
-        // 遍历每个工点进行统计
+        // 一次聚合查询得到所有工点的超耗、节约时间和完成工序数
+        Map<Long, SiteProcessStat> statMap = sites.isEmpty()
+                ? new HashMap<>()
+                : loadSiteProcessStats(getSiteIds(sites), weekStartDateTime, weekEndDateTime);
+        
         for (Project site : sites) {
-            // 获取该时间段内的循环
-            List<Cycle> cycles = cycleService.list(new LambdaQueryWrapper<Cycle>()
-                    .eq(Cycle::getProjectId, site.getId())
-                    .between(Cycle::getStartDate, weekStartDateTime, weekEndDateTime));
-            
-            double totalOvertime = 0.0; // 超耗时间（小时）
-            double totalSavedTime = 0.0; // 节约时间（小时）
-            int completedProcessCount = 0;
-            
-            for (Cycle cycle : cycles) {
-                List<Process> processes = processService.getProcessesByCycleId(cycle.getId());
-                for (Process process : processes) {
-                    if (ProcessStatus.COMPLETED.getCode().equals(process.getProcessStatus()) 
-                            && process.getActualStartTime() != null 
-                            && process.getActualEndTime() != null
-                            && process.getControlTime() != null) {
-                        long actualMinutes = Duration.between(
-                                process.getActualStartTime(), 
-                                process.getActualEndTime()).toMinutes();
-                        
-                        completedProcessCount++;
-                        
-                        if (actualMinutes > process.getControlTime()) {
-                            // 超时
-                            long overtimeMinutes = actualMinutes - process.getControlTime();
-                            totalOvertime += overtimeMinutes / 60.0;
-                        } else {
-                            // 节约时间
-                            long savedMinutes = process.getControlTime() - actualMinutes;
-                            totalSavedTime += savedMinutes / 60.0;
-                        }
-                    }
-                }
-            }
+            SiteProcessStat stat = statMap.get(site.getId());
+            double totalOvertime = minutesToHours(stat != null ? stat.getOvertimeMinutes() : null);
+            double totalSavedTime = minutesToHours(stat != null ? stat.getSavedMinutes() : null);
+            int completedProcessCount = stat != null && stat.getTimedCount() != null ? stat.getTimedCount() : 0;
             
             // 创建超耗统计对象
             WeeklyOvertimeSummaryResponse.ProjectOvertimeStat overtimeStat = 
@@ -585,6 +426,94 @@ public class StatisticsServiceImpl implements StatisticsService {
         return response;
     }
     
+    /**
+     * 按工点批量汇总工点每日统计，返回 工点ID -> 统计 的映射
+     * 统计时间范围均为整天，直接按日期汇总每日统计行
+     */
+    private Map<Long, SiteProcessStat> loadSiteProcessStats(List<Long> siteIds, LocalDateTime start, LocalDateTime end) {
+        Map<Long, SiteProcessStat> result = new HashMap<>();
+        for (SiteProcessStat stat : siteDailyProcessStatService.sumByProjectIds(siteIds, start.toLocalDate(), end.toLocalDate())) {
+            result.put(stat.getProjectId(), stat);
+        }
+        return result;
+    }
+    
+    /**
+     * 按工点批量查询进尺聚合统计，返回 工点ID -> 统计 的映射
+     */
+    private Map<Long, SiteAdvanceStat> loadSiteAdvanceStats(List<Long> siteIds, LocalDateTime start, LocalDateTime end) {
+        Map<Long, SiteAdvanceStat> result = new HashMap<>();
+        for (SiteAdvanceStat stat : cycleMapper.selectSiteAdvanceStats(siteIds, start, end)) {
+            result.put(stat.getProjectId(), stat);
+        }
+        return result;
+    }
+    
+    private StatisticsResponse.ProcessTimeStat buildProcessTimeStat(Project project, SiteProcessStat siteStat) {
+        StatisticsResponse.ProcessTimeStat stat = new StatisticsResponse.ProcessTimeStat();
+        stat.setProjectName(project.getProjectName());
+        int count = siteStat != null && siteStat.getCompletedCount() != null ? siteStat.getCompletedCount() : 0;
+        if (count > 0) {
+            double totalControlTime = siteStat.getControlMinutes() != null ? siteStat.getControlMinutes() : 0;
+            double totalActualTime = siteStat.getActualMinutes() != null ? siteStat.getActualMinutes() : 0;
+            stat.setAverageTime(formatToOneDecimal(totalActualTime / count / 60.0)); // 转换为小时
+            stat.setSavedTime(formatToOneDecimal(Math.max(0, (totalControlTime - totalActualTime) / 60.0))); // 转换为小时
+        } else {
+            stat.setAverageTime(0.0);
+            stat.setSavedTime(0.0);
+        }
+        return stat;
+    }
+    
+    private StatisticsResponse.AdvanceLengthStat buildAdvanceLengthStat(Project project, SiteAdvanceStat siteStat) {
+        StatisticsResponse.AdvanceLengthStat stat = new StatisticsResponse.AdvanceLengthStat();
+        stat.setProjectName(project.getProjectName());
+        stat.setCycleCount(siteStat != null && siteStat.getCycleCount() != null ? siteStat.getCycleCount() : 0);
+        double totalAdvanceLength = siteStat != null && siteStat.getAdvanceLength() != null
+                ? siteStat.getAdvanceLength().doubleValue() : 0;
+        stat.setAdvanceLength(formatToOneDecimal(totalAdvanceLength));
+        return stat;
+    }
+    
+    private StatisticsResponse.OvertimeStat buildOvertimeStat(Project project, SiteProcessStat siteStat) {
+        StatisticsResponse.OvertimeStat stat = new StatisticsResponse.OvertimeStat();
+        stat.setProjectName(project.getProjectName());
+        stat.setOvertime(formatToOneDecimal(minutesToHours(siteStat != null ? siteStat.getOvertimeMinutes() : null)));
+        stat.setSavedTime(formatToOneDecimal(minutesToHours(siteStat != null ? siteStat.getSavedMinutes() : null)));
+        return stat;
+    }
+    
+    private MonthlyStatisticsResponse.OvertimeDetail toOvertimeDetail(OvertimeDetailRow row) {
+        MonthlyStatisticsResponse.OvertimeDetail detail = new MonthlyStatisticsResponse.OvertimeDetail();
+        detail.setProcessId(row.getProcessId());
+        detail.setProcessName(row.getProcessName());
+        detail.setCycleNumber(row.getCycleNumber());
+        detail.setControlTime(row.getControlTime());
+        detail.setActualTime(row.getActualTime());
+        detail.setOvertimeMinutes(row.getActualTime() - row.getControlTime());
+        detail.setOvertimeReason(row.getOvertimeReason());
+        detail.setActualStartTime(row.getActualStartTime());
+        detail.setActualEndTime(row.getActualEndTime());
+        detail.setOperatorName(row.getOperatorName());
+        return detail;
+    }
+    
+    private List<Long> getSiteIds(List<Project> sites) {
+        return sites.stream().map(Project::getId).toList();
+    }
+    
+    /**
+     * 本周周一
+     */
+    private LocalDate currentWeekStart() {
+        LocalDate now = LocalDate.now();
+        return now.minusDays(now.getDayOfWeek().getValue() - 1);
+    }
+    
+    private double minutesToHours(Long minutes) {
+        return minutes == null ? 0.0 : minutes / 60.0;
+    }
+    
     /**
      * 格式化Double值为保留一位小数
      */
@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.zzw.zzwgx.common.enums.ResultCode;
 import com.zzw.zzwgx.common.enums.UserRole;
 import com.zzw.zzwgx.common.exception.BusinessException;
+import com.zzw.zzwgx.dto.UserRoleCodeRow;
 import com.zzw.zzwgx.dto.request.CreateUserRequest;
 import com.zzw.zzwgx.dto.request.RegisterRequest;
 import com.zzw.zzwgx.dto.request.UpdateUserRequest;
@@ -14,19 +15,16 @@ import com.zzw.zzwgx.dto.response.UserListResponse;
 import com.zzw.zzwgx.dto.response.UserListResponse.ProjectOption;
 import com.zzw.zzwgx.dto.response.UserProfileResponse;
 import com.zzw.zzwgx.dto.response.UserViewListResponse;
-import com.zzw.zzwgx.entity.Cycle;
-import com.zzw.zzwgx.entity.Process;
 import com.zzw.zzwgx.entity.Project;
 import com.zzw.zzwgx.entity.Role;
 import com.zzw.zzwgx.entity.User;
 import com.zzw.zzwgx.entity.UserProject;
 import com.zzw.zzwgx.entity.UserRoleRelation;
-import com.zzw.zzwgx.mapper.CycleMapper;
-import com.zzw.zzwgx.mapper.ProcessMapper;
 import com.zzw.zzwgx.mapper.ProjectMapper;
 import com.zzw.zzwgx.mapper.RoleMapper;
 import com.zzw.zzwgx.mapper.UserMapper;
 import com.zzw.zzwgx.mapper.UserRoleRelationMapper;
+import com.zzw.zzwgx.security.SecurityUserCache;
 import com.zzw.zzwgx.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,8 +33,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -54,10 +53,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     private final PasswordEncoder passwordEncoder;
     private final RoleMapper roleMapper;
     private final UserRoleRelationMapper userRoleRelationMapper;
-    private final CycleMapper cycleMapper;
-    private final ProcessMapper processMapper;
     private final com.zzw.zzwgx.service.UserProjectService userProjectService;
     private final ProjectMapper projectMapper;
+    private final SecurityUserCache securityUserCache;
     
     @Override
     public User getByUsername(String username) {
@@ -122,6 +120,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
     
     private void bindUserRole(Long userId, String roleCode) {
+        // 角色变更后认证缓存中的权限失效
+        securityUserCache.evict(userId);
         Role role = roleMapper.selectOne(new LambdaQueryWrapper<Role>()
                 .eq(Role::getRoleCode, roleCode)
                 .eq(Role::getDeleted, 0)
@@ -176,6 +176,25 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
     }
     
+    @Override
+    public Map<Long, String> getDisplayNames(Collection<Long> userIds) {
+        Set<Long> ids = userIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // 姓名、用户名都可能为null，不能用 Collectors.toMap
+        Map<Long, String> names = new HashMap<>();
+        for (User user : listByIds(ids)) {
+            String name = StringUtils.hasText(user.getRealName()) ? user.getRealName() : user.getUsername();
+            if (name != null) {
+                names.put(user.getId(), name);
+            }
+        }
+        return Collections.unmodifiableMap(names);
+    }
+    
     /**
      * 获取用户角色代码列表（供Service内部和外部调用）
      */
@@ -195,6 +214,18 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 .toList();
     }
     
+    /**
+     * 批量查询用户角色编码，一次IN查询后按用户分组
+     */
+    private Map<Long, List<String>> getUserRoleCodesMap(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRoleRelationMapper.selectRoleCodesByUserIds(userIds).stream()
+                .collect(Collectors.groupingBy(UserRoleCodeRow::getUserId,
+                        Collectors.mapping(UserRoleCodeRow::getRoleCode, Collectors.toList())));
+    }
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public User createUser(CreateUserRequest request) {
@@ -286,6 +317,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 throw new BusinessException("更新用户信息失败");
             }
             log.info("用户信息更新成功，用户ID: {}", userId);
+            securityUserCache.evict(userId);
             // 重新获取用户信息，确保返回最新数据
             user = getById(userId);
             if (user == null) {
@@ -340,32 +372,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         log.info("管理员查询用户列表，页码: {}, 每页大小: {}, 用户名: {}, 姓名: {}, 角色: {}", 
                 pageNum, pageSize, username, realName, roleCode);
         
-        Page<User> page = new Page<>(pageNum, pageSize);
-        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
-        
-        // 构建查询条件
-        if (StringUtils.hasText(username)) {
-            wrapper.like(User::getUsername, username);
-        }
-        if (StringUtils.hasText(realName)) {
-            wrapper.like(User::getRealName, realName);
-        }
-        
-        wrapper.eq(User::getDeleted, 0);
-        wrapper.orderByDesc(User::getCreateTime);
-        
-        Page<User> userPage = page(page, wrapper);
-        
-        // 如果有角色过滤条件，需要进一步过滤
+        // 角色过滤在SQL中完成，分页总数与过滤条件一致
+        Page<User> userPage = baseMapper.selectUserPage(new Page<>(pageNum, pageSize), username, realName, roleCode);
         List<User> users = userPage.getRecords();
-        if (StringUtils.hasText(roleCode)) {
-            users = users.stream()
-                    .filter(u -> {
-                        List<String> roles = getUserRoleCodes(u.getId());
-                        return roles.contains(roleCode);
-                    })
-                    .collect(Collectors.toList());
-        }
+        
+        // 当前页用户的角色一次查出
+        Map<Long, List<String>> userRoleMap = getUserRoleCodesMap(users.stream().map(User::getId).toList());
         
         // 预取用户绑定的项目（工点/隧道）
         Map<Long, List<Project>> tempUserProjectMap = Collections.emptyMap();
@@ -399,7 +411,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             response.setRealName(user.getRealName());
             response.setIdCard(user.getIdCard());
             response.setPhone(user.getPhone());
-            response.setRoles(getUserRoleCodes(user.getId()));
+            response.setRoles(userRoleMap.getOrDefault(user.getId(), Collections.emptyList()));
             response.setStatus(user.getStatus());
             response.setCreateTime(user.getCreateTime());
             response.setUpdateTime(user.getUpdateTime());
@@ -427,49 +439,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public List<UserViewListResponse> listWorkers(Long projectId, String keyword) {
         log.info("查询施工人员列表，项目ID: {}, 关键词: {}", projectId, keyword);
-        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(User::getDeleted, 0)
-                .eq(User::getStatus, 1);
-        if (StringUtils.hasText(keyword)) {
-            wrapper.and(w -> w.like(User::getUsername, keyword).or().like(User::getRealName, keyword));
-        }
-        
-        // 如果指定项目ID，则仅返回该项目下已有参与记录的施工人员
-        Set<Long> projectWorkerIds = null;
-        if (projectId != null) {
-            List<Cycle> cycles = cycleMapper.selectList(new LambdaQueryWrapper<Cycle>()
-                    .eq(Cycle::getProjectId, projectId));
-            if (!cycles.isEmpty()) {
-                List<Long> cycleIds = cycles.stream().map(Cycle::getId).toList();
-                List<Process> processes = processMapper.selectList(new LambdaQueryWrapper<Process>()
-                        .in(Process::getCycleId, cycleIds)
-                        .isNotNull(Process::getOperatorId));
-                projectWorkerIds = processes.stream()
-                        .map(Process::getOperatorId)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toCollection(HashSet::new));
-                if (projectWorkerIds.isEmpty()) {
-                    // 项目下无已参与的施工人员，直接返回空
-                    return Collections.emptyList();
-                }
-                wrapper.in(User::getId, projectWorkerIds);
-            } else {
-                // 项目下无循环，返回空
-                return Collections.emptyList();
-            }
-        }
-        
-        List<User> users = list(wrapper);
-        return users.stream()
-                .filter(u -> getUserRoleCodes(u.getId()).contains(UserRole.WORKER.getCode()))
-                .map(u -> {
-                    UserViewListResponse resp = new UserViewListResponse();
-                    resp.setId(u.getId());
-                    resp.setUsername(u.getUsername());
-                    resp.setRealName(u.getRealName());
-                    return resp;
-                })
-                .collect(Collectors.toList());
+        // 一条语句完成：启用状态、关键词、WORKER角色，以及指定项目时的参与人员（DISTINCT operator_id 子查询）
+        return baseMapper.selectWorkerOptions(projectId, keyword, UserRole.WORKER.getCode());
     }
 
     @Override
@@ -493,6 +464,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             user.setPassword(passwordEncoder.encode(request.getPassword()));
         }
         updateById(user);
+        securityUserCache.evict(userId);
         return getProfile(userId);
     }
 
@@ -0,0 +1,21 @@
+-- 为cycle表添加blast_time字段（响炮时间）及 (project_id, blast_time) 组合索引
+-- 响炮时间为"装药爆破"工序的结束时间，报表和响炮间隔统计直接读取，不再逐循环扫描工序
+-- 执行时间：2025-12-24
+USE zzw_gx;
+
+ALTER TABLE cycle
+ADD COLUMN blast_time DATETIME COMMENT '响炮时间（装药爆破工序结束时间，优先实际结束时间，其次预计结束时间）' AFTER rock_level,
+ADD INDEX idx_project_blast_time (project_id, blast_time);
+
+-- 回填已有循环的响炮时间
+UPDATE cycle c
+SET c.blast_time = (
+    SELECT COALESCE(p.actual_end_time, p.estimated_end_time)
+    FROM process p
+    WHERE p.cycle_id = c.id
+      AND p.deleted = 0
+      AND p.process_name = '装药爆破'
+      AND COALESCE(p.actual_end_time, p.estimated_end_time) IS NOT NULL
+    ORDER BY p.start_order
+    LIMIT 1
+);
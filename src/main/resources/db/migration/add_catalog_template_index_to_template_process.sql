@@ -0,0 +1,6 @@
+-- 为template_process表添加 (process_catalog_id, template_id, default_order) 组合索引，查询工序在模板中的首次出现时走索引
+-- 执行时间：2025-12-24
+USE zzw_gx;
+
+ALTER TABLE template_process
+ADD INDEX idx_catalog_template_order (process_catalog_id, template_id, default_order);
@@ -0,0 +1,7 @@
+-- 为process表添加 (cycle_id, deleted, operator_id) 组合索引，按项目查询参与施工人员时
+-- 子查询按 cycle_id 定位、deleted 过滤、取 operator_id 去重均在索引内完成（覆盖索引，无需回表）
+-- 执行时间：2025-12-24
+USE zzw_gx;
+
+ALTER TABLE process
+ADD INDEX idx_cycle_deleted_operator (cycle_id, deleted, operator_id);
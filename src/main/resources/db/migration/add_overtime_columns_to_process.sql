@@ -0,0 +1,25 @@
+-- 为process表添加实际耗时、超时时长生成列，以及“超时未填原因”标记和索引
+-- 超时未填原因列表直接走索引分页，不再扫描全部已完成工序后在内存中过滤
+-- 执行时间：2025-12-24
+USE zzw_gx;
+
+-- 实际耗时（分钟），与 Duration.between(...).toMinutes() 一致按整分钟截断
+ALTER TABLE process
+ADD COLUMN actual_minutes INT GENERATED ALWAYS AS (TIMESTAMPDIFF(MINUTE, actual_start_time, actual_end_time)) STORED COMMENT '实际耗时（分钟），生成列' AFTER actual_end_time;
+
+-- 超时时长（分钟），未超时为0或负数
+ALTER TABLE process
+ADD COLUMN overtime_minutes INT GENERATED ALWAYS AS (actual_minutes - control_time) STORED COMMENT '超时时长（分钟），生成列' AFTER actual_minutes;
+
+-- 超时未填原因标记：未删除、已完成、超时且原因为空时为1
+ALTER TABLE process
+ADD COLUMN overtime_reason_pending TINYINT GENERATED ALWAYS AS (
+    CASE WHEN deleted = 0
+              AND process_status = 'COMPLETED'
+              AND overtime_minutes > 0
+              AND (overtime_reason IS NULL OR overtime_reason = '')
+         THEN 1 ELSE 0 END
+) STORED COMMENT '超时未填原因标记，生成列' AFTER overtime_reason;
+
+ALTER TABLE process
+ADD INDEX idx_overtime_reason_pending (overtime_reason_pending, actual_end_time, id);
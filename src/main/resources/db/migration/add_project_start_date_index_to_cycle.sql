@@ -0,0 +1,6 @@
+-- 为cycle表添加 (project_id, start_date) 组合索引，补填循环按开始时间定位插入位置时走索引定位
+-- 执行时间：2025-12-24
+USE zzw_gx;
+
+ALTER TABLE cycle
+ADD INDEX idx_project_start_date (project_id, start_date);
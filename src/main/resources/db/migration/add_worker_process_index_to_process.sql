@@ -0,0 +1,6 @@
+-- 为process表添加施工人员工序列表索引，支持按操作员分页和 (create_time, id) 游标分页
+-- 执行时间：2025-12-24
+USE zzw_gx;
+
+ALTER TABLE process
+ADD INDEX idx_operator_create_time (operator_id, create_time, id);
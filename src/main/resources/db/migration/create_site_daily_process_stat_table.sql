@@ -0,0 +1,40 @@
+-- 创建工点每日工序统计表，统计接口按天汇总，不再逐条扫描工序
+-- 执行时间：2025-12-23
+USE zzw_gx;
+
+CREATE TABLE IF NOT EXISTS site_daily_process_stat (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    project_id BIGINT NOT NULL COMMENT '工点ID',
+    stat_date DATE NOT NULL COMMENT '统计日期（循环开始日期）',
+    completed_count INT NOT NULL DEFAULT 0 COMMENT '已完成工序数量',
+    control_minutes BIGINT NOT NULL DEFAULT 0 COMMENT '控制时间总和（分钟）',
+    actual_minutes BIGINT NOT NULL DEFAULT 0 COMMENT '实际用时总和（分钟）',
+    timed_count INT NOT NULL DEFAULT 0 COMMENT '实际时间齐全且有控制时间的工序数量',
+    overtime_minutes BIGINT NOT NULL DEFAULT 0 COMMENT '超耗时间总和（分钟）',
+    saved_minutes BIGINT NOT NULL DEFAULT 0 COMMENT '节约时间总和（分钟）',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_project_stat_date (project_id, stat_date),
+    INDEX idx_stat_date (stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工点每日工序统计表';
+
+-- 初始化历史数据
+INSERT INTO site_daily_process_stat (project_id, stat_date, completed_count, control_minutes, actual_minutes,
+                                     timed_count, overtime_minutes, saved_minutes)
+SELECT t.project_id, t.stat_date,
+       COUNT(*),
+       COALESCE(SUM(t.control_time), 0),
+       COALESCE(SUM(COALESCE(t.actual_minutes, 0)), 0),
+       SUM(CASE WHEN t.actual_minutes IS NOT NULL AND t.control_time IS NOT NULL THEN 1 ELSE 0 END),
+       SUM(CASE WHEN t.actual_minutes > t.control_time THEN t.actual_minutes - t.control_time ELSE 0 END),
+       SUM(CASE WHEN t.actual_minutes <= t.control_time THEN t.control_time - t.actual_minutes ELSE 0 END)
+FROM (
+    SELECT c.project_id, DATE(c.start_date) AS stat_date, p.control_time,
+           TIMESTAMPDIFF(MINUTE, p.actual_start_time, p.actual_end_time) AS actual_minutes
+    FROM process p
+    JOIN cycle c ON c.id = p.cycle_id AND c.deleted = 0
+    WHERE p.deleted = 0
+      AND p.process_status = 'COMPLETED'
+      AND c.start_date IS NOT NULL
+) t
+GROUP BY t.project_id, t.stat_date;
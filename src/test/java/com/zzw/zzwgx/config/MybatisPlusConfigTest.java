@@ -0,0 +1,57 @@
+package com.zzw.zzwgx.config;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zzw.zzwgx.entity.Template;
+import com.zzw.zzwgx.mapper.TemplateMapper;
+import com.zzw.zzwgx.monitor.SqlStatementCounterInterceptor;
+import com.zzw.zzwgx.support.EmbeddedMybatis;
+import org.apache.ibatis.plugin.Interceptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * MyBatis插件顺序测试
+ * 插件按容器注入顺序注册（与 MybatisPlusAutoConfiguration 一致），分页插件的COUNT查询也要计入语句数
+ */
+class MybatisPlusConfigTest {
+
+    @Test
+    void paginatedQueryCountsCountAndPageStatements() {
+        Interceptor[] interceptors;
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(MybatisPlusConfig.class, InterceptorsHolder.class)) {
+            interceptors = context.getBean(InterceptorsHolder.class).interceptors;
+        }
+        // 先注册的插件在内层，计数插件必须排在分页插件之前
+        assertInstanceOf(SqlStatementCounterInterceptor.class, interceptors[0]);
+
+        try (EmbeddedMybatis db = new EmbeddedMybatis(List.of(interceptors), TemplateMapper.class)) {
+            db.jdbc().update("INSERT INTO template (template_name) VALUES ('台阶法'), ('全断面'), ('CD法')");
+            TemplateMapper templateMapper = db.mapper(TemplateMapper.class);
+            List<Page<Template>> result = new ArrayList<>();
+
+            assertEquals(2, db.countStatements(() -> result.add(templateMapper.selectPage(new Page<>(1, 2), null))));
+            assertEquals(3, result.get(0).getTotal());
+            assertEquals(2, result.get(0).getRecords().size());
+        }
+    }
+
+    /**
+     * 按 MybatisPlusAutoConfiguration 的方式获取插件数组
+     */
+    static class InterceptorsHolder {
+
+        private final Interceptor[] interceptors;
+
+        InterceptorsHolder(ObjectProvider<Interceptor[]> interceptorsProvider) {
+            this.interceptors = interceptorsProvider.getIfAvailable();
+        }
+    }
+}
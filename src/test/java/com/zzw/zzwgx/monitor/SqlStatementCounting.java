@@ -0,0 +1,25 @@
+package com.zzw.zzwgx.monitor;
+
+/**
+ * 测试用SQL语句计数
+ * 与 {@link SqlStatementStatsFilter} 一样在当前线程绑定 {@link SqlStatementStats}，统计操作期间经
+ * {@link SqlStatementCounterInterceptor} 执行的语句数
+ */
+public final class SqlStatementCounting {
+
+    private SqlStatementCounting() {
+    }
+
+    /**
+     * 执行操作并返回期间实际执行的语句数
+     */
+    public static int count(Runnable action) {
+        SqlStatementStats stats = SqlStatementStats.start();
+        try {
+            action.run();
+        } finally {
+            SqlStatementStats.clear();
+        }
+        return stats.getStatementCount();
+    }
+}
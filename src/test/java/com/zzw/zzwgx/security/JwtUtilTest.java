@@ -0,0 +1,86 @@
+package com.zzw.zzwgx.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * JwtUtil 已验签token缓存测试
+ * 缓存命中时返回同一个Claims实例，未命中时重新验签得到新实例，以此区分两条路径
+ */
+class JwtUtilTest {
+
+    private static final long ONE_HOUR = 3_600_000L;
+
+    @Test
+    void repeatedParseOfSameTokenHitsCache() {
+        JwtUtil jwtUtil = TestJwtUtils.create(ONE_HOUR, 100, 300);
+        String token = jwtUtil.generateToken(7L, "worker", List.of("WORKER"));
+
+        Claims first = jwtUtil.parseValidToken(token);
+        assertNotNull(first);
+        assertSame(first, jwtUtil.parseValidToken(token));
+        assertSame(first, jwtUtil.getClaimsFromToken(token));
+        assertEquals(7L, jwtUtil.getUserIdFromClaims(first));
+        assertEquals(List.of("WORKER"), jwtUtil.getRolesFromClaims(first));
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceExpired() throws InterruptedException {
+        // exp 精度为秒，1秒有效期的token在等待2秒后必然过期，而缓存TTL仍远未到期
+        JwtUtil jwtUtil = TestJwtUtils.create(1_000L, 100, 300);
+        String token = jwtUtil.generateToken(7L, "worker", List.of("WORKER"));
+        assertNotNull(jwtUtil.parseValidToken(token));
+
+        Thread.sleep(2_000L);
+
+        assertNull(jwtUtil.parseValidToken(token));
+        assertNull(jwtUtil.getClaimsFromToken(token));
+    }
+
+    @Test
+    void leastRecentlyUsedTokenIsEvictedAndReverified() {
+        JwtUtil jwtUtil = TestJwtUtils.create(ONE_HOUR, 2, 300);
+        String tokenA = jwtUtil.generateToken(1L, "a", List.of("WORKER"));
+        String tokenB = jwtUtil.generateToken(2L, "b", List.of("WORKER"));
+        String tokenC = jwtUtil.generateToken(3L, "c", List.of("WORKER"));
+
+        Claims claimsA = jwtUtil.parseValidToken(tokenA);
+        Claims claimsB = jwtUtil.parseValidToken(tokenB);
+        // 访问B使A成为最久未使用，放入C时淘汰A
+        assertSame(claimsB, jwtUtil.parseValidToken(tokenB));
+        jwtUtil.parseValidToken(tokenC);
+
+        assertSame(claimsB, jwtUtil.parseValidToken(tokenB));
+        Claims reverifiedA = jwtUtil.parseValidToken(tokenA);
+        assertNotNull(reverifiedA);
+        assertNotSame(claimsA, reverifiedA);
+        assertEquals(1L, jwtUtil.getUserIdFromClaims(reverifiedA));
+    }
+
+    @Test
+    void tamperedTokenIsRejectedAndNotCached() {
+        JwtUtil jwtUtil = TestJwtUtils.create(ONE_HOUR, 100, 300);
+        String token = jwtUtil.generateToken(7L, "worker", List.of("WORKER"));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(jwtUtil.parseValidToken(tampered));
+        assertNull(jwtUtil.parseValidToken(tampered));
+        assertNotNull(jwtUtil.parseValidToken(token));
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        JwtUtil jwtUtil = TestJwtUtils.create(ONE_HOUR, 100, 300);
+        JwtUtil otherKey = TestJwtUtils.create(TestJwtUtils.SECRET + "-other", ONE_HOUR, 100, 300);
+
+        assertNull(jwtUtil.parseValidToken(otherKey.generateToken(7L, "worker", List.of("WORKER"))));
+    }
+}
@@ -0,0 +1,97 @@
+package com.zzw.zzwgx.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT验证路径基准测试，每次调用模拟一个请求的认证过程
+ * <ul>
+ *     <li>legacyParsePerAccessor：改造前的路径，validateToken、取用户名、用户ID、角色各自构建密钥和解析器并验签，共4次</li>
+ *     <li>parseOnceWithoutCache：复用解析器，每个请求验签一次，不使用缓存</li>
+ *     <li>parseOnceWithCache：当前路径 JwtUtil.parseValidToken，同一token命中缓存时只计算SHA-256摘要</li>
+ * </ul>
+ * 运行：mvn test-compile 后以测试classpath执行本类的main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtUtil jwtUtil;
+    private JwtParser sharedParser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = TestJwtUtils.create(3_600_000L, 5000, 300);
+        token = jwtUtil.generateToken(7L, "worker", List.of("WORKER"));
+        sharedParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(TestJwtUtils.SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    @Benchmark
+    public void legacyParsePerAccessor(Blackhole blackhole) {
+        Claims validated = legacyParse(token);
+        blackhole.consume(validated.getExpiration().getTime() > System.currentTimeMillis());
+        blackhole.consume(legacyParse(token).getSubject());
+        blackhole.consume(legacyParse(token).get("userId"));
+        blackhole.consume(legacyParse(token).get("roles"));
+    }
+
+    @Benchmark
+    public void parseOnceWithoutCache(Blackhole blackhole) {
+        consumeClaims(sharedParser.parseClaimsJws(token).getBody(), blackhole);
+    }
+
+    @Benchmark
+    public void parseOnceWithCache(Blackhole blackhole) {
+        consumeClaims(jwtUtil.parseValidToken(token), blackhole);
+    }
+
+    private void consumeClaims(Claims claims, Blackhole blackhole) {
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(jwtUtil.getUserIdFromClaims(claims));
+        blackhole.consume(jwtUtil.getRolesFromClaims(claims));
+    }
+
+    /**
+     * 改造前 getClaimsFromToken 的实现：每次构建密钥和解析器后验签
+     */
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(TestJwtUtils.SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,28 @@
+package com.zzw.zzwgx.security;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 测试用 JwtUtil 构建（不启动Spring容器，直接注入配置项）
+ */
+final class TestJwtUtils {
+
+    static final String SECRET = "zzw-gx-tunnel-construction-management-system-secret-key-2024-this-is-a-very-long-secret-key-for-hs512-algorithm-which-requires-at-least-512-bits";
+
+    private TestJwtUtils() {
+    }
+
+    static JwtUtil create(long expirationMillis, int cacheMaxSize, long cacheTtlSeconds) {
+        return create(SECRET, expirationMillis, cacheMaxSize, cacheTtlSeconds);
+    }
+
+    static JwtUtil create(String secret, long expirationMillis, int cacheMaxSize, long cacheTtlSeconds) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expirationMillis);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtlSeconds", cacheTtlSeconds);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
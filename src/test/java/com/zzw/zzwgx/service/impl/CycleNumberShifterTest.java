@@ -0,0 +1,181 @@
+package com.zzw.zzwgx.service.impl;
+
+import com.zzw.zzwgx.mapper.CycleMapper;
+import com.zzw.zzwgx.support.EmbeddedMybatis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 循环号批量平移测试
+ * 平移SQL在内嵌数据库上真实执行，cycle 表带 uk_project_cycle_number 唯一约束；
+ * H2在语句结束时才检查唯一约束，MySQL逐行检查，因此另外校验第一步之后的中间状态不含重复的循环号绝对值
+ */
+class CycleNumberShifterTest {
+
+    private static final Long PROJECT_ID = 1L;
+    private static final Long OTHER_PROJECT_ID = 2L;
+    private static final int CYCLE_COUNT = 2000;
+    private static final String STALE_TIME = "2020-01-01 00:00:00";
+
+    private EmbeddedMybatis db;
+    private CycleNumberShifter shifter;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedMybatis(CycleMapper.class);
+        List<Object[]> rows = new ArrayList<>();
+        for (int number = 1; number <= CYCLE_COUNT; number++) {
+            rows.add(new Object[]{(long) number, PROJECT_ID, number});
+        }
+        for (int number = 1; number <= 10; number++) {
+            rows.add(new Object[]{(long) CYCLE_COUNT + number, OTHER_PROJECT_ID, number});
+        }
+        db.jdbc().batchUpdate("INSERT INTO cycle (id, project_id, cycle_number, update_time) VALUES (?, ?, ?, '"
+                + STALE_TIME + "')", rows);
+        shifter = new CycleNumberShifter(db.mapper(CycleMapper.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void negatedNumbersNeverCollideWithRemainingOnes() {
+        // 第一步之后、第二步之前：取负后的循环号与剩余正数循环号互不相同，翻转时不会违反唯一约束
+        int negated = db.mapper(CycleMapper.class).negateShiftedCycleNumbers(PROJECT_ID, 5, 1500, -1, 4L, 1500);
+
+        assertEquals(1497, negated);
+        assertEquals(CYCLE_COUNT, (int) db.jdbc().queryForObject(
+                "SELECT COUNT(DISTINCT ABS(cycle_number)) FROM cycle WHERE project_id = ?", Integer.class, PROJECT_ID));
+        assertEquals(-1500, numberOf(4L));
+        assertEquals(-4, numberOf(5L));
+        assertEquals(3, numberOf(3L));
+    }
+
+    @Test
+    void restoreRefreshesUpdateTime() {
+        CycleMapper cycleMapper = db.mapper(CycleMapper.class);
+        cycleMapper.negateShiftedCycleNumbers(PROJECT_ID, 1990, null, 1, null, null);
+        db.jdbc().update("UPDATE cycle SET update_time = TIMESTAMP '" + STALE_TIME + "'");
+
+        assertEquals(11, cycleMapper.restoreNegatedCycleNumbers(PROJECT_ID));
+        assertEquals(11, staleCount(PROJECT_ID, false));
+        assertEquals(1991, numberOf(1990L));
+    }
+
+    @Test
+    void insertEarlyShiftsAllLaterCyclesWithTwoStatements() {
+        int[] shifted = new int[1];
+
+        assertEquals(2, db.countStatements(() -> shifted[0] = shifter.shiftForInsert(PROJECT_ID, 3)));
+
+        assertEquals(CYCLE_COUNT - 2, shifted[0]);
+        // 目标位置已空出，其余循环号连续且唯一
+        assertEquals(0, countAt(PROJECT_ID, 3));
+        assertEquals(4, numberOf(3L));
+        assertEquals(CYCLE_COUNT + 1, numberOf(CYCLE_COUNT));
+        // 平移过的循环刷新更新时间，未涉及的保持不变
+        assertEquals(CYCLE_COUNT - 2, staleCount(PROJECT_ID, false));
+        assertEquals(2, staleCount(PROJECT_ID, true));
+        assertEquals(10, staleCount(OTHER_PROJECT_ID, true));
+        db.jdbc().update("INSERT INTO cycle (project_id, cycle_number) VALUES (?, 3)", PROJECT_ID);
+        assertContiguous(PROJECT_ID, CYCLE_COUNT + 1);
+        assertContiguous(OTHER_PROJECT_ID, 10);
+    }
+
+    @Test
+    void insertAfterLastCycleIssuesNoRestore() {
+        int[] shifted = new int[1];
+
+        assertEquals(1, db.countStatements(() -> shifted[0] = shifter.shiftForInsert(PROJECT_ID, CYCLE_COUNT + 1)));
+
+        assertEquals(0, shifted[0]);
+        assertContiguous(PROJECT_ID, CYCLE_COUNT);
+        assertEquals(CYCLE_COUNT, staleCount(PROJECT_ID, true));
+    }
+
+    @Test
+    void moveForwardShiftsCyclesBetweenDown() {
+        int[] shifted = new int[1];
+
+        assertEquals(2, db.countStatements(() -> shifted[0] = shifter.shiftForMove(5L, PROJECT_ID, 5, 1500)));
+
+        assertEquals(1496, shifted[0]);
+        assertEquals(1500, numberOf(5L));
+        assertEquals(5, numberOf(6L));
+        assertEquals(1499, numberOf(1500L));
+        assertEquals(1501, numberOf(1501L));
+        assertContiguous(PROJECT_ID, CYCLE_COUNT);
+        assertEquals(1496, staleCount(PROJECT_ID, false));
+    }
+
+    @Test
+    void moveBackwardShiftsCyclesBetweenUp() {
+        int[] shifted = new int[1];
+
+        assertEquals(2, db.countStatements(() -> shifted[0] = shifter.shiftForMove(1800L, PROJECT_ID, 1800, 2)));
+
+        assertEquals(1799, shifted[0]);
+        assertEquals(2, numberOf(1800L));
+        assertEquals(3, numberOf(2L));
+        assertEquals(1, numberOf(1L));
+        assertEquals(1801, numberOf(1801L));
+        assertContiguous(PROJECT_ID, CYCLE_COUNT);
+        assertEquals(1799, staleCount(PROJECT_ID, false));
+    }
+
+    @Test
+    void deletedCyclesInRangeMoveAlongAndParkedOnesStay() {
+        db.jdbc().update("UPDATE cycle SET deleted = 1 WHERE id = 10");
+        db.jdbc().update("INSERT INTO cycle (id, project_id, cycle_number, deleted, update_time) VALUES (9999, ?, 999000, 1, '"
+                + STALE_TIME + "')", PROJECT_ID);
+
+        shifter.shiftForInsert(PROJECT_ID, 5);
+
+        assertEquals(11, numberOf(10L));
+        assertEquals(999000, numberOf(9999L));
+        assertEquals(0, (int) db.jdbc().queryForObject(
+                "SELECT COUNT(*) FROM cycle WHERE project_id = ? AND cycle_number <= 0", Integer.class, PROJECT_ID));
+    }
+
+    @Test
+    void sameNumberIsNoOp() {
+        assertEquals(0, db.countStatements(() -> shifter.shiftForMove(7L, PROJECT_ID, 7, 7)));
+        assertEquals(7, numberOf(7L));
+    }
+
+    private int numberOf(long id) {
+        return db.jdbc().queryForObject("SELECT cycle_number FROM cycle WHERE id = ?", Integer.class, id);
+    }
+
+    private int countAt(Long projectId, int cycleNumber) {
+        return db.jdbc().queryForObject("SELECT COUNT(*) FROM cycle WHERE project_id = ? AND cycle_number = ?",
+                Integer.class, projectId, cycleNumber);
+    }
+
+    /**
+     * 更新时间仍为（或已不为）初始值的循环数，不含停放的已删除循环
+     */
+    private int staleCount(Long projectId, boolean stale) {
+        return db.jdbc().queryForObject("SELECT COUNT(*) FROM cycle WHERE project_id = ? AND cycle_number < 999000"
+                        + " AND update_time " + (stale ? "=" : "<>") + " TIMESTAMP '" + STALE_TIME + "'",
+                Integer.class, projectId);
+    }
+
+    private void assertContiguous(Long projectId, int expectedCount) {
+        List<Integer> numbers = db.jdbc().queryForList(
+                "SELECT cycle_number FROM cycle WHERE project_id = ? AND cycle_number < 999000 ORDER BY cycle_number",
+                Integer.class, projectId);
+        assertEquals(expectedCount, numbers.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            assertEquals(i + 1, numbers.get(i));
+        }
+    }
+}
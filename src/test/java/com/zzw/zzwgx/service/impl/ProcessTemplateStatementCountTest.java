@@ -0,0 +1,176 @@
+package com.zzw.zzwgx.service.impl;
+
+import com.zzw.zzwgx.cache.TemplateRegistry;
+import com.zzw.zzwgx.dto.response.ProcessTemplateOptionResponse;
+import com.zzw.zzwgx.dto.response.TemplateListResponse;
+import com.zzw.zzwgx.dto.response.TemplateWithProcessesResponse;
+import com.zzw.zzwgx.mapper.ProjectMapper;
+import com.zzw.zzwgx.mapper.ProjectTemplateMapper;
+import com.zzw.zzwgx.mapper.TemplateMapper;
+import com.zzw.zzwgx.mapper.TemplateProcessMapper;
+import com.zzw.zzwgx.service.ProcessCatalogService;
+import com.zzw.zzwgx.support.EmbeddedMybatis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * 模板列表、工序选项接口的语句数回归测试
+ * Mapper SQL 在内嵌数据库上真实执行，语句数由 SqlStatementCounterInterceptor 统计，不应随模板数、工序字典数增长
+ */
+class ProcessTemplateStatementCountTest {
+
+    private static final int STEPS_PER_TEMPLATE = 12;
+    private static final Long SITE_ID = 100L;
+
+    private EmbeddedMybatis db;
+    private ProcessCatalogService processCatalogService;
+    private ProjectMapper projectMapper;
+    private TemplateMapper templateMapper;
+    private ProcessTemplateServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedMybatis(TemplateProcessMapper.class, ProjectTemplateMapper.class);
+        TemplateProcessMapper templateProcessMapper = db.mapper(TemplateProcessMapper.class);
+        ProjectTemplateMapper projectTemplateMapper = db.mapper(ProjectTemplateMapper.class);
+        processCatalogService = mock(ProcessCatalogService.class);
+        projectMapper = mock(ProjectMapper.class);
+        templateMapper = mock(TemplateMapper.class);
+        service = new ProcessTemplateServiceImpl(processCatalogService, projectMapper, templateMapper,
+                templateProcessMapper, projectTemplateMapper,
+                new TemplateRegistry(templateProcessMapper, projectTemplateMapper));
+    }
+
+    @AfterEach
+    void tearDown() {
+        // 只允许通过模板注册表和一条选项语句读取，不回退到逐条查询
+        verifyNoInteractions(processCatalogService, projectMapper, templateMapper);
+        db.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 40})
+    void templateListUsesTwoStatementsWhenColdAndNoneWhenWarm(int templateCount) {
+        seedTemplates(templateCount);
+        List<List<TemplateListResponse>> result = new ArrayList<>();
+
+        assertEquals(2, db.countStatements(() -> result.add(service.getTemplateList())));
+        List<TemplateListResponse> templates = result.get(0);
+        assertEquals(templateCount, templates.size());
+        TemplateListResponse first = templates.get(0);
+        assertEquals(1L, first.getTemplateId());
+        assertEquals("模板1", first.getTemplateName());
+        assertEquals(1L, first.getFirstTemplateProcessId());
+        assertEquals(10 * STEPS_PER_TEMPLATE * (STEPS_PER_TEMPLATE + 1) / 2, first.getControlDuration());
+
+        assertEquals(0, db.countStatements(() -> {
+            result.add(service.getTemplateListBySiteId(SITE_ID));
+            service.getTemplatesWithProcesses();
+        }));
+        assertEquals((templateCount + 1) / 2, result.get(1).size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 40})
+    void templatesWithProcessesDoNotLookUpCatalogPerStep(int templateCount) {
+        seedTemplates(templateCount);
+        List<List<TemplateWithProcessesResponse>> result = new ArrayList<>();
+
+        assertEquals(2, db.countStatements(() -> result.add(service.getTemplatesWithProcesses())));
+        List<TemplateWithProcessesResponse> templates = result.get(0);
+        assertEquals(templateCount, templates.size());
+        assertEquals(STEPS_PER_TEMPLATE, templates.get(0).getProcesses().size());
+        assertEquals("工序1", templates.get(0).getProcesses().get(0).getProcessName());
+        assertEquals("模板1", templates.get(0).getProcesses().get(0).getTemplateName());
+        assertEquals("工序12", templates.get(templateCount - 1).getProcesses().get(STEPS_PER_TEMPLATE - 1).getProcessName());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 40})
+    void processOptionsUseOneStatement(int templateCount) {
+        seedTemplates(templateCount);
+        List<List<ProcessTemplateOptionResponse>> result = new ArrayList<>();
+
+        assertEquals(1, db.countStatements(() -> result.add(service.getAllProcessTemplateOptions())));
+        List<ProcessTemplateOptionResponse> options = result.get(0);
+        assertEquals(STEPS_PER_TEMPLATE + templateCount, options.size());
+        // 工序1在每个模板中都出现，取模板ID最小的模板中的那一条
+        assertEquals(1L, options.get(0).getTemplateId());
+        assertEquals("模板1", options.get(0).getTemplateName());
+        // 不在任何模板中的工序
+        assertNull(options.get(STEPS_PER_TEMPLATE).getTemplateId());
+        assertNull(options.get(STEPS_PER_TEMPLATE).getTemplateName());
+    }
+
+    @Test
+    void processOptionsTakeFirstLiveOccurrencePerCatalog() {
+        JdbcTemplate jdbc = db.jdbc();
+        jdbc.update("INSERT INTO process_catalog (id, process_name, display_order, status) VALUES (1, '扒渣', 3, 1)");
+        jdbc.update("INSERT INTO process_catalog (id, process_name, display_order, status) VALUES (2, '测量放样', 1, 1)");
+        jdbc.update("INSERT INTO process_catalog (id, process_name, display_order, status) VALUES (3, '装药爆破', 2, 1)");
+        jdbc.update("INSERT INTO process_catalog (id, process_name, display_order, status) VALUES (4, '出渣', 4, 1)");
+        jdbc.update("INSERT INTO process_catalog (id, process_name, display_order, status) VALUES (5, '停用工序', 0, 0)");
+        jdbc.update("INSERT INTO template (id, template_name) VALUES (1, '台阶法'), (2, '全断面')");
+        // 测量放样：模板2顺序1、模板1顺序3、模板1顺序1 → 取模板1顺序1（id=3）
+        insertStep(1, 2, 2, 1, 0);
+        insertStep(2, 1, 2, 3, 0);
+        insertStep(3, 1, 2, 1, 0);
+        insertStep(4, 1, 1, 2, 0);
+        // 装药爆破：模板1中的那条已删除 → 取模板2中的（id=5）
+        insertStep(5, 2, 3, 2, 0);
+        insertStep(6, 1, 3, 4, 1);
+        insertStep(7, 2, 5, 3, 0);
+
+        List<ProcessTemplateOptionResponse> options = service.getAllProcessTemplateOptions();
+
+        assertEquals(List.of("测量放样", "装药爆破", "扒渣", "出渣"),
+                options.stream().map(ProcessTemplateOptionResponse::getProcessName).toList());
+        assertOption(options.get(0), 3L, "台阶法");
+        assertOption(options.get(1), 5L, "全断面");
+        assertOption(options.get(2), 4L, "台阶法");
+        assertOption(options.get(3), null, null);
+    }
+
+    private void assertOption(ProcessTemplateOptionResponse option, Long templateId, String templateName) {
+        assertEquals(templateId, option.getTemplateId(), option.getProcessName());
+        assertEquals(templateName, option.getTemplateName(), option.getProcessName());
+    }
+
+    /**
+     * 每个模板包含工序1~12（控制时间为顺序×10分钟），奇数模板绑定到工点；另有 templateCount 个未进入模板的工序
+     */
+    private void seedTemplates(int templateCount) {
+        JdbcTemplate jdbc = db.jdbc();
+        for (int catalog = 1; catalog <= STEPS_PER_TEMPLATE + templateCount; catalog++) {
+            jdbc.update("INSERT INTO process_catalog (id, process_name, display_order, status) VALUES (?, ?, ?, 1)",
+                    catalog, "工序" + catalog, catalog);
+        }
+        long stepId = 1;
+        for (long templateId = 1; templateId <= templateCount; templateId++) {
+            jdbc.update("INSERT INTO template (id, template_name) VALUES (?, ?)", templateId, "模板" + templateId);
+            for (int order = 1; order <= STEPS_PER_TEMPLATE; order++) {
+                insertStep(stepId++, templateId, order, order, 0);
+            }
+            if (templateId % 2 == 1) {
+                jdbc.update("INSERT INTO project_template (project_id, template_id) VALUES (?, ?)", SITE_ID, templateId);
+            }
+        }
+    }
+
+    private void insertStep(long id, long templateId, long catalogId, int order, int deleted) {
+        db.jdbc().update("INSERT INTO template_process (id, template_id, process_catalog_id, control_time, default_order, deleted)"
+                + " VALUES (?, ?, ?, ?, ?, ?)", id, templateId, catalogId, order * 10, order, deleted);
+    }
+}
@@ -0,0 +1,263 @@
+package com.zzw.zzwgx.service.impl;
+
+import com.zzw.zzwgx.common.enums.ProcessStatus;
+import com.zzw.zzwgx.entity.Process;
+import com.zzw.zzwgx.entity.ProcessOperationLog;
+import com.zzw.zzwgx.mapper.ProcessMapper;
+import com.zzw.zzwgx.mapper.ProcessOperationLogMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 工序时间级联调整测试（基于内存中的假Mapper，不依赖数据库）
+ */
+class ProcessTimeCascadeTest {
+
+    private static final Long CYCLE_ID = 1L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 12, 1, 8, 0);
+
+    private FakeProcessTable processTable;
+    private List<ProcessOperationLog> savedLogs;
+    private AtomicInteger logInsertStatements;
+    private ProcessOperationLogWriter logWriter;
+    private ProcessTimeCascade cascade;
+
+    @BeforeEach
+    void setUp() {
+        processTable = new FakeProcessTable();
+        savedLogs = Collections.synchronizedList(new ArrayList<>());
+        logInsertStatements = new AtomicInteger();
+        ProcessOperationLogMapper logMapper = proxy(ProcessOperationLogMapper.class, (method, args) -> {
+            if ("insertBatch".equals(method)) {
+                logInsertStatements.incrementAndGet();
+                @SuppressWarnings("unchecked")
+                Collection<ProcessOperationLog> logs = (Collection<ProcessOperationLog>) args[0];
+                savedLogs.addAll(logs);
+                return logs.size();
+            }
+            throw new UnsupportedOperationException(method);
+        });
+        // 不启动后台线程，stop() 时统一写出，便于统计语句数
+        logWriter = new ProcessOperationLogWriter(logMapper, 1000, 200, 200, 5000);
+        cascade = new ProcessTimeCascade(processTable.mapper(), logWriter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logWriter.stop();
+    }
+
+    @Test
+    void completedProcessesShiftKeepingDurationWithTwoStatements() {
+        Process current = processTable.add(completed(1, BASE, BASE.plusMinutes(60), 60));
+        LocalDateTime start = BASE.plusMinutes(60);
+        for (int order = 2; order <= 20; order++) {
+            processTable.add(completed(order, start, start.plusMinutes(30), 30));
+            start = start.plusMinutes(30);
+        }
+
+        int updated = cascade.apply(current, BASE.plusMinutes(90));
+        logWriter.stop();
+
+        assertEquals(19, updated);
+        assertEquals(1, processTable.updateStatements);
+        assertEquals(1, logInsertStatements.get());
+        assertEquals(19, savedLogs.size());
+        LocalDateTime expectedStart = BASE.plusMinutes(90);
+        for (int order = 2; order <= 20; order++) {
+            Process stored = processTable.byOrder(order);
+            assertEquals(expectedStart, stored.getActualStartTime());
+            assertEquals(expectedStart.plusMinutes(30), stored.getActualEndTime());
+            assertEquals(expectedStart.plusMinutes(30), stored.getEstimatedEndTime());
+            expectedStart = expectedStart.plusMinutes(30);
+        }
+        assertTrue(savedLogs.stream().allMatch(log -> "UPDATE_TIME_BY_PREVIOUS_FILL".equals(log.getAction())));
+    }
+
+    @Test
+    void completedProcessWithinOneMinuteIsKeptAndChainsFromItsActualEnd() {
+        Process current = processTable.add(completed(1, BASE, BASE.plusMinutes(60), 60));
+        processTable.add(completed(2, BASE.plusMinutes(61), BASE.plusMinutes(100), 30));
+        processTable.add(notStarted(3, null, 20));
+
+        int updated = cascade.apply(current, BASE.plusMinutes(60));
+
+        assertEquals(1, updated);
+        Process second = processTable.byOrder(2);
+        assertEquals(BASE.plusMinutes(61), second.getActualStartTime());
+        assertEquals(BASE.plusMinutes(100), second.getActualEndTime());
+        Process third = processTable.byOrder(3);
+        assertEquals(BASE.plusMinutes(100), third.getEstimatedStartTime());
+        assertEquals(BASE.plusMinutes(120), third.getEstimatedEndTime());
+    }
+
+    @Test
+    void inProgressProcessMovesEstimatedTimesAndClearsActualEnd() {
+        Process inProgress = new Process();
+        inProgress.setCycleId(CYCLE_ID);
+        inProgress.setStartOrder(2);
+        inProgress.setProcessStatus(ProcessStatus.IN_PROGRESS.getCode());
+        inProgress.setControlTime(45);
+        inProgress.setActualStartTime(BASE.plusMinutes(60));
+        inProgress.setEstimatedStartTime(BASE.plusMinutes(60));
+        inProgress.setEstimatedEndTime(BASE.plusMinutes(105));
+        inProgress.setActualEndTime(BASE.plusMinutes(110));
+
+        List<ProcessTimeCascade.ScheduleChange> changes =
+                ProcessTimeCascade.computeChanges(List.of(inProgress), BASE.plusMinutes(80));
+
+        assertEquals(1, changes.size());
+        assertEquals(BASE.plusMinutes(80), changes.get(0).newStartTime());
+        assertEquals(BASE.plusMinutes(80), inProgress.getActualStartTime());
+        assertEquals(BASE.plusMinutes(80), inProgress.getEstimatedStartTime());
+        assertEquals(BASE.plusMinutes(125), inProgress.getEstimatedEndTime());
+        assertNull(inProgress.getActualEndTime());
+    }
+
+    @Test
+    void notStartedProcessesChainEstimatedTimes() {
+        Process current = processTable.add(completed(1, BASE, BASE.plusMinutes(60), 60));
+        processTable.add(notStarted(2, BASE.plusMinutes(60), 30));
+        processTable.add(notStarted(3, BASE.plusMinutes(90), 40));
+
+        int updated = cascade.apply(current, BASE.plusMinutes(75));
+
+        assertEquals(2, updated);
+        assertEquals(BASE.plusMinutes(75), processTable.byOrder(2).getEstimatedStartTime());
+        assertEquals(BASE.plusMinutes(105), processTable.byOrder(2).getEstimatedEndTime());
+        assertEquals(BASE.plusMinutes(105), processTable.byOrder(3).getEstimatedStartTime());
+        assertEquals(BASE.plusMinutes(145), processTable.byOrder(3).getEstimatedEndTime());
+    }
+
+    @Test
+    void nothingToAdjustIssuesNoWrites() {
+        Process current = processTable.add(completed(1, BASE, BASE.plusMinutes(60), 60));
+        processTable.add(notStarted(2, BASE.plusMinutes(60), 30));
+
+        int updated = cascade.apply(current, BASE.plusMinutes(60));
+        logWriter.stop();
+
+        assertEquals(0, updated);
+        assertEquals(0, processTable.updateStatements);
+        assertEquals(0, logInsertStatements.get());
+    }
+
+    private static Process completed(int order, LocalDateTime start, LocalDateTime end, int controlTime) {
+        Process process = new Process();
+        process.setCycleId(CYCLE_ID);
+        process.setStartOrder(order);
+        process.setProcessStatus(ProcessStatus.COMPLETED.getCode());
+        process.setControlTime(controlTime);
+        process.setActualStartTime(start);
+        process.setActualEndTime(end);
+        process.setEstimatedStartTime(start);
+        process.setEstimatedEndTime(start.plusMinutes(controlTime));
+        return process;
+    }
+
+    private static Process notStarted(int order, LocalDateTime estimatedStart, int controlTime) {
+        Process process = new Process();
+        process.setCycleId(CYCLE_ID);
+        process.setStartOrder(order);
+        process.setProcessStatus(ProcessStatus.NOT_STARTED.getCode());
+        process.setControlTime(controlTime);
+        process.setEstimatedStartTime(estimatedStart);
+        process.setEstimatedEndTime(estimatedStart != null ? estimatedStart.plusMinutes(controlTime) : null);
+        return process;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, FakeMethod handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (target, method, args) -> handler.invoke(method.getName(), args));
+    }
+
+    @FunctionalInterface
+    private interface FakeMethod {
+        Object invoke(String method, Object[] args);
+    }
+
+    /**
+     * 内存中的工序表，查询返回副本，只有批量更新才会改变存储的数据
+     */
+    private static class FakeProcessTable {
+
+        private final Map<Long, Process> rows = new LinkedHashMap<>();
+        private long nextId = 1;
+        private int updateStatements;
+
+        Process add(Process process) {
+            process.setId(nextId++);
+            rows.put(process.getId(), copy(process));
+            return process;
+        }
+
+        Process byOrder(int order) {
+            return rows.values().stream()
+                    .filter(p -> p.getStartOrder() == order)
+                    .findFirst()
+                    .orElseThrow();
+        }
+
+        ProcessMapper mapper() {
+            return proxy(ProcessMapper.class, (method, args) -> switch (method) {
+                case "selectSubsequentProcesses" -> rows.values().stream()
+                        .filter(p -> p.getCycleId().equals(args[0]) && p.getStartOrder() > (Integer) args[1])
+                        .sorted(Comparator.comparing(Process::getStartOrder))
+                        .map(FakeProcessTable::copy)
+                        .collect(Collectors.toList());
+                case "batchUpdateScheduleTimes" -> {
+                    updateStatements++;
+                    @SuppressWarnings("unchecked")
+                    Collection<Process> processes = (Collection<Process>) args[0];
+                    processes.forEach(this::applyUpdate);
+                    yield processes.size();
+                }
+                default -> throw new UnsupportedOperationException(method);
+            });
+        }
+
+        /**
+         * 与SQL中的COALESCE一致：null字段保留原值
+         */
+        private void applyUpdate(Process update) {
+            Process row = rows.get(update.getId());
+            if (update.getActualStartTime() != null) {
+                row.setActualStartTime(update.getActualStartTime());
+            }
+            if (update.getActualEndTime() != null) {
+                row.setActualEndTime(update.getActualEndTime());
+            }
+            if (update.getEstimatedStartTime() != null) {
+                row.setEstimatedStartTime(update.getEstimatedStartTime());
+            }
+            if (update.getEstimatedEndTime() != null) {
+                row.setEstimatedEndTime(update.getEstimatedEndTime());
+            }
+        }
+
+        private static Process copy(Process source) {
+            Process target = new Process();
+            BeanUtils.copyProperties(source, target);
+            return target;
+        }
+    }
+}
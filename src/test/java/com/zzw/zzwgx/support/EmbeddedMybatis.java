@@ -0,0 +1,92 @@
+package com.zzw.zzwgx.support;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import com.zzw.zzwgx.monitor.SqlStatementCounterInterceptor;
+import com.zzw.zzwgx.monitor.SqlStatementCounting;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 测试用内嵌数据库上的MyBatis-Plus环境
+ * 每个实例是一个独立的H2内存库（MySQL兼容模式），建表脚本为 db/h2-schema.sql，关闭时随最后一个连接一起释放；
+ * Mapper的注解SQL真实执行，并挂载 {@link SqlStatementCounterInterceptor} 统计实际执行的语句数
+ */
+public final class EmbeddedMybatis implements AutoCloseable {
+
+    private final Connection keepAlive;
+    private final JdbcTemplate jdbc;
+    private final SqlSession session;
+
+    public EmbeddedMybatis(Class<?>... mapperTypes) {
+        this(List.of(new SqlStatementCounterInterceptor()), mapperTypes);
+    }
+
+    /**
+     * @param interceptors 按注册顺序添加的插件，先添加的在内层
+     */
+    public EmbeddedMybatis(List<? extends Interceptor> interceptors, Class<?>... mapperTypes) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        try {
+            this.keepAlive = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException("无法创建内嵌数据库", e);
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("db/h2-schema.sql")).execute(dataSource);
+        this.jdbc = new JdbcTemplate(dataSource);
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("h2", new JdbcTransactionFactory(), dataSource));
+        GlobalConfig globalConfig = GlobalConfigUtils.defaults();
+        globalConfig.getDbConfig().setLogicDeleteField("deleted");
+        GlobalConfigUtils.setGlobalConfig(configuration, globalConfig);
+        interceptors.forEach(configuration::addInterceptor);
+        for (Class<?> mapperType : mapperTypes) {
+            configuration.addMapper(mapperType);
+        }
+        this.session = new MybatisSqlSessionFactoryBuilder().build(configuration).openSession(true);
+    }
+
+    public <T> T mapper(Class<T> mapperType) {
+        return session.getMapper(mapperType);
+    }
+
+    /**
+     * 准备数据、校验结果用的JDBC（不经过MyBatis，不计入语句数）
+     */
+    public JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    /**
+     * 执行操作并返回期间经MyBatis实际执行的语句数
+     */
+    public int countStatements(Runnable action) {
+        return SqlStatementCounting.count(action);
+    }
+
+    @Override
+    public void close() {
+        session.close();
+        try {
+            keepAlive.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException("关闭内嵌数据库失败", e);
+        }
+    }
+}
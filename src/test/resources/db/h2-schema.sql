@@ -0,0 +1,70 @@
+-- 测试用内嵌数据库表结构（H2 MySQL兼容模式），字段与生产库保持一致，省略外键和注释
+
+CREATE TABLE process_catalog (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    process_name VARCHAR(100) NOT NULL UNIQUE,
+    process_code VARCHAR(50),
+    category VARCHAR(20),
+    description VARCHAR(500),
+    display_order INT NOT NULL DEFAULT 0,
+    status TINYINT DEFAULT 1,
+    deleted TINYINT DEFAULT 0,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE template (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    template_name VARCHAR(100) NOT NULL UNIQUE,
+    template_description VARCHAR(500),
+    deleted TINYINT DEFAULT 0,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE project_template (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    project_id BIGINT NOT NULL,
+    template_id BIGINT NOT NULL,
+    deleted TINYINT DEFAULT 0,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (project_id, template_id)
+);
+
+CREATE TABLE template_process (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    template_id BIGINT NOT NULL,
+    process_catalog_id BIGINT NOT NULL,
+    control_time INT NOT NULL,
+    default_order INT NOT NULL,
+    description VARCHAR(500),
+    deleted TINYINT DEFAULT 0,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (template_id, default_order)
+);
+CREATE INDEX idx_catalog_template ON template_process (process_catalog_id, template_id, default_order);
+
+CREATE TABLE cycle (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    project_id BIGINT NOT NULL,
+    cycle_number INT NOT NULL,
+    control_duration INT,
+    start_date DATETIME,
+    end_date DATETIME,
+    estimated_start_date DATETIME,
+    estimated_end_date DATETIME,
+    estimated_mileage DECIMAL(10, 2),
+    actual_mileage DECIMAL(10, 2),
+    development_method VARCHAR(50),
+    cycle_status VARCHAR(20) DEFAULT 'IN_PROGRESS',
+    advance_length DECIMAL(10, 2) DEFAULT 0,
+    rock_level VARCHAR(20),
+    blast_time DATETIME,
+    is_time_fill TINYINT DEFAULT 0,
+    deleted TINYINT DEFAULT 0,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_project_cycle_number UNIQUE (project_id, cycle_number)
+);